@@ -0,0 +1,76 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.v1_13_R2;
+
+import io.github.spleefx.compatibility.BlockWriter;
+import net.minecraft.server.v1_13_R2.*;
+import org.bukkit.Material;
+import org.bukkit.block.BlockState;
+import org.bukkit.craftbukkit.v1_13_R2.CraftChunk;
+import org.bukkit.craftbukkit.v1_13_R2.CraftWorld;
+import org.bukkit.craftbukkit.v1_13_R2.block.CraftBlockState;
+import org.bukkit.craftbukkit.v1_13_R2.block.data.CraftBlockData;
+
+import java.util.Collection;
+
+public class BlockWriterImpl implements BlockWriter {
+
+    @Override
+    public boolean setType(org.bukkit.block.Block block, Material type) {
+        if (write(block, ((CraftBlockData) type.createBlockData()).getState())) return true;
+        block.setType(type, false);
+        return false;
+    }
+
+    @Override
+    public boolean restore(BlockState state) {
+        if (state.getClass() == CraftBlockState.class && write(state.getBlock(), ((CraftBlockData) state.getBlockData()).getState()))
+            return true;
+        state.update(true, false);
+        return false;
+    }
+
+    @Override
+    public void sendChange(org.bukkit.block.Block block) {
+        WorldServer world = ((CraftWorld) block.getWorld()).getHandle();
+        BlockPosition position = new BlockPosition(block.getX(), block.getY(), block.getZ());
+        IBlockData data = world.getType(position);
+        world.notify(position, data, data, 3);
+    }
+
+    @Override
+    public void relight(org.bukkit.Chunk chunk, Collection<org.bukkit.block.Block> changed) {
+        ((CraftChunk) chunk).getHandle().initLighting();
+    }
+
+    /**
+     * Writes the specified data directly into the block's chunk section
+     *
+     * @param block Block to write
+     * @param data  Data to write
+     * @return True if the data was written, false if the block must be changed through the Bukkit API.
+     */
+    private static boolean write(org.bukkit.block.Block block, IBlockData data) {
+        if (block.getY() < 0 || block.getY() > 255) return false;
+        WorldServer world = ((CraftWorld) block.getWorld()).getHandle();
+        if (world.getTileEntity(new BlockPosition(block.getX(), block.getY(), block.getZ())) != null)
+            return false; // tile entities must be removed properly
+        ChunkSection section = ((CraftChunk) block.getChunk()).getHandle().getSections()[block.getY() >> 4];
+        if (section == null) return false;
+        section.setType(block.getX() & 15, block.getY() & 15, block.getZ() & 15, data);
+        return true;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.v1_13_R2;
+
+import io.github.spleefx.scoreboard.sidebar.PacketSidebarRenderer;
+import net.minecraft.server.v1_13_R2.*;
+import org.bukkit.craftbukkit.v1_13_R2.entity.CraftPlayer;
+import org.bukkit.entity.Player;
+
+public class SidebarRendererImpl extends PacketSidebarRenderer<ScoreboardObjective> {
+
+    @Override
+    protected int getMaxAffixLength() {
+        return 64;
+    }
+
+    @Override
+    protected int getMaxTitleLength() {
+        return 128;
+    }
+
+    @Override
+    protected ScoreboardObjective createObjective(Player player, String title) {
+        ScoreboardObjective objective = new Scoreboard().registerObjective(OBJECTIVE_NAME, IScoreboardCriteria.DUMMY,
+                new ChatComponentText(title), IScoreboardCriteria.EnumScoreboardHealthDisplay.INTEGER);
+        send(player, new PacketPlayOutScoreboardObjective(objective, 0));
+        send(player, new PacketPlayOutScoreboardDisplayObjective(1, objective));
+        return objective;
+    }
+
+    @Override
+    protected void updateTitle(Player player, ScoreboardObjective objective, String title) {
+        objective.setDisplayName(new ChatComponentText(title));
+        send(player, new PacketPlayOutScoreboardObjective(objective, 2));
+    }
+
+    @Override
+    protected void createTeam(Player player, ScoreboardObjective objective, String team, String entry, String prefix, String suffix) {
+        Scoreboard scoreboard = objective.getScoreboard();
+        ScoreboardTeam scoreboardTeam = scoreboard.createTeam(team);
+        scoreboardTeam.setPrefix(new ChatComponentText(prefix));
+        scoreboardTeam.setSuffix(new ChatComponentText(suffix));
+        scoreboard.addPlayerToTeam(entry, scoreboardTeam);
+        send(player, new PacketPlayOutScoreboardTeam(scoreboardTeam, 0));
+    }
+
+    @Override
+    protected void updateTeam(Player player, ScoreboardObjective objective, String team, String prefix, String suffix) {
+        ScoreboardTeam scoreboardTeam = objective.getScoreboard().getTeam(team);
+        scoreboardTeam.setPrefix(new ChatComponentText(prefix));
+        scoreboardTeam.setSuffix(new ChatComponentText(suffix));
+        send(player, new PacketPlayOutScoreboardTeam(scoreboardTeam, 2));
+    }
+
+    @Override
+    protected void removeTeam(Player player, ScoreboardObjective objective, String team) {
+        ScoreboardTeam scoreboardTeam = objective.getScoreboard().getTeam(team);
+        send(player, new PacketPlayOutScoreboardTeam(scoreboardTeam, 1));
+        objective.getScoreboard().removeTeam(scoreboardTeam);
+    }
+
+    @Override
+    protected void setScore(Player player, ScoreboardObjective objective, String entry, int score) {
+        send(player, new PacketPlayOutScoreboardScore(ScoreboardServer.Action.CHANGE, OBJECTIVE_NAME, entry, score));
+    }
+
+    @Override
+    protected void removeScore(Player player, ScoreboardObjective objective, String entry) {
+        send(player, new PacketPlayOutScoreboardScore(ScoreboardServer.Action.REMOVE, OBJECTIVE_NAME, entry, 0));
+    }
+
+    @Override
+    protected void removeObjective(Player player, ScoreboardObjective objective) {
+        send(player, new PacketPlayOutScoreboardObjective(objective, 1));
+    }
+
+    private static void send(Player player, Packet<?> packet) {
+        ((CraftPlayer) player).getHandle().playerConnection.sendPacket(packet);
+    }
+
+}
@@ -6,6 +6,7 @@ import com.google.gson.JsonElement;
 import com.sk89q.worldedit.bukkit.WorldEditPlugin;
 import io.github.spleefx.arena.ArenaManager;
 import io.github.spleefx.arena.api.ArenaData;
+import io.github.spleefx.arena.api.BlockJournal;
 import io.github.spleefx.arena.api.GameArena;
 import io.github.spleefx.arena.bow.BowSpleefListener;
 import io.github.spleefx.arena.spleef.SpleefListener;
@@ -16,9 +17,11 @@ import io.github.spleefx.command.sub.base.StatsCommand.MenuListener;
 import io.github.spleefx.compatibility.CompatibilityHandler;
 import io.github.spleefx.compatibility.worldedit.SchematicManager;
 import io.github.spleefx.converter.*;
+import io.github.spleefx.data.DataPrefetcher;
 import io.github.spleefx.data.DataProvider;
 import io.github.spleefx.data.DataProvider.StorageType;
 import io.github.spleefx.data.GameStats;
+import io.github.spleefx.data.StatAccumulator;
 import io.github.spleefx.data.StatisticsConfig;
 import io.github.spleefx.data.papi.OldExpansionRemover;
 import io.github.spleefx.data.papi.SpleefXPAPI;
@@ -148,6 +151,7 @@ public final class SpleefX extends JavaPlugin implements Listener {
     private MessageManager messageManager;
 
     private DataProvider dataProvider;
+    private final StatAccumulator statAccumulator = new StatAccumulator();
 
     public void loadMissing() {
         downloadIfMissing("ProtocolLib", "https://github.com/dmulloy2/ProtocolLib/releases/download/4.5.1/ProtocolLib.jar");
@@ -283,7 +287,11 @@ public final class SpleefX extends JavaPlugin implements Listener {
             p.registerEvents(new ConnectionListener(), this);
             p.registerEvents(new RenameListener(), this);
             p.registerEvents(new ArenaListener(), this);
+            p.registerEvents(new BlockJournal.ExplosionListener(), this);
+            p.registerEvents(new BlockJournal.ChangeListener(), this);
+            p.registerEvents(arenaManager.getChunkResidency(), this);
             p.registerEvents(new CopyStore(), this);
+            p.registerEvents(new DataPrefetcher(), this);
             p.registerEvents(new BowSpleefListener(this), this);
             p.registerEvents(new SpleefListener(), this);
             p.registerEvents(new SpleggListener(this), this);
@@ -308,9 +316,6 @@ public final class SpleefX extends JavaPlugin implements Listener {
 
             StorageType storageType = PluginSettings.STATISTICS_STORAGE_TYPE.get();
 
-            if (storageType == StorageType.SQLITE && Bukkit.getPluginManager().getPlugin("SpleefXSQL") == null)
-                SpleefX.logger().warning("The storage type is SQLite, but SpleefXSQL extension is not found. Defaulting to flat file storage");
-
             dataProvider = storageType.create();
             dataProvider.createRequiredFiles(fileManager);
 
@@ -336,6 +341,8 @@ public final class SpleefX extends JavaPlugin implements Listener {
             getServer().getPluginManager().registerEvents(new BoosterFactory.BoosterListener(), this);
             PERKS.values().stream().filter(v -> v instanceof Listener).forEach(v -> getServer().getPluginManager().registerEvents((Listener) v, this));
             abilityDelays.start();
+            Bukkit.getScheduler().runTaskTimer(this, arenaManager.getChunkResidency(), 1, 1);
+            Bukkit.getScheduler().runTaskTimer(this, statAccumulator, 1, 1);
             activeBoosterLoader.getActiveBoosters().forEach((player, booster) -> {
                 if (booster != null) {
                     if (player.isOnline() || !player.isOnline() && BoosterFactory.CONSUME_WHILE_OFFLINE.get())
@@ -348,6 +355,7 @@ public final class SpleefX extends JavaPlugin implements Listener {
 
             scoreboardTicker = new ScoreboardTicker();
             scoreboardTicker.setTicks(((Number) PluginSettings.SCOREBOARD_UPDATE_INTERVAL.get()).intValue());
+            scoreboardTicker.setFallbackTicks(((Number) PluginSettings.SCOREBOARD_FALLBACK_INTERVAL.get()).intValue());
 
             if (Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI")) {
                 if (PlaceholderAPI.unregisterPlaceholderHook("SpleefX")) {
@@ -392,13 +400,17 @@ public final class SpleefX extends JavaPlugin implements Listener {
             return;
         try {
             disableArenas();
+            arenaManager.getRegenerationQueue().flush();
         } catch (Exception e) {
             logger().warning("Failed to regenerate arenas.");
             e.printStackTrace();
         }
         boosterConsumer.cancel();
+        scoreboardTicker.shutdown();
+        arenaManager.getChunkResidency().releaseAll();
         saveArenas();
         messageManager.save();
+        statAccumulator.flush();
         dataProvider.saveEntries(this);
         statsFile.save();
         boostersFile.save();
@@ -20,15 +20,24 @@ import com.sk89q.worldedit.EmptyClipboardException;
 import com.sk89q.worldedit.session.ClipboardHolder;
 import io.github.spleefx.SpleefX;
 import io.github.spleefx.arena.api.ArenaEngine;
+import io.github.spleefx.arena.api.BlockJournal;
 import io.github.spleefx.arena.api.GameArena;
+import io.github.spleefx.arena.snapshot.ArenaSnapshot;
+import io.github.spleefx.compatibility.BlockWriteBatch;
 import io.github.spleefx.compatibility.worldedit.NoSchematicException;
 import io.github.spleefx.compatibility.worldedit.SchematicManager;
 import io.github.spleefx.util.PlaceholderUtil.CommandEntry;
+import io.github.spleefx.util.game.BukkitExecutors;
 import io.github.spleefx.util.game.Chat;
 import io.github.spleefx.util.message.message.Message;
+import io.github.spleefx.util.plugin.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -41,6 +50,21 @@ public class ArenaManager {
      */
     private SpleefX plugin;
 
+    /**
+     * The queue of arena regenerations
+     */
+    private final RegenerationQueue regenerationQueue = new RegenerationQueue(this::paste);
+
+    /**
+     * Keeps the chunks of arenas loaded while they are in use
+     */
+    private final ChunkResidency chunkResidency = new ChunkResidency();
+
+    /**
+     * The regions of arenas being read in the background, mapped by the arena key
+     */
+    private final Map<String, CompletableFuture<int[]>> regionReads = new HashMap<>();
+
     public ArenaManager(SpleefX plugin) {
         this.plugin = plugin;
     }
@@ -51,6 +75,10 @@ public class ArenaManager {
             ClipboardHolder clipboard = plugin.getWorldEdit().getSession(player).getClipboard();
             processor.write(clipboard);
             if (arena.getRegenerationPoint() == null) throw new EmptyClipboardException();
+            arena.setRegion(SchematicManager.getRegion(clipboard, arena.getRegenerationPoint()));
+            if ((boolean) PluginSettings.ARENA_SNAPSHOTS_ENABLED.get())
+                writeSnapshot(arena, arena.getRegion());
+            chunkResidency.forget(arena.getKey());
             GameArena.ARENAS.get().put(arena.getKey(), arena);
             Message.ARENA_CREATED.reply(player, arena, arena.getExtension(), new CommandEntry(command));
             return arena;
@@ -71,20 +99,190 @@ public class ArenaManager {
         GameArena arena = GameArena.ARENAS.get().remove(key);
         if (arena == null) return null;
         Preconditions.checkState(arena.getEngine().getArenaStage() != ArenaStage.ACTIVE, "The arena has running games! Wait until games are done.");
+        chunkResidency.forget(key);
         File schem = new File(plugin.getArenasFolder(), key + ".schem");
         schem.delete();
+        SchematicManager.invalidate(schem);
+        File snapshot = getSnapshotFile(key);
+        snapshot.delete();
+        ArenaSnapshot.invalidate(snapshot);
         return arena;
     }
 
     /**
-     * Regenerates the specified arena.
+     * Regenerates the specified arena. The regeneration is added to the {@link RegenerationQueue}, and
+     * starts once a regeneration slot is free. If the plugin is disabled (for example, when the server is
+     * shutting down), the arena is regenerated immediately instead.
      * <p>
      * Note: It is not recommended to use this method directly. Use {@link ArenaEngine#regenerate(ArenaStage)}.
      *
      * @param key Arena key to regenerate
+     * @return A future completed on the main thread once the arena is regenerated
+     */
+    public CompletableFuture<Void> regenerateArena(String key) {
+        if (!plugin.isEnabled()) return paste(key);
+        return regenerationQueue.submit(key);
+    }
+
+    /**
+     * Regenerates the specified arena immediately. If the arena's {@link BlockJournal} is trusted, only the blocks
+     * changed during the last game are restored. Otherwise, the whole {@link ArenaSnapshot} is pasted, or the
+     * WorldEdit schematic if the arena has no snapshot yet, or its snapshot could not be read or pasted.
+     * <p>
+     * If the plugin is disabled, the scheduler can no longer run tasks, so the arena is regenerated
+     * entirely in the current tick.
+     *
+     * @param key Arena key to regenerate
+     * @return A future completed once the arena is regenerated
+     */
+    private CompletableFuture<Void> paste(String key) {
+        GameArena arena = GameArena.getByKey(key);
+        BlockJournal journal = arena.getEngine().getBlockJournal();
+        if (journal.isTrusted()) {
+            journal.restore();
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean now = !plugin.isEnabled();
+        File snapshot = getSnapshotFile(key);
+        if (!(boolean) PluginSettings.ARENA_SNAPSHOTS_ENABLED.get() || !snapshot.exists())
+            return pasteSchematic(arena, now);
+        CompletableFuture<ArenaSnapshot> loaded = ArenaSnapshot.load(snapshot);
+        if (now) loaded.handle((s, e) -> null).join(); // so that the snapshot is pasted on this thread
+        CompletableFuture<Void> future = loaded
+                .thenCompose(s -> s.paste(plugin, arena.getRegenerationPoint()))
+                .handle((v, error) -> error)
+                .thenCompose(error -> {
+                    if (error == null) {
+                        arena.setRegion(loaded.join().getRegion(arena.getRegenerationPoint()));
+                        resetJournal(arena);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    SpleefX.logger().warning("Failed to paste the snapshot of arena " + key + ", pasting its schematic instead: " + error.getMessage());
+                    ArenaSnapshot.invalidate(snapshot);
+                    if (now || Bukkit.isPrimaryThread()) return pasteSchematic(arena, now);
+                    return CompletableFuture.supplyAsync(() -> pasteSchematic(arena, false), BukkitExecutors.MAIN).thenCompose(f -> f);
+                });
+        if (now) BlockWriteBatch.NEXT_TICK.flush();
+        return future;
+    }
+
+    /**
+     * Pastes the WorldEdit schematic of the specified arena, and (re)writes the arena's snapshot from
+     * the pasted blocks once done. This must be called from the main thread.
+     *
+     * @param arena Arena to paste
+     * @param now   Whether should the whole schematic be pasted in the current tick
+     * @return A future completed once the arena is pasted
+     */
+    private CompletableFuture<Void> pasteSchematic(GameArena arena, boolean now) {
+        try {
+            SchematicManager processor = SpleefX.newSchematicManager(arena.getKey());
+            Location point = arena.getRegenerationPoint();
+            CompletableFuture<Void> paste = now ? processor.pasteAll(point) : processor.paste(point);
+            int[] region = processor.getRegion(point); // the clipboard is already read by the paste
+            if (region != null) arena.setRegion(region);
+            CompletableFuture<Void> future = paste.thenRun(() -> resetJournal(arena));
+            if (!now && (boolean) PluginSettings.ARENA_SNAPSHOTS_ENABLED.get()) // convert the arena once it has been pasted
+                future.thenRun(() -> Bukkit.getScheduler().runTask(plugin, () -> writeSnapshot(arena, region)));
+            return future;
+        } catch (NoSchematicException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Returns the region of the specified arena. Arenas created before regions were stored on the arena have
+     * their region read in the background, from their snapshot if there is any, or from their schematic otherwise.
+     *
+     * @param arena Arena to get for
+     * @return A future completed on the main thread with the region, or with null if it could not be read
+     */
+    public CompletableFuture<int[]> resolveRegion(GameArena arena) {
+        if (arena.getRegion() != null) return CompletableFuture.completedFuture(arena.getRegion());
+        return regionReads.computeIfAbsent(arena.getKey(), key -> {
+            Location point = arena.getRegenerationPoint();
+            File snapshot = getSnapshotFile(key);
+            CompletableFuture<int[]> read = (boolean) PluginSettings.ARENA_SNAPSHOTS_ENABLED.get() && snapshot.exists()
+                    ? ArenaSnapshot.load(snapshot).thenApply(s -> s.getRegion(point))
+                    : CompletableFuture.completedFuture(null);
+            read = read.handle((region, error) -> region) // snapshots may be outdated, or of an older version
+                    .thenCompose(region -> region != null ? CompletableFuture.completedFuture(region)
+                            : CompletableFuture.supplyAsync(() -> SpleefX.newSchematicManager(key).getRegion(point)));
+            return read.handleAsync((region, error) -> {
+                regionReads.remove(key);
+                if (error != null)
+                    SpleefX.logger().warning("Failed to read the region of arena " + key + ": " + error.getMessage());
+                else if (region != null && arena.getRegion() == null)
+                    arena.setRegion(region);
+                return arena.getRegion();
+            }, BukkitExecutors.MAIN);
+        });
+    }
+
+    /**
+     * Marks the journal of the specified arena as trusted after a full paste. The journal is left
+     * untouched if a game has already started, as it is recording the changes of that game.
+     *
+     * @param arena Arena that has been pasted
+     */
+    private static void resetJournal(GameArena arena) {
+        if (arena.getEngine().getArenaStage() != ArenaStage.ACTIVE)
+            arena.getEngine().getBlockJournal().reset();
+    }
+
+    /**
+     * Captures the specified region of the arena over the next ticks, and writes it as the arena's snapshot
+     * asynchronously. Arenas which contain tile entities are not captured, and any snapshot they have is
+     * deleted, so that they are regenerated from their schematic with the contents of their tile entities.
+     *
+     * @param arena  Arena to capture
+     * @param region Region of the arena
+     */
+    private void writeSnapshot(GameArena arena, int[] region) {
+        if (region == null) return;
+        File file = getSnapshotFile(arena.getKey());
+        if (ArenaSnapshot.hasTileEntities(arena.getRegenerationPoint().getWorld(), region)) {
+            file.delete();
+            ArenaSnapshot.invalidate(file);
+            return;
+        }
+        BlockJournal journal = arena.getEngine().getBlockJournal();
+        // a game which starts while capturing would change the blocks that are yet to be captured
+        ArenaSnapshot.capture(plugin, arena.getRegenerationPoint(), region, () -> arena.getEngine().getArenaStage() != ArenaStage.ACTIVE && journal.size() == 0)
+                .thenCompose(snapshot -> snapshot.writeAsync(file))
+                .exceptionally(e -> {
+                    SpleefX.logger().warning("Failed to write the snapshot of arena " + arena.getKey() + ": " + e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Returns the snapshot file of the specified arena
+     *
+     * @param key Key of the arena
+     * @return The snapshot file
+     */
+    private File getSnapshotFile(String key) {
+        return new File(plugin.getArenasFolder(), key + ArenaSnapshot.EXTENSION);
+    }
+
+    /**
+     * Returns the queue of arena regenerations
+     *
+     * @return The regeneration queue
+     */
+    public RegenerationQueue getRegenerationQueue() {
+        return regenerationQueue;
+    }
+
+    /**
+     * Returns the manager of arena chunks
+     *
+     * @return The chunk residency manager
      */
-    public CompletableFuture<Void> regenerateArena(String key) throws NoSchematicException {
-        SchematicManager processor = SpleefX.newSchematicManager(key);
-        return processor.paste(GameArena.getByKey(key).getRegenerationPoint());
+    public ChunkResidency getChunkResidency() {
+        return chunkResidency;
     }
 }
@@ -0,0 +1,222 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena;
+
+import io.github.spleefx.SpleefX;
+import io.github.spleefx.arena.api.GameArena;
+import io.github.spleefx.util.plugin.PluginSettings;
+import io.github.spleefx.util.plugin.Protocol;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+import java.util.*;
+
+/**
+ * Keeps the chunks of arenas loaded while they are in use. An arena is in use while it has players
+ * in it, or while it is counting down or running a game. The chunks of its region, spawnpoints and
+ * lobbies are loaded gradually (a few chunks every tick) as soon as the arena is in use, and are
+ * released once the arena has been idle for the configured period.
+ * <p>
+ * On 1.14+, chunks are held with plugin chunk tickets. On older versions, unloading held chunks is
+ * cancelled.
+ */
+public class ChunkResidency implements Runnable, Listener {
+
+    /**
+     * Whether can chunks be held with plugin chunk tickets
+     */
+    private static final boolean TICKETS = Protocol.isNewerThan(14);
+
+    /**
+     * The residency of each arena, mapped by the arena key
+     */
+    private final Map<String, ArenaChunks> arenas = new HashMap<>();
+
+    /**
+     * The amount of arenas holding each chunk
+     */
+    private final Map<ChunkPosition, Integer> holds = new HashMap<>();
+
+    /**
+     * Chunks waiting to be loaded, in order
+     */
+    private final Set<ChunkPosition> loadQueue = new LinkedHashSet<>();
+
+    /**
+     * Starts holding the chunks of the specified arena, if they are not already held. This is
+     * invoked when players join the arena and when its countdown starts, and may be called
+     * any amount of times.
+     *
+     * @param arena Arena to warm up
+     */
+    public void warm(GameArena arena) {
+        if (!(boolean) PluginSettings.ARENA_CHUNK_RESIDENCY_ENABLED.get()) return;
+        ArenaChunks residency = arenas.computeIfAbsent(arena.getKey(), k -> new ArenaChunks());
+        residency.lastUsed = System.currentTimeMillis();
+        if (residency.held) return;
+        if (residency.chunks == null)
+            residency.chunks = computeChunks(arena);
+        residency.held = true;
+        for (ChunkPosition chunk : residency.chunks)
+            if (holds.merge(chunk, 1, Integer::sum) == 1)
+                loadQueue.add(chunk);
+    }
+
+    /**
+     * Stops holding the chunks of the specified arena
+     *
+     * @param key Key of the arena
+     */
+    private void release(String key) {
+        ArenaChunks residency = arenas.get(key);
+        if (residency == null || !residency.held) return;
+        residency.held = false;
+        for (ChunkPosition chunk : residency.chunks) {
+            if (holds.merge(chunk, -1, Integer::sum) > 0) continue;
+            holds.remove(chunk);
+            if (!loadQueue.remove(chunk) && TICKETS) {
+                World world = Bukkit.getWorld(chunk.world);
+                if (world != null) world.removePluginChunkTicket(chunk.x, chunk.z, SpleefX.getPlugin());
+            }
+        }
+    }
+
+    /**
+     * Releases the chunks of the specified arena and forgets its chunks. Invoked when the arena is
+     * removed or recreated.
+     *
+     * @param key Key of the arena
+     */
+    public void forget(String key) {
+        release(key);
+        arenas.remove(key);
+    }
+
+    /**
+     * Releases the chunks of all arenas
+     */
+    public void releaseAll() {
+        new ArrayList<>(arenas.keySet()).forEach(this::release);
+    }
+
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+        long idle = ((Number) PluginSettings.ARENA_CHUNK_RESIDENCY_IDLE_RELEASE.get()).longValue() * 1000;
+        for (GameArena arena : GameArena.ARENAS.get().values()) {
+            ArenaStage stage = arena.getEngine().getArenaStage();
+            if (stage == ArenaStage.COUNTDOWN || stage == ArenaStage.ACTIVE || !arena.getEngine().getPlayerTeams().isEmpty())
+                warm(arena);
+        }
+        arenas.forEach((key, residency) -> {
+            if (residency.held && now - residency.lastUsed > idle)
+                release(key);
+        });
+        int budget = ((Number) PluginSettings.ARENA_CHUNK_RESIDENCY_CHUNKS_PER_TICK.get()).intValue();
+        Iterator<ChunkPosition> iterator = loadQueue.iterator();
+        while (budget-- > 0 && iterator.hasNext()) {
+            ChunkPosition chunk = iterator.next();
+            iterator.remove();
+            World world = Bukkit.getWorld(chunk.world);
+            if (world == null) continue;
+            if (TICKETS)
+                world.addPluginChunkTicket(chunk.x, chunk.z, SpleefX.getPlugin());
+            else
+                world.loadChunk(chunk.x, chunk.z);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (!(event instanceof Cancellable)) return; // 1.14+, chunks are held with tickets instead
+        if (holds.containsKey(new ChunkPosition(event.getWorld().getName(), event.getChunk().getX(), event.getChunk().getZ())))
+            ((Cancellable) event).setCancelled(true);
+    }
+
+    /**
+     * Computes all chunks of the specified arena's region, spawnpoints and lobbies. If the region of the arena
+     * is not known yet, it is read in the background, and the chunks are computed again once it is read.
+     *
+     * @param arena Arena to compute for
+     * @return The arena chunks
+     */
+    private Set<ChunkPosition> computeChunks(GameArena arena) {
+        Set<ChunkPosition> chunks = new LinkedHashSet<>();
+        Location point = arena.getRegenerationPoint();
+        if (point != null && point.getWorld() != null) {
+            int[] region = arena.getRegion();
+            if (region == null)
+                SpleefX.getPlugin().getArenaManager().resolveRegion(arena).thenAccept(r -> {
+                    if (r != null) forget(arena.getKey()); // held again with the region on the next tick if still in use
+                });
+            else {
+                String world = point.getWorld().getName();
+                for (int x = region[0] >> 4; x <= region[3] >> 4; x++)
+                    for (int z = region[2] >> 4; z <= region[5] >> 4; z++)
+                        chunks.add(new ChunkPosition(world, x, z));
+            }
+        }
+        arena.getSpawnPoints().values().forEach(location -> add(chunks, location));
+        arena.getTeamLobbies().values().forEach(location -> add(chunks, location));
+        add(chunks, arena.getLobby());
+        add(chunks, arena.getFinishingLocation());
+        return chunks;
+    }
+
+    private static void add(Set<ChunkPosition> chunks, Location location) {
+        if (location == null || location.getWorld() == null) return;
+        chunks.add(new ChunkPosition(location.getWorld().getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    private static class ArenaChunks {
+
+        private Set<ChunkPosition> chunks;
+        private boolean held;
+        private long lastUsed;
+
+    }
+
+    private static class ChunkPosition {
+
+        private final String world;
+        private final int x, z;
+
+        private ChunkPosition(String world, int x, int z) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChunkPosition)) return false;
+            ChunkPosition that = (ChunkPosition) o;
+            return x == that.x && z == that.z && world.equals(that.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(world, x, z);
+        }
+    }
+}
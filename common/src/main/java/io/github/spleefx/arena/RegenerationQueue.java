@@ -0,0 +1,240 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena;
+
+import io.github.spleefx.SpleefX;
+import io.github.spleefx.arena.api.GameArena;
+import io.github.spleefx.util.plugin.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * A plugin-wide queue of arena regenerations. Only a limited amount of arenas are regenerated at the
+ * same time, and arenas that have players waiting in them are regenerated before the others. This
+ * spreads out regenerations of arenas whose games ended at the same time, instead of running all of
+ * them in a single tick.
+ * <p>
+ * Regenerations are submitted and started on the main thread, and their futures are always completed
+ * on the main thread. A regeneration that does not finish within the configured timeout fails, so that
+ * it does not hold its slot forever.
+ */
+public class RegenerationQueue {
+
+    /**
+     * All regenerations waiting for a free slot, in the order they were submitted
+     */
+    private final Map<String, Request> pending = new LinkedHashMap<>();
+
+    /**
+     * All regenerations currently running
+     */
+    private final Map<String, Request> running = new HashMap<>();
+
+    /**
+     * The time (in milliseconds) that the last regeneration of each arena took, from its submission to its completion
+     */
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * The task that regenerates an arena
+     */
+    private final Function<String, CompletableFuture<Void>> regenerator;
+
+    /**
+     * Creates a new regeneration queue
+     *
+     * @param regenerator The task that regenerates an arena by its key
+     */
+    public RegenerationQueue(Function<String, CompletableFuture<Void>> regenerator) {
+        this.regenerator = regenerator;
+    }
+
+    /**
+     * Adds the specified arena to the queue. If the arena is already waiting in the queue, the
+     * future of the existing regeneration is returned.
+     *
+     * @param key Key of the arena to regenerate
+     * @return A future completed once the arena is regenerated
+     */
+    public CompletableFuture<Void> submit(String key) {
+        Request request = pending.get(key);
+        if (request == null) {
+            request = new Request(key);
+            pending.put(key, request);
+        }
+        CompletableFuture<Void> future = request.future;
+        poll();
+        return future;
+    }
+
+    /**
+     * Starts the next regenerations, as long as there are free slots
+     */
+    private void poll() {
+        int limit = Math.max(1, ((Number) PluginSettings.ARENA_REGENERATION_MAXIMUM_CONCURRENT.get()).intValue());
+        while (running.size() < limit) {
+            Request next = next();
+            if (next == null) return;
+            pending.remove(next.key);
+            running.put(next.key, next);
+            start(next);
+        }
+    }
+
+    /**
+     * Returns the next regeneration to start. Arenas with players waiting in them go first, and
+     * arenas that are already regenerating wait until their current regeneration is done.
+     *
+     * @return The next regeneration, or null if there is none
+     */
+    private Request next() {
+        Request first = null;
+        for (Request request : pending.values()) {
+            if (running.containsKey(request.key)) continue;
+            if (hasPlayers(request.key)) return request;
+            if (first == null) first = request;
+        }
+        return first;
+    }
+
+    private void start(Request request) {
+        CompletableFuture<Void> regeneration = regenerate(request.key);
+        if (regeneration.isDone()) {
+            regeneration.whenComplete((v, error) -> complete(request, error));
+            return;
+        }
+        long timeout = ((Number) PluginSettings.ARENA_REGENERATION_TIMEOUT.get()).longValue();
+        if (timeout > 0)
+            request.timeout = Bukkit.getScheduler().runTaskLater(SpleefX.getPlugin(), () -> complete(request,
+                    new TimeoutException("Regeneration of arena " + request.key + " did not finish within " + timeout + " seconds")), timeout * 20);
+        regeneration.whenComplete((v, error) -> {
+            if (Bukkit.isPrimaryThread())
+                complete(request, error);
+            else
+                Bukkit.getScheduler().runTask(SpleefX.getPlugin(), () -> complete(request, error));
+        });
+    }
+
+    /**
+     * Completes the specified regeneration and frees its slot. Does nothing if the regeneration
+     * has already been completed (for example, when it finishes after it has timed out).
+     *
+     * @param request Regeneration to complete
+     * @param error   The error the regeneration failed with, or null if it succeeded
+     */
+    private void complete(Request request, Throwable error) {
+        if (!running.remove(request.key, request)) return;
+        if (request.timeout != null) request.timeout.cancel();
+        latencies.put(request.key, System.currentTimeMillis() - request.submitted);
+        if (error == null)
+            request.future.complete(null);
+        else
+            request.future.completeExceptionally(error);
+        poll();
+    }
+
+    private CompletableFuture<Void> regenerate(String key) {
+        try {
+            return regenerator.apply(key);
+        } catch (Throwable t) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(t);
+            return future;
+        }
+    }
+
+    /**
+     * Regenerates all waiting and running arenas again, without waiting for the scheduler. This must be
+     * called once the plugin is disabled, as regenerations that rely on the scheduler will never finish.
+     */
+    public void flush() {
+        List<Request> requests = new ArrayList<>(running.values());
+        requests.addAll(pending.values());
+        running.clear();
+        pending.clear();
+        for (Request request : requests) {
+            if (request.timeout != null) request.timeout.cancel();
+            regenerate(request.key).whenComplete((v, error) -> {
+                latencies.put(request.key, System.currentTimeMillis() - request.submitted);
+                if (error == null)
+                    request.future.complete(null);
+                else
+                    request.future.completeExceptionally(error);
+            });
+        }
+    }
+
+    private static boolean hasPlayers(String key) {
+        GameArena arena = GameArena.getByKey(key);
+        return arena != null && !arena.getEngine().getPlayerTeams().isEmpty();
+    }
+
+    /**
+     * Returns the amount of regenerations waiting for a free slot
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the amount of regenerations currently running
+     *
+     * @return The running regenerations
+     */
+    public int getRunning() {
+        return running.size();
+    }
+
+    /**
+     * Returns the time (in milliseconds) that the last regeneration of the specified arena took, including
+     * the time it waited in the queue.
+     *
+     * @param key Key of the arena
+     * @return The last regeneration latency, or -1 if the arena has not been regenerated yet
+     */
+    public long getLatency(String key) {
+        return latencies.getOrDefault(key, -1L);
+    }
+
+    /**
+     * Returns the time (in milliseconds) that the last regeneration of each arena took
+     *
+     * @return An unmodifiable view of all latencies
+     */
+    public Map<String, Long> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    private static class Request {
+
+        private final String key;
+        private final long submitted = System.currentTimeMillis();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private BukkitTask timeout;
+
+        private Request(String key) {
+            this.key = key;
+        }
+    }
+}
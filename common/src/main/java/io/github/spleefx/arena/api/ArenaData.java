@@ -157,6 +157,13 @@ public abstract class ArenaData {
     @Expose
     private Location regenerationPoint;
 
+    /**
+     * The region that the arena occupies when pasted at the regeneration point, as {minX, minY, minZ, maxX, maxY, maxZ}.
+     * Null for arenas created before regions were stored, until the region is read from their snapshot or schematic.
+     */
+    @Expose
+    private int[] region;
+
     /**
      * The finishing location that players are teleported to when the game is over
      */
@@ -29,6 +29,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class which controls all the arena processing
@@ -135,10 +136,20 @@ public interface ArenaEngine {
     void forceEnd();
 
     /**
-     * Regenerates the arena
-     * @param newStage
+     * Regenerates the arena. The arena stays in {@link ArenaStage#REGENERATING} until the
+     * regeneration is actually done.
+     *
+     * @param newStage The stage to switch to once the arena is regenerated. If null, the current stage is restored.
+     * @return A future completed on the main thread once the arena is regenerated
+     */
+    CompletableFuture<Void> regenerate(@Nullable ArenaStage newStage);
+
+    /**
+     * Returns the journal of blocks changed during the current game
+     *
+     * @return The block journal
      */
-    void regenerate(@Nullable ArenaStage newStage);
+    BlockJournal getBlockJournal();
 
     /**
      * Saves the player data before they enter the arena, such as the inventory and location
@@ -135,6 +135,11 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
      */
     private BukkitTask countdownTask;
 
+    /**
+     * The regeneration started before the countdown. The game does not start until it is done.
+     */
+    private CompletableFuture<Void> countdownRegeneration;
+
     /**
      * The task that controls the game
      */
@@ -156,6 +161,11 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
      */
     private SignManager signManager;
 
+    /**
+     * The journal of blocks changed during the game
+     */
+    private final BlockJournal blockJournal = new BlockJournal();
+
     /**
      * Creates an engine for the specified arena
      *
@@ -194,6 +204,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
     public void setArenaStage(ArenaStage stage) {
         arena.stage = stage;
         getSignManager().update();
+        updateScoreboards();
     }
 
     /**
@@ -260,6 +271,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
             team = selectTeam();
         team.getMembers().add(player);
         playerTeams.put(p, team);
+        getPlugin().getArenaManager().getChunkResidency().warm(arena);
         prepare(p, team);
         broadcasted.add(player.getUniqueId());
         if (arena.getArenaType() == ArenaType.TEAMS) {
@@ -284,6 +296,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
             stats.takeCoins(player, arena.getBet());
             Message.BET_TAKEN.reply(player, arena, player, arena.getExtension(), new BetEntry(arena.getBet(), null));
         }
+        updateScoreboards();
         return true;
     }
 
@@ -323,7 +336,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         }
         load(p, false);
         if (getArenaStage() != ArenaStage.ACTIVE) {
-            if (playerTeams.size() < arena.getMinimum() && !BukkitTaskUtils.isCancelled(countdownTask)) {
+            if (playerTeams.size() < arena.getMinimum() && (!BukkitTaskUtils.isCancelled(countdownTask) || getArenaStage() == ArenaStage.COUNTDOWN)) {
                 countdownTask.cancel();
                 countdown = PluginSettings.COUNTDOWN_ON_ENOUGH_PLAYERS.get();
                 setArenaStage(ArenaStage.WAITING);
@@ -335,6 +348,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
                 });
             }
         }
+        updateScoreboards();
     }
 
     /**
@@ -348,7 +362,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         Player p = player.getPlayer();
         playerHeads.remove(player.getPlayer().getUniqueId());
         dead.add(ArenaPlayer.adapt(p));
-        getPlugin().getDataProvider().add(PlayerStatistic.LOSSES, p, arena.getExtension(), 1);
+        getPlugin().getStatAccumulator().add(PlayerStatistic.LOSSES, p, arena.getExtension(), 1);
 
         if (getArenaStage() == ArenaStage.ACTIVE && !disconnect) {
             if (alive.size() > 2) {
@@ -378,6 +392,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
             toBroadcast().forEach((pz) -> Message.PLAYER_LOST_FFA.reply(pz.getPlayer(), arena, team.getColor(), player.getPlayer(), -1, arena.getExtension()));
         arena.getExtension().getGameTitles().get(GameEvent.LOSE).display(player.getPlayer());
         playerTeams.remove(player);
+        updateScoreboards();
     }
 
     /**
@@ -389,7 +404,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
     @Override
     public void win(ArenaPlayer p, GameTeam team) {
         Player player = p.getPlayer();
-        getPlugin().getDataProvider().add(PlayerStatistic.WINS, player, arena.getExtension(), 1);
+        getPlugin().getStatAccumulator().add(PlayerStatistic.WINS, player, arena.getExtension(), 1);
         List<Player> all = broadcasted.stream().map(Bukkit::getPlayer).filter(Objects::nonNull).collect(Collectors.toList());
         if (arena.getArenaType() == ArenaType.FREE_FOR_ALL) {
             for (Player e : all) {
@@ -418,7 +433,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         toBroadcast().forEach(p -> {
             load(ArenaPlayer.adapt(p), true);
             arena.getExtension().getGameTitles().get(GameEvent.DRAW).display(p.getPlayer());
-            getPlugin().getDataProvider().add(PlayerStatistic.DRAWS, p.getPlayer(), arena.getExtension(), 1);
+            getPlugin().getStatAccumulator().add(PlayerStatistic.DRAWS, p.getPlayer(), arena.getExtension(), 1);
         });
         end(false);
     }
@@ -473,7 +488,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         player.getInventory().clear();
         arena.getExtension().getItemsToAdd().forEach((slot, item) -> player.getInventory().setItem(slot, item.factory().create()));
         arena.getExtension().getArmorToAdd().forEach((slot, item) -> slot.set(player, item.factory().create()));
-        getPlugin().getDataProvider().add(PlayerStatistic.GAMES_PLAYED, player, arena.getExtension(), 1);
+        getPlugin().getStatAccumulator().add(PlayerStatistic.GAMES_PLAYED, player, arena.getExtension(), 1);
         DataHolder doubleJumpSettings = arena.getExtension().getDoubleJumpSettings();
         if (!doubleJumpSettings.isEnabled()) return;
         if (doubleJumpSettings.getDefaultAmount() > 0) {
@@ -505,8 +520,13 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         if (countdownTask != null && !BukkitTaskUtils.isCancelled(countdownTask)) return;
         currentScoreboard = isFull() ? ScoreboardType.COUNTDOWN_AND_FULL : ScoreboardType.COUNTDOWN_AND_WAITING;
         setArenaStage(ArenaStage.COUNTDOWN);
-        if (ARENA_REGENERATE_BEFORE_COUNTDOWN.get())
-            getPlugin().getArenaManager().regenerateArena(arena.getKey());
+        getPlugin().getArenaManager().getChunkResidency().warm(arena);
+        if (ARENA_REGENERATE_BEFORE_COUNTDOWN.get() && !blockJournal.isTrusted()) // a trusted journal means the arena is intact
+            countdownRegeneration = getPlugin().getArenaManager().regenerateArena(arena.getKey()).whenComplete((v, error) -> {
+                if (error == null) return;
+                SpleefX.logger().warning("Failed to regenerate arena " + arena.getKey() + ": " + error.getMessage());
+                blockJournal.invalidate();
+            });
 
         Map<String, String> numbersToDisplay = TITLE_ON_COUNTDOWN_NUMBERS.get();
         playerTeams.forEach((p, team) -> Message.GAME_STARTING.reply(p.getPlayer(), arena, team.getColor(), p.getPlayer(), countdown, new ColoredNumberEntry(numbersToDisplay.getOrDefault(countdown + "", "&e" + countdown)), arena.getExtension()));
@@ -514,6 +534,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         countdownTask = Bukkit.getScheduler().runTaskTimer(getPlugin(), () -> {
             countdown--;
             currentScoreboard = isFull() ? ScoreboardType.COUNTDOWN_AND_FULL : ScoreboardType.COUNTDOWN_AND_WAITING;
+            updateScoreboards();
             playerTeams.forEach((p, value) -> {
                 if (DISPLAY_COUNTDOWN_ON_EXP_BAR.get()) {
                     p.getPlayer().setLevel(countdown);
@@ -533,7 +554,15 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
             if (countdown == 0) {
                 countdownTask.cancel();
                 countdown = PluginSettings.COUNTDOWN_ON_ENOUGH_PLAYERS.get();
-                start();
+                CompletableFuture<Void> regeneration = countdownRegeneration;
+                countdownRegeneration = null;
+                if (regeneration == null || regeneration.isDone())
+                    start();
+                else // wait for the arena to regenerate, unless the countdown was cancelled in the meantime
+                    regeneration.whenComplete((v, error) -> {
+                        if (getArenaStage() == ArenaStage.COUNTDOWN && BukkitTaskUtils.isCancelled(countdownTask))
+                            start();
+                    });
             }
         }, 20, 20);
     }
@@ -575,6 +604,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         try {
             timerTask = Bukkit.getScheduler().runTaskTimer(getPlugin(), () -> {
                 timeLeft--;
+                updateScoreboards();
                 String m = numbers.get(Integer.toString(timeLeft));
                 playerTeams.forEach((p, team) -> {
                     if (DISPLAY_COUNTDOWN_ON_EXP_BAR.get()) {
@@ -691,8 +721,8 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         spectators.clear();
         endTasks.stream().filter(task -> task.getPhase() == Phase.AFTER).forEach(GameTask::run);
         broadcasted.clear();
+        getPlugin().getStatAccumulator().flush();
         regenerate(ArenaStage.WAITING);
-        setArenaStage(ArenaStage.WAITING);
     }
 
     /**
@@ -712,18 +742,35 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
     }
 
     /**
-     * Regenerates the arena
-     * @param newStage
+     * Regenerates the arena. The arena stays in {@link ArenaStage#REGENERATING} until the
+     * regeneration is actually done.
+     *
+     * @param newStage The stage to switch to once the arena is regenerated. If null, the current stage is restored.
+     * @return A future completed on the main thread once the arena is regenerated
      */
-    @SneakyThrows @Override
-    public void regenerate(@Nullable ArenaStage newStage) {
+    @Override
+    public CompletableFuture<Void> regenerate(@Nullable ArenaStage newStage) {
         ArenaStage oldStage = newStage == null ? getArenaStage() : newStage;
         setArenaStage(ArenaStage.REGENERATING);
-        getPlugin().getArenaManager().regenerateArena(arena.getKey()).thenAccept((v) -> {
+        currentScoreboard = ScoreboardType.WAITING_IN_LOBBY;
+        return getPlugin().getArenaManager().regenerateArena(arena.getKey()).whenComplete((v, error) -> {
+            if (error != null) {
+                SpleefX.logger().warning("Failed to regenerate arena " + arena.getKey() + ": " + error.getMessage());
+                blockJournal.invalidate();
+            }
             setArenaStage(oldStage);
             getSignManager().update();
         });
-        currentScoreboard = ScoreboardType.WAITING_IN_LOBBY;
+    }
+
+    /**
+     * Returns the journal of blocks changed during the current game
+     *
+     * @return The block journal
+     */
+    @Override
+    public BlockJournal getBlockJournal() {
+        return blockJournal;
     }
 
     /**
@@ -761,7 +808,7 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
                 player.setAllowFlight(context.allowFlight);
 
             player.setFallDistance(-500);
-            getPlugin().getScoreboardTicker().getBoards().remove(player.getUniqueId());
+            getPlugin().getScoreboardTicker().remove(player);
             try {
                 player.setScoreboard(Objects.requireNonNull(Bukkit.getScoreboardManager()).getMainScoreboard());
             } catch (NullPointerException ignored) {
@@ -871,6 +918,13 @@ public abstract class BaseArenaEngine<R extends GameArena> implements ArenaEngin
         return deadTeams;
     }
 
+    /**
+     * Marks the scoreboards of all players and spectators in the arena to be redrawn
+     */
+    public void updateScoreboards() {
+        getPlugin().getScoreboardTicker().markDirty(getTrackedPlayers());
+    }
+
     public List<ArenaPlayer> getTrackedPlayers() {
         List<ArenaPlayer> all = new ArrayList<>(playerTeams.keySet());
         all.addAll(spectators);
@@ -0,0 +1,266 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena.api;
+
+import io.github.spleefx.arena.ArenaPlayer;
+import io.github.spleefx.arena.ArenaPlayer.ArenaPlayerState;
+import io.github.spleefx.compatibility.BlockWriteBatch;
+import io.github.spleefx.util.plugin.PluginSettings;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TNTPrimed;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A journal of all blocks changed in an arena during a game. Each block is recorded with its
+ * state before the first change, which allows regenerating the arena by restoring only the
+ * changed blocks instead of pasting the whole schematic.
+ * <p>
+ * A journal is only trusted once the arena has been fully pasted at least once after it was
+ * created, and stops being trusted whenever it overflows or is invalidated. An untrusted journal
+ * makes the arena fall back to a full schematic paste.
+ * <p>
+ * Besides the changes done by players, the journal records blocks inside the arena region which
+ * change on their own, such as falling blocks, flowing liquids and melting ice (see {@link ChangeListener}).
+ */
+public class BlockJournal {
+
+    /**
+     * The journal that explosions are currently recorded in
+     */
+    private static BlockJournal explosionJournal;
+
+    /**
+     * The original states of all changed blocks, mapped by their packed coordinates
+     */
+    private final Map<Long, BlockState> changes = new LinkedHashMap<>();
+
+    /**
+     * Whether does the journal contain every change done since the last full paste
+     */
+    private boolean trusted = false;
+
+    /**
+     * Records the specified block before it gets changed. Blocks resting on top of it are recorded
+     * as well, as they may break along with it.
+     *
+     * @param block Block to record
+     */
+    public synchronized void record(Block block) {
+        if (!trusted) return;
+        put(block.getState());
+        Block above = block.getRelative(BlockFace.UP);
+        if (above.getType() != Material.AIR)
+            put(above.getState());
+    }
+
+    /**
+     * Records all the specified blocks
+     *
+     * @param blocks Blocks to record
+     */
+    public synchronized void record(Collection<Block> blocks) {
+        blocks.forEach(this::record);
+    }
+
+    /**
+     * Records the specified state, if its block was not already recorded.
+     *
+     * @param state Original state of the block
+     */
+    public synchronized void record(BlockState state) {
+        put(state);
+    }
+
+    private void put(BlockState state) {
+        if (!trusted) return;
+        changes.putIfAbsent(pack(state.getX(), state.getY(), state.getZ()), state);
+        if (changes.size() > ((Number) PluginSettings.ARENA_JOURNAL_MAXIMUM_CHANGES.get()).intValue())
+            invalidate();
+    }
+
+    /**
+     * Restores all recorded blocks to their original states, and clears the journal. This must be
+     * called from the main thread.
+     *
+     * @return The amount of restored blocks
+     */
+    public synchronized int restore() {
+        int restored = changes.size();
+        BlockWriteBatch batch = new BlockWriteBatch();
+        changes.values().forEach(batch::restore);
+        batch.flush();
+        changes.clear();
+        return restored;
+    }
+
+    /**
+     * Clears the journal and marks it as trusted. Invoked after the arena has been fully pasted.
+     */
+    public synchronized void reset() {
+        changes.clear();
+        trusted = (boolean) PluginSettings.ARENA_JOURNAL_ENABLED.get();
+    }
+
+    /**
+     * Clears the journal and marks it as untrusted, so that the next regeneration does a full paste.
+     */
+    public synchronized void invalidate() {
+        changes.clear();
+        trusted = false;
+    }
+
+    /**
+     * Returns whether the journal can be used to regenerate the arena
+     *
+     * @return ^
+     */
+    public synchronized boolean isTrusted() {
+        return trusted;
+    }
+
+    /**
+     * Returns the amount of recorded blocks
+     *
+     * @return The journal size
+     */
+    public synchronized int size() {
+        return changes.size();
+    }
+
+    /**
+     * Runs the specified explosion, recording all blocks it destroys in this journal
+     *
+     * @param explosion Explosion to run
+     */
+    public void recordExplosion(Runnable explosion) {
+        BlockJournal previous = explosionJournal;
+        explosionJournal = this;
+        try {
+            explosion.run();
+        } finally {
+            explosionJournal = previous;
+        }
+    }
+
+    /**
+     * Returns the trusted journal of the arena whose region contains the specified block
+     *
+     * @param block Block to look for
+     * @return The journal, or null if the block is not inside an arena with a trusted journal
+     */
+    private static BlockJournal of(Block block) {
+        int x = block.getX(), y = block.getY(), z = block.getZ();
+        for (GameArena arena : GameArena.ARENAS.get().values()) {
+            int[] region = arena.getRegion();
+            if (region == null || x < region[0] || y < region[1] || z < region[2] || x > region[3] || y > region[4] || z > region[5])
+                continue;
+            Location point = arena.getRegenerationPoint();
+            if (point == null || point.getWorld() == null || !point.getWorld().equals(block.getWorld())) continue;
+            BlockJournal journal = arena.getEngine().getBlockJournal();
+            if (journal.isTrusted()) return journal;
+        }
+        return null;
+    }
+
+    /**
+     * Records the specified block in the journal of the arena that contains it, if there is any
+     *
+     * @param block Block to record
+     */
+    private static void recordInArena(Block block) {
+        BlockJournal journal = of(block);
+        if (journal != null) journal.record(block);
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (long) y & 0xFFF;
+    }
+
+    /**
+     * Records blocks inside arenas which change without a player changing them. Without these, a journal
+     * would miss, for example, the block a falling sand lands on, and restoring it would leave the sand there.
+     */
+    public static class ChangeListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEntityChangeBlock(EntityChangeBlockEvent event) { // falling blocks, when they fall and when they land
+            recordInArena(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockFromTo(BlockFromToEvent event) { // flowing liquids
+            recordInArena(event.getToBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockFade(BlockFadeEvent event) { // melting ice and snow
+            recordInArena(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockForm(BlockFormEvent event) { // forming ice and snow, spreading blocks
+            recordInArena(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockBurn(BlockBurnEvent event) {
+            recordInArena(event.getBlock());
+        }
+    }
+
+    /**
+     * Records blocks destroyed by explosions inside arenas
+     */
+    public static class ExplosionListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockExplode(BlockExplodeEvent event) {
+            if (explosionJournal != null)
+                explosionJournal.record(event.blockList());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEntityExplode(EntityExplodeEvent event) {
+            if (explosionJournal != null) {
+                explosionJournal.record(event.blockList());
+                return;
+            }
+            if (!(event.getEntity() instanceof TNTPrimed)) return;
+            if (!(((TNTPrimed) event.getEntity()).getSource() instanceof Player)) return;
+            ArenaPlayer player = ArenaPlayer.adapt((Player) ((TNTPrimed) event.getEntity()).getSource());
+            if (player.getState() != ArenaPlayerState.IN_GAME) return;
+            player.getCurrentArena().getEngine().getBlockJournal().record(event.blockList());
+        }
+    }
+}
@@ -72,9 +72,10 @@ public class BowSpleefListener implements Listener {
         if (hitEntity == null) arrow.remove();
         Block hitBlock = CompatibilityHandler.getHitBlock(arena, event);
         if (hitBlock != null && hitBlock.getType() == Material.TNT && BowSpleefExtension.EXTENSION.getRemoveTNTWhenPrimed())
-            if (arena.getEngine().getArenaStage() == ArenaStage.ACTIVE)
+            if (arena.getEngine().getArenaStage() == ArenaStage.ACTIVE) {
+                arena.getEngine().getBlockJournal().record(hitBlock);
                 hitBlock.setType(Material.AIR);
-            else
+            } else
                 arrow.remove();
     }
 
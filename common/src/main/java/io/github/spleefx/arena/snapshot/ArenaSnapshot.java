@@ -0,0 +1,416 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena.snapshot;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.spleefx.compatibility.BlockWriteBatch;
+import io.github.spleefx.compatibility.worldedit.SlicedPaste;
+import io.github.spleefx.util.plugin.PluginSettings;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.plugin.Plugin;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A snapshot of the blocks of an arena, stored in SpleefX's own format which is identical on
+ * every server version and does not depend on WorldEdit.
+ * <p>
+ * The file starts with a header: the magic number, the format version and a flags byte. The payload that
+ * follows is deflate-compressed if {@link #FLAG_COMPRESSED} is set, and contains:
+ * <ol>
+ *     <li>The offset from the regeneration point to the minimum point of the region, as 3 signed varints</li>
+ *     <li>The size of the region, as 3 varints</li>
+ *     <li>The palette: its size as a varint, followed by every block state as a UTF string</li>
+ *     <li>Every 16x16x16 section of the region, ordered by y, z then x. Each section is a list of runs,
+ *     each run being its length and its palette index as varints, until the section is filled.
+ *     Blocks inside a section are ordered by y, z then x as well.</li>
+ * </ol>
+ * Snapshots only store block states, so arenas which contain tile entities (such as signs, skulls,
+ * banners or containers) are never captured, and are always regenerated from their schematic.
+ * Snapshots of version 1 were written before this was checked, and are no longer read.
+ */
+public class ArenaSnapshot {
+
+    /**
+     * The file extension of snapshots
+     */
+    public static final String EXTENSION = ".snapshot";
+
+    /**
+     * The magic number every snapshot starts with ("SXAS")
+     */
+    private static final int MAGIC = 0x53584153;
+
+    /**
+     * The current format version
+     */
+    private static final byte VERSION = 2;
+
+    /**
+     * The maximum amount of blocks a snapshot may contain
+     */
+    private static final long MAX_VOLUME = Integer.MAX_VALUE - 8;
+
+    /**
+     * Flag set when the payload is compressed
+     */
+    private static final byte FLAG_COMPRESSED = 1;
+
+    /**
+     * The offset from the regeneration point to the minimum point of the region
+     */
+    private final int offsetX, offsetY, offsetZ;
+
+    /**
+     * The size of the region
+     */
+    private final int sizeX, sizeY, sizeZ;
+
+    /**
+     * All block states in this snapshot
+     */
+    private final String[] palette;
+
+    /**
+     * The palette index of every block, ordered by y, z then x
+     */
+    private final int[] blocks;
+
+    ArenaSnapshot(int offsetX, int offsetY, int offsetZ, int sizeX, int sizeY, int sizeZ, String[] palette, int[] blocks) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.offsetZ = offsetZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.palette = palette;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Captures the blocks of the specified region. The region is read in slices of chunk sections over
+     * multiple ticks, within the same budget as sliced pastes. This must be called from the main thread.
+     *
+     * @param plugin            Plugin to schedule with
+     * @param regenerationPoint The regeneration point of the arena
+     * @param region            The region bounds, as {minX, minY, minZ, maxX, maxY, maxZ}
+     * @param intact            Whether is the region unchanged since the capture started. This is checked before
+     *                          every slice, and the capture fails once it returns false.
+     * @return A future completed with the captured snapshot
+     */
+    public static CompletableFuture<ArenaSnapshot> capture(Plugin plugin, Location regenerationPoint, int[] region, BooleanSupplier intact) {
+        World world = regenerationPoint.getWorld();
+        int sizeX = region[3] - region[0] + 1, sizeY = region[4] - region[1] + 1, sizeZ = region[5] - region[2] + 1;
+        Map<String, Integer> palette = new HashMap<>();
+        int[] blocks = new int[sizeX * sizeY * sizeZ];
+        SlicedPaste capture = new SlicedPaste();
+        capture.addSections(new int[]{0, 0, 0}, new int[]{sizeX - 1, sizeY - 1, sizeZ - 1}, new int[]{region[0], region[1], region[2]},
+                (minX, minY, minZ, maxX, maxY, maxZ) -> {
+                    if (!intact.getAsBoolean()) throw new IllegalStateException("The arena was changed while it was being captured");
+                    for (int y = minY; y <= maxY; y++)
+                        for (int z = minZ; z <= maxZ; z++)
+                            for (int x = minX; x <= maxX; x++) {
+                                String state = BlockStateCodec.CURRENT.encode(world.getBlockAt(region[0] + x, region[1] + y, region[2] + z));
+                                Integer id = palette.get(state);
+                                if (id == null) palette.put(state, id = palette.size());
+                                blocks[(y * sizeZ + z) * sizeX + x] = id;
+                            }
+                });
+        return capture.start(plugin).thenApply(v -> {
+            String[] paletteArray = new String[palette.size()];
+            palette.forEach((state, id) -> paletteArray[id] = state);
+            return new ArenaSnapshot(region[0] - regenerationPoint.getBlockX(), region[1] - regenerationPoint.getBlockY(), region[2] - regenerationPoint.getBlockZ(),
+                    sizeX, sizeY, sizeZ, paletteArray, blocks);
+        });
+    }
+
+    /**
+     * Returns whether the specified region contains any tile entity, which cannot be stored in a snapshot.
+     * This must be called from the main thread.
+     *
+     * @param world  World of the region
+     * @param region The region bounds, as {minX, minY, minZ, maxX, maxY, maxZ}
+     * @return {@code true} if the region contains a tile entity
+     */
+    public static boolean hasTileEntities(World world, int[] region) {
+        for (int cx = region[0] >> 4; cx <= region[3] >> 4; cx++)
+            for (int cz = region[2] >> 4; cz <= region[5] >> 4; cz++)
+                for (BlockState tile : world.getChunkAt(cx, cz).getTileEntities())
+                    if (tile.getX() >= region[0] && tile.getX() <= region[3] && tile.getY() >= region[1] && tile.getY() <= region[4]
+                            && tile.getZ() >= region[2] && tile.getZ() <= region[5])
+                        return true;
+        return false;
+    }
+
+    /**
+     * Returns the region that the snapshot occupies when pasted at the specified regeneration point
+     *
+     * @param regenerationPoint The regeneration point of the arena
+     * @return The region bounds, as {minX, minY, minZ, maxX, maxY, maxZ}
+     */
+    public int[] getRegion(Location regenerationPoint) {
+        int minX = regenerationPoint.getBlockX() + offsetX, minY = regenerationPoint.getBlockY() + offsetY, minZ = regenerationPoint.getBlockZ() + offsetZ;
+        return new int[]{minX, minY, minZ, minX + sizeX - 1, minY + sizeY - 1, minZ + sizeZ - 1};
+    }
+
+    /**
+     * Pastes the snapshot at the specified regeneration point. The paste is split into chunk sections
+     * and spread over multiple ticks, and blocks that already match the snapshot are not rewritten.
+     *
+     * @param plugin            Plugin to schedule with
+     * @param regenerationPoint The regeneration point of the arena
+     * @return A future completed once the snapshot is pasted
+     */
+    public CompletableFuture<Void> paste(Plugin plugin, Location regenerationPoint) {
+        return paste(plugin, regenerationPoint, BlockStateCodec.CURRENT);
+    }
+
+    private <T> CompletableFuture<Void> paste(Plugin plugin, Location regenerationPoint, BlockStateCodec<T> codec) {
+        World world = regenerationPoint.getWorld();
+        int originX = regenerationPoint.getBlockX() + offsetX, originY = regenerationPoint.getBlockY() + offsetY, originZ = regenerationPoint.getBlockZ() + offsetZ;
+        Object[] states = new Object[palette.length];
+        SlicedPaste paste = new SlicedPaste();
+        paste.addSections(new int[]{0, 0, 0}, new int[]{sizeX - 1, sizeY - 1, sizeZ - 1}, new int[]{originX, originY, originZ},
+                (minX, minY, minZ, maxX, maxY, maxZ) -> {
+                    for (int y = minY; y <= maxY; y++)
+                        for (int z = minZ; z <= maxZ; z++)
+                            for (int x = minX; x <= maxX; x++) {
+                                int id = blocks[(y * sizeZ + z) * sizeX + x];
+                                @SuppressWarnings("unchecked") T state = (T) states[id];
+                                if (state == null) states[id] = state = codec.decode(palette[id]);
+                                Block block = world.getBlockAt(originX + x, originY + y, originZ + z);
+                                if (!codec.matches(block, state))
+                                    codec.apply(block, state, BlockWriteBatch.NEXT_TICK);
+                            }
+                });
+        return paste.start(plugin);
+    }
+
+    /**
+     * Writes the snapshot to the specified file. The snapshot is written to a temporary file first,
+     * which then replaces the target file.
+     *
+     * @param file     File to write to
+     * @param compress Whether should the payload be compressed
+     * @throws IOException If an I/O error occurs
+     */
+    public void write(File file, boolean compress) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream header = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeByte(compress ? FLAG_COMPRESSED : 0);
+            DataOutputStream out = compress ? new DataOutputStream(new DeflaterOutputStream(header)) : header;
+            writeSignedVarInt(out, offsetX);
+            writeSignedVarInt(out, offsetY);
+            writeSignedVarInt(out, offsetZ);
+            writeVarInt(out, sizeX);
+            writeVarInt(out, sizeY);
+            writeVarInt(out, sizeZ);
+            writeVarInt(out, palette.length);
+            for (String state : palette)
+                out.writeUTF(state);
+            forEachSection((minX, minY, minZ, maxX, maxY, maxZ) -> {
+                int run = 0, current = -1;
+                for (int y = minY; y <= maxY; y++)
+                    for (int z = minZ; z <= maxZ; z++)
+                        for (int x = minX; x <= maxX; x++) {
+                            int id = blocks[(y * sizeZ + z) * sizeX + x];
+                            if (id != current && run > 0) {
+                                writeVarInt(out, run);
+                                writeVarInt(out, current);
+                                run = 0;
+                            }
+                            current = id;
+                            run++;
+                        }
+                writeVarInt(out, run);
+                writeVarInt(out, current);
+            });
+            out.close();
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the snapshot to the specified file asynchronously, and caches it once it is written
+     *
+     * @param file File to write to
+     * @return A future completed once the snapshot is written
+     */
+    public CompletableFuture<Void> writeAsync(File file) {
+        boolean compress = (boolean) PluginSettings.ARENA_SNAPSHOTS_COMPRESS.get();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(file, compress);
+                Snapshots.CACHE.put(file, this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reads a snapshot from the specified file
+     *
+     * @param file File to read from
+     * @return The read snapshot
+     * @throws IOException If an I/O error occurs, or the file is not a valid snapshot
+     */
+    public static ArenaSnapshot read(File file) throws IOException {
+        try (DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (header.readInt() != MAGIC) throw new IOException("Not an arena snapshot: " + file.getName());
+            byte version = header.readByte();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file.getName());
+            boolean compressed = (header.readByte() & FLAG_COMPRESSED) != 0;
+            DataInputStream in = compressed ? new DataInputStream(new InflaterInputStream(header)) : header;
+            int offsetX = readSignedVarInt(in), offsetY = readSignedVarInt(in), offsetZ = readSignedVarInt(in);
+            int sizeX = readVarInt(in), sizeY = readVarInt(in), sizeZ = readVarInt(in);
+            if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0 || (long) sizeX * sizeY * sizeZ > MAX_VOLUME)
+                throw new IOException("Invalid snapshot size " + sizeX + "x" + sizeY + "x" + sizeZ + ": " + file.getName());
+            int paletteSize = readVarInt(in);
+            if (paletteSize <= 0 || paletteSize > (long) sizeX * sizeY * sizeZ)
+                throw new IOException("Invalid palette size " + paletteSize + ": " + file.getName());
+            String[] palette = new String[paletteSize];
+            for (int i = 0; i < palette.length; i++)
+                palette[i] = in.readUTF();
+            int[] blocks = new int[sizeX * sizeY * sizeZ];
+            ArenaSnapshot snapshot = new ArenaSnapshot(offsetX, offsetY, offsetZ, sizeX, sizeY, sizeZ, palette, blocks);
+            snapshot.forEachSection((minX, minY, minZ, maxX, maxY, maxZ) -> {
+                int run = 0, current = 0;
+                for (int y = minY; y <= maxY; y++)
+                    for (int z = minZ; z <= maxZ; z++)
+                        for (int x = minX; x <= maxX; x++) {
+                            if (run == 0) {
+                                run = readVarInt(in);
+                                current = readVarInt(in);
+                                if (run <= 0) throw new IOException("Invalid run length " + run + ": " + file.getName());
+                                if (current < 0 || current >= palette.length) throw new IOException("Invalid palette index " + current + ": " + file.getName());
+                            }
+                            blocks[(y * sizeZ + z) * sizeX + x] = current;
+                            run--;
+                        }
+                if (run != 0) throw new IOException("A run exceeds its section: " + file.getName());
+            });
+            return snapshot;
+        }
+    }
+
+    /**
+     * Returns the snapshot stored in the specified file, reading it asynchronously only if it
+     * is not already cached.
+     *
+     * @param file File to read from
+     * @return A future completed with the snapshot
+     */
+    public static CompletableFuture<ArenaSnapshot> load(File file) {
+        ArenaSnapshot snapshot = Snapshots.CACHE.getIfPresent(file);
+        if (snapshot != null) return CompletableFuture.completedFuture(snapshot);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                ArenaSnapshot read = read(file);
+                Snapshots.CACHE.put(file, read);
+                return read;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Invalidates the cached snapshot of the specified file. This must be called whenever the
+     * file is deleted.
+     *
+     * @param file Snapshot file to invalidate
+     */
+    public static void invalidate(File file) {
+        Snapshots.CACHE.invalidate(file);
+    }
+
+    private void forEachSection(SectionTask task) throws IOException {
+        for (int sy = 0; sy < sizeY; sy += 16)
+            for (int sz = 0; sz < sizeZ; sz += 16)
+                for (int sx = 0; sx < sizeX; sx += 16)
+                    task.run(sx, sy, sz, Math.min(sx + 15, sizeX - 1), Math.min(sy + 15, sizeY - 1), Math.min(sz + 15, sizeZ - 1));
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt is too big");
+    }
+
+    private static void writeSignedVarInt(DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static int readSignedVarInt(DataInput in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Holds the cache of all read snapshots, which is only created once it is first used, as its
+     * size is taken from the config
+     */
+    private static class Snapshots {
+
+        /**
+         * A cache of all read snapshots, weighed by the amount of blocks they contain
+         */
+        private static final Cache<File, ArenaSnapshot> CACHE = CacheBuilder.newBuilder()
+                .maximumWeight(((Number) PluginSettings.ARENA_SCHEMATIC_CACHE_SIZE.get()).longValue())
+                .weigher((File file, ArenaSnapshot snapshot) -> snapshot.blocks.length)
+                .build();
+
+    }
+
+    @FunctionalInterface
+    private interface SectionTask {
+
+        void run(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) throws IOException;
+
+    }
+}
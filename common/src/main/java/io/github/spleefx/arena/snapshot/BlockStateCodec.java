@@ -0,0 +1,68 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena.snapshot;
+
+import io.github.spleefx.compatibility.BlockWriteBatch;
+import io.github.spleefx.util.plugin.Protocol;
+import org.bukkit.block.Block;
+
+/**
+ * Converts block states to and from the strings stored in the palette of an {@link ArenaSnapshot}
+ *
+ * @param <T> The decoded state type
+ */
+public interface BlockStateCodec<T> {
+
+    /**
+     * The codec of the current server version
+     */
+    BlockStateCodec<?> CURRENT = Protocol.isNewerThan(13) ? new ModernBlockStateCodec() : new LegacyBlockStateCodec();
+
+    /**
+     * Encodes the current state of the specified block
+     *
+     * @param block Block to encode
+     * @return The encoded state
+     */
+    String encode(Block block);
+
+    /**
+     * Decodes the specified palette entry
+     *
+     * @param state State to decode
+     * @return The decoded state
+     */
+    T decode(String state);
+
+    /**
+     * Returns whether the specified block is already in the specified state
+     *
+     * @param block Block to check
+     * @param state State to check against
+     * @return ^
+     */
+    boolean matches(Block block, T state);
+
+    /**
+     * Changes the specified block to the specified state
+     *
+     * @param block Block to change
+     * @param state New state of the block
+     * @param batch Batch to write in
+     */
+    void apply(Block block, T state, BlockWriteBatch batch);
+
+}
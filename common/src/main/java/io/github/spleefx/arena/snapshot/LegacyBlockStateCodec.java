@@ -0,0 +1,53 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena.snapshot;
+
+import io.github.spleefx.compatibility.BlockWriteBatch;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.material.MaterialData;
+
+/**
+ * A codec for 1.8-1.12, which stores states as {@code MATERIAL:data}
+ */
+@SuppressWarnings("deprecation")
+public class LegacyBlockStateCodec implements BlockStateCodec<MaterialData> {
+
+    @Override
+    public String encode(Block block) {
+        return block.getType().name() + ":" + block.getData();
+    }
+
+    @Override
+    public MaterialData decode(String state) {
+        int separator = state.lastIndexOf(':');
+        return new MaterialData(Material.valueOf(state.substring(0, separator)), Byte.parseByte(state.substring(separator + 1)));
+    }
+
+    @Override
+    public boolean matches(Block block, MaterialData state) {
+        return block.getType() == state.getItemType() && block.getData() == state.getData();
+    }
+
+    @Override
+    public void apply(Block block, MaterialData state, BlockWriteBatch batch) {
+        BlockState blockState = block.getState();
+        blockState.setType(state.getItemType());
+        blockState.setRawData(state.getData());
+        batch.restore(blockState);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena.snapshot;
+
+import io.github.spleefx.compatibility.BlockWriteBatch;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * A codec for 1.13+, which stores states as block data strings
+ */
+public class ModernBlockStateCodec implements BlockStateCodec<BlockData> {
+
+    @Override
+    public String encode(Block block) {
+        return block.getBlockData().getAsString();
+    }
+
+    @Override
+    public BlockData decode(String state) {
+        return Bukkit.createBlockData(state);
+    }
+
+    @Override
+    public boolean matches(Block block, BlockData state) {
+        return block.getBlockData().equals(state);
+    }
+
+    @Override
+    public void apply(Block block, BlockData state, BlockWriteBatch batch) {
+        BlockState blockState = block.getState();
+        blockState.setBlockData(state);
+        batch.restore(blockState);
+    }
+}
@@ -19,6 +19,7 @@ import io.github.spleefx.SpleefX;
 import io.github.spleefx.arena.ArenaPlayer;
 import io.github.spleefx.arena.api.BaseArenaEngine;
 import io.github.spleefx.arena.api.GameTask;
+import io.github.spleefx.compatibility.BlockWriteBatch;
 import io.github.spleefx.compatibility.CompatibilityHandler;
 import io.github.spleefx.compatibility.material.MaterialCompatibility;
 import io.github.spleefx.util.Percentage;
@@ -119,7 +120,8 @@ public class SpleefEngine extends BaseArenaEngine<SpleefArena> {
                         continue; // Player is in a different location
                     Block b = pickBlock(getLowestBlock(player.getLocation()).getLocation(), PluginSettings.ARENA_MELTING_RADIUS.get());
                     if (b == null) continue; // No meltable block found
-                    b.setType(Material.AIR);
+                    engine.getBlockJournal().record(b);
+                    BlockWriteBatch.NEXT_TICK.setType(b, Material.AIR);
                     if (EXTENSION.getSnowballSettings().removeSnowballsGraduallyOnMelting()) {
                         Percentage p = EXTENSION.getSnowballSettings().getRemovalChance();
                         if (p.isApplicable())
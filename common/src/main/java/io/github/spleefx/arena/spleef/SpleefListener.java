@@ -16,6 +16,7 @@
 package io.github.spleefx.arena.spleef;
 
 import io.github.spleefx.arena.ArenaPlayer;
+import io.github.spleefx.compatibility.BlockWriteBatch;
 import io.github.spleefx.compatibility.CompatibilityHandler;
 import io.github.spleefx.extension.standard.spleef.SpleefExtension;
 import org.bukkit.Material;
@@ -49,7 +50,8 @@ public class SpleefListener implements Listener {
         Block hitBlock = CompatibilityHandler.getHitBlock(player.getCurrentArena(), event);
         if (hitBlock == null) return;
         if (SpleefArena.EXTENSION.getSnowballSettings().getThrownSnowballsRemoveHitBlocks().contains(hitBlock.getType())) {
-            hitBlock.setType(Material.AIR);
+            player.getCurrentArena().getEngine().getBlockJournal().record(hitBlock);
+            BlockWriteBatch.NEXT_TICK.setType(hitBlock, Material.AIR);
         }
     }
 }
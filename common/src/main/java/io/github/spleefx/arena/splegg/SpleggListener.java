@@ -20,7 +20,9 @@ import io.github.spleefx.arena.ArenaPlayer;
 import io.github.spleefx.arena.ArenaPlayer.ArenaPlayerState;
 import io.github.spleefx.arena.ArenaStage;
 import io.github.spleefx.arena.ModeType;
+import io.github.spleefx.arena.api.BlockJournal;
 import io.github.spleefx.arena.api.GameArena;
+import io.github.spleefx.compatibility.BlockWriteBatch;
 import io.github.spleefx.compatibility.CompatibilityHandler;
 import io.github.spleefx.data.GameStats;
 import io.github.spleefx.data.PlayerStatistic;
@@ -100,14 +102,16 @@ public class SpleggListener implements Listener {
             Location loc = hitBlock.getLocation();
             if (arena.getEngine().getArenaStage() == ArenaStage.ACTIVE) {
                 ExplosionSettings explosionSettings = EXTENSION.getExplodeTNTWhenHit();
+                BlockJournal journal = arena.getEngine().getBlockJournal();
+                journal.record(hitBlock);
                 if (hitBlock.getType() == Material.TNT && explosionSettings != null && explosionSettings.isEnabled()) {
                     hitBlock.setType(Material.AIR);
-                    getProtocol().createExplosion(loc, explosionSettings);
+                    journal.recordExplosion(() -> getProtocol().createExplosion(loc, explosionSettings));
                 } else
-                    hitBlock.setType(Material.AIR);
+                    BlockWriteBatch.NEXT_TICK.setType(hitBlock, Material.AIR);
             } else
                 event.getEntity().remove();
-            SpleefX.getPlugin().getDataProvider().add(PlayerStatistic.BLOCKS_MINED, ((Player) event.getEntity().getShooter()), EXTENSION, 1);
+            SpleefX.getPlugin().getStatAccumulator().add(PlayerStatistic.BLOCKS_MINED, ((Player) event.getEntity().getShooter()), EXTENSION, 1);
         }
     }
 
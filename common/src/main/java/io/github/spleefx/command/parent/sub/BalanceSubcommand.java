@@ -53,14 +53,17 @@ public class BalanceSubcommand extends PluginSubcommand {
         if (!(sender instanceof Player)) throw new CommandException("&cYou must be a player to use this command!");
         switch (args.length) {
             case 0:
-                Chat.plugin(sender, "&eYour money: &a$" + SpleefX.getPlugin().getDataProvider().getStatistics(((Player) sender)).getCoinsFormatted(((Player) sender)));
+                SpleefX.getPlugin().getDataProvider().getStatisticsAsync((Player) sender)
+                        .thenAccept(stats -> Chat.plugin(sender, "&eYour money: &a$" + stats.getCoinsFormatted((Player) sender)));
                 break;
             case 1:
                 if (sender.hasPermission(BalanceSubcommand.OTHERS)) {
                     OfflinePlayer p = Bukkit.getOfflinePlayer(args[0]);
-                    Chat.plugin(sender, "&e" + p.getName() + "&a's money: &e$" + SpleefX.getPlugin().getDataProvider().getStatistics(p).getCoinsFormatted(((Player) sender)));
+                    SpleefX.getPlugin().getDataProvider().getStatisticsAsync(p)
+                            .thenAccept(stats -> Chat.plugin(sender, "&e" + p.getName() + "&a's money: &e$" + stats.getCoinsFormatted(p)));
                 } else {
-                    Chat.plugin(sender, "&eYour money: &a$" + SpleefX.getPlugin().getDataProvider().getStatistics(((Player) sender)).getCoinsFormatted(((Player) sender)));
+                    SpleefX.getPlugin().getDataProvider().getStatisticsAsync((Player) sender)
+                            .thenAccept(stats -> Chat.plugin(sender, "&eYour money: &a$" + stats.getCoinsFormatted((Player) sender)));
                 }
                 break;
         }
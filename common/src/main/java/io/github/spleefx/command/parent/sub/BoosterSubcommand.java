@@ -63,7 +63,8 @@ public class BoosterSubcommand extends PluginSubcommand {
                 return false;
             }
             Player p = (Player) sender;
-            new BoosterMenu(new ArrayList<>(SpleefX.getPlugin().getDataProvider().getStatistics(p).getBoosters().values())).display(p);
+            SpleefX.getPlugin().getDataProvider().getStatisticsAsync(p)
+                    .thenAccept(stats -> new BoosterMenu(new ArrayList<>(stats.getBoosters().values())).display(p));
             return true;
         }
         if (args.length < 3) {
@@ -78,16 +78,17 @@ public class CoinsSubcommand extends PluginSubcommand {
             case 1:
                 if (sender.hasPermission(BalanceSubcommand.OTHERS)) {
                     OfflinePlayer p = Bukkit.getOfflinePlayer(args[0]);
-                    Chat.plugin(sender, "&e" + p.getName() + "&a's money: &e$" + SpleefX.getPlugin().getDataProvider().getStatistics(p).getCoinsFormatted(p));
+                    SpleefX.getPlugin().getDataProvider().getStatisticsAsync(p)
+                            .thenAccept(stats -> Chat.plugin(sender, "&e" + p.getName() + "&a's money: &e$" + stats.getCoinsFormatted(p)));
                 } else {
                     if (!(sender instanceof Player))
                         throw new CommandException("&cYou must be a player to use this command!");
-                    Chat.plugin(sender, "&eYour money: &a$" + SpleefX.getPlugin().getDataProvider().getStatistics(((Player) sender)).getCoinsFormatted(((Player) sender)));
+                    SpleefX.getPlugin().getDataProvider().getStatisticsAsync((Player) sender)
+                            .thenAccept(stats -> Chat.plugin(sender, "&eYour money: &a$" + stats.getCoinsFormatted((Player) sender)));
                 }
                 break;
             case 2:
                 if (args[0].equalsIgnoreCase("reset")) {
-                    SpleefX.getPlugin().getDataProvider().getStatistics(target).onCoins(v -> 0);
                     run(sender, target, v -> 0, "&e%p%&a's coins have been set to &e0&a.");
                 } else {
                     Chat.plugin(sender, "&cInvalid command usage. Try &e" + getUsage(command) + "&c.");
@@ -125,8 +126,10 @@ public class CoinsSubcommand extends PluginSubcommand {
     }
 
     private void run(CommandSender sender, OfflinePlayer player, IntFunction<Integer> task, String feedback) {
-        int i = SpleefX.getPlugin().getDataProvider().getStatistics(player).onCoins(task);
-        Chat.plugin(sender, feedback.replace("%p%", player.getName()).replace("%v%", Integer.toString(i)));
+        SpleefX.getPlugin().getDataProvider().getStatisticsAsync(player).thenAccept(stats -> {
+            int i = stats.onCoins(task);
+            Chat.plugin(sender, feedback.replace("%p%", player.getName()).replace("%v%", Integer.toString(i)));
+        });
     }
 
     /**
@@ -18,6 +18,7 @@ package io.github.spleefx.command.sub.base;
 import io.github.spleefx.SpleefX;
 import io.github.spleefx.arena.ArenaStage;
 import io.github.spleefx.arena.ModeType;
+import io.github.spleefx.arena.RegenerationQueue;
 import io.github.spleefx.arena.api.ArenaData;
 import io.github.spleefx.arena.api.ArenaType;
 import io.github.spleefx.arena.api.FFAManager;
@@ -63,12 +64,13 @@ public class ArenaSubcommand<T extends GameArena> extends PluginSubcommand {
                     "&earena &cfinishingloc &a<arena key> &7- &dSet the arena's finishing location, where players are teleported when the game is over.",
                     "&earena &cremovefinishingloc &a<arena key> &7- &dRemove the arena's finishing location",
                     "&earena &cremovelobby &a<arena key> &7- &dRemove the arena lobby",
-                    "&earena &cregenerate &a<arena key> &7- &dRegenerate the arena"
+                    "&earena &cregenerate &a<arena key> &7- &dRegenerate the arena",
+                    "&earena &cqueue &7- &dShow the regeneration queue and the last regeneration time of each arena"
             );
 
     private static final List<String> TEAMS = Arrays.stream(TeamColor.values()).filter(TeamColor::isUsable).map(c -> c.name().toLowerCase()).collect(Collectors.toList());
 
-    public static final List<String> ARGS_1 = Arrays.asList("create", "finishingloc", "lobby", "regenerate", "remove", "removefinishingloc", "removelobby", "settings", "spawnpoint");
+    public static final List<String> ARGS_1 = Arrays.asList("create", "finishingloc", "lobby", "queue", "regenerate", "remove", "removefinishingloc", "removelobby", "settings", "spawnpoint");
 
     public static final List<String> TYPES = Arrays.asList("ffa", "teams");
 
@@ -152,8 +154,13 @@ public class ArenaSubcommand<T extends GameArena> extends PluginSubcommand {
         GameExtension ex = ExtensionsManager.getFromCommand(command.getName());
         switch (args.length) {
             case 0:
-            case 1:
                 return false;
+            case 1:
+                if (!args[0].equalsIgnoreCase("queue")) return false;
+                RegenerationQueue queue = SpleefX.getPlugin().getArenaManager().getRegenerationQueue();
+                Chat.plugin(sender, "&eRegenerations: &a" + queue.getRunning() + " &erunning, &a" + queue.getQueueDepth() + " &ewaiting for a slot.");
+                new TreeMap<>(queue.getLatencies()).forEach((key, latency) -> Chat.plugin(sender, "&e- &a" + key + "&e: last regenerated in &a" + latency + "ms"));
+                return true;
             case 2:
                 switch (args[0]) {
                     case "remove":
@@ -224,8 +231,13 @@ public class ArenaSubcommand<T extends GameArena> extends PluginSubcommand {
                             return true;
                         }
                         Chat.prefix(sender, arena, "&eRegenerating...");
-                        arena.getEngine().regenerate(ArenaStage.WAITING);
-                        Chat.prefix(sender, arena, "&aArena &e" + arena.getKey() + " &ahas been regenerated.");
+                        arena.getEngine().getBlockJournal().invalidate();
+                        arena.getEngine().regenerate(ArenaStage.WAITING).whenComplete((v, error) -> {
+                            if (error == null)
+                                Chat.prefix(sender, arena, "&aArena &e" + arena.getKey() + " &ahas been regenerated &7(" + SpleefX.getPlugin().getArenaManager().getRegenerationQueue().getLatency(arena.getKey()) + "ms)&a.");
+                            else
+                                Chat.prefix(sender, arena, "&cFailed to regenerate arena &e" + arena.getKey() + "&c: " + error.getMessage());
+                        });
                     }
                     return true;
                     case "settings":
@@ -30,7 +30,6 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.metadata.MetadataValue;
 import org.bukkit.permissions.Permission;
@@ -102,9 +101,7 @@ public class StatsCommand extends PluginSubcommand {
                                 Chat.sendUnprefixed(sender, Message.UNKNOWN_PLAYER.create(e).replace("{player}", args[0]));
                                 return true;
                             }
-                            Inventory inventory = SpleefX.getPlugin().getDataProvider().createGUI(player, e);
-                            s.openInventory(inventory);
-                            Metas.set(s, "spleefx.viewing_stats", VIEWING);
+                            view(s, player, e);
                         } else {
                             Message.NO_PERMISSION_STATISTICS.reply(sender, e);
                         }
@@ -122,9 +119,7 @@ public class StatsCommand extends PluginSubcommand {
                                 Chat.prefix(sender, e, Message.UNKNOWN_PLAYER.create().replace("{player}", args[0]));
                                 return true;
                             }
-                            Inventory inventory = SpleefX.getPlugin().getDataProvider().createGUI(player, null);
-                            s.openInventory(inventory);
-                            Metas.set(s, "spleefx.viewing_stats", VIEWING);
+                            view(s, player, null);
                         } else {
                             Chat.prefix(sender, e, Message.NO_PERMISSION_STATISTICS.create());
                         }
@@ -151,9 +146,15 @@ public class StatsCommand extends PluginSubcommand {
     }
 
     private static void viewSelf(Player player, GameExtension mode) {
-        Inventory inventory = SpleefX.getPlugin().getDataProvider().createGUI(player, mode);
-        player.openInventory(inventory);
-        Metas.set(player, "spleefx.viewing_stats", VIEWING);
+        view(player, player, mode);
+    }
+
+    private static void view(Player viewer, Player player, GameExtension mode) {
+        SpleefX.getPlugin().getDataProvider().createGUIAsync(player, mode).thenAccept(inventory -> {
+            if (!viewer.isOnline()) return;
+            viewer.openInventory(inventory);
+            Metas.set(viewer, "spleefx.viewing_stats", VIEWING);
+        });
     }
 
     public static class MenuListener implements Listener {
@@ -0,0 +1,111 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.compatibility;
+
+import io.github.spleefx.SpleefX;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A batch of blocks written through the {@link BlockWriter}. Lighting of every touched chunk is
+ * recalculated once when the batch is flushed, and the chunk is either resent as a whole or has
+ * its changed blocks sent, depending on how many blocks were changed in it.
+ * <p>
+ * This class is not thread-safe, and should only be used from the main thread.
+ */
+public class BlockWriteBatch {
+
+    /**
+     * A batch which is flushed automatically at the next tick. Used for blocks changed during games.
+     */
+    public static final BlockWriteBatch NEXT_TICK = new BlockWriteBatch(true);
+
+    /**
+     * The amount of changed blocks in a chunk, after which the chunk is resent as a whole
+     */
+    private static final int RESEND_THRESHOLD = 64;
+
+    /**
+     * All blocks written directly, mapped by their chunks
+     */
+    private final Map<Chunk, List<Block>> changes = new LinkedHashMap<>();
+
+    /**
+     * Whether should the batch flush itself at the next tick
+     */
+    private final boolean autoFlush;
+
+    /**
+     * Creates a new batch which must be flushed manually
+     */
+    public BlockWriteBatch() {
+        this(false);
+    }
+
+    private BlockWriteBatch(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    /**
+     * Sets the type of the specified block
+     *
+     * @param block Block to change
+     * @param type  New type of the block
+     */
+    public void setType(Block block, Material type) {
+        if (CompatibilityHandler.getBlockWriter().setType(block, type))
+            track(block);
+    }
+
+    /**
+     * Restores the block of the specified state
+     *
+     * @param state State to restore
+     */
+    public void restore(BlockState state) {
+        if (CompatibilityHandler.getBlockWriter().restore(state))
+            track(state.getBlock());
+    }
+
+    private void track(Block block) {
+        if (autoFlush && changes.isEmpty() && SpleefX.getPlugin().isEnabled()) // otherwise, the batch is flushed manually
+            Bukkit.getScheduler().runTask(SpleefX.getPlugin(), this::flush);
+        changes.computeIfAbsent(block.getChunk(), c -> new ArrayList<>()).add(block);
+    }
+
+    /**
+     * Recalculates the lighting of all touched chunks, and sends their changes to players
+     */
+    public void flush() {
+        BlockWriter writer = CompatibilityHandler.getBlockWriter();
+        changes.forEach((chunk, blocks) -> {
+            writer.relight(chunk, blocks);
+            if (blocks.size() >= RESEND_THRESHOLD)
+                chunk.getWorld().refreshChunk(chunk.getX(), chunk.getZ());
+            else
+                blocks.forEach(writer::sendChange);
+        });
+        changes.clear();
+    }
+}
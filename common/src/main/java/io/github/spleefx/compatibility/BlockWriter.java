@@ -0,0 +1,73 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.compatibility;
+
+import io.github.spleefx.compatibility.reflect.BukkitBlockWriter;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+
+import java.util.Collection;
+
+/**
+ * An interface to abstract writing blocks directly into chunk sections, without triggering
+ * physics, lighting or neighbour updates.
+ * <p>
+ * Blocks written directly are not visible to players until their changes are sent. Use
+ * {@link BlockWriteBatch} to write blocks and send their changes once per chunk.
+ */
+public interface BlockWriter {
+
+    /**
+     * The fallback block writer, which uses the Bukkit API
+     */
+    BlockWriter FALLBACK = new BukkitBlockWriter();
+
+    /**
+     * Sets the type of the specified block
+     *
+     * @param block Block to change
+     * @param type  New type of the block
+     * @return True if the block was written directly, false if it was changed through the Bukkit API.
+     */
+    boolean setType(Block block, Material type);
+
+    /**
+     * Restores the block of the specified state
+     *
+     * @param state State to restore
+     * @return True if the block was written directly, false if it was changed through the Bukkit API.
+     */
+    boolean restore(BlockState state);
+
+    /**
+     * Queues the change of the specified block to be sent to players, along with all other
+     * changes in its chunk during the current tick.
+     *
+     * @param block Block to send
+     */
+    void sendChange(Block block);
+
+    /**
+     * Recalculates the lighting of the specified chunk after its blocks have been written directly
+     *
+     * @param chunk   Chunk to recalculate
+     * @param changed All blocks written directly in the chunk
+     */
+    void relight(Chunk chunk, Collection<Block> changed);
+
+}
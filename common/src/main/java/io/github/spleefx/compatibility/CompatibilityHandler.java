@@ -21,6 +21,7 @@ import io.github.spleefx.arena.splegg.SpleggArena;
 import io.github.spleefx.compatibility.material.MaterialCompatibility;
 import io.github.spleefx.compatibility.worldedit.WGExtraFlagsHook;
 import io.github.spleefx.compatibility.worldedit.WorldGuardHook;
+import io.github.spleefx.scoreboard.sidebar.SidebarRenderer;
 import io.github.spleefx.util.plugin.Protocol;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -63,6 +64,16 @@ public class CompatibilityHandler {
      */
     private static ProtocolNMS protocolNMS;
 
+    /**
+     * The block writer
+     */
+    private static BlockWriter blockWriter = BlockWriter.FALLBACK;
+
+    /**
+     * The sidebar renderer
+     */
+    private static SidebarRenderer sidebarRenderer = SidebarRenderer.FALLBACK;
+
     /**
      * WorldGuard hook handler
      */
@@ -84,6 +95,8 @@ public class CompatibilityHandler {
         }*/
 
         protocolNMS = create(Protocol.VERSION + ".ProtocolNMSImpl", () -> ProtocolNMS.FALLBACK);
+        blockWriter = create(Protocol.VERSION + ".BlockWriterImpl", () -> BlockWriter.FALLBACK);
+        sidebarRenderer = create(Protocol.VERSION + ".SidebarRendererImpl", () -> SidebarRenderer.FALLBACK);
         if (Bukkit.getPluginManager().isPluginEnabled("WorldGuardExtraFlags"))
             worldGuardHook = new WGExtraFlagsHook();
 
@@ -116,6 +129,24 @@ public class CompatibilityHandler {
         return protocolNMS;
     }
 
+    /**
+     * Returns the block writer
+     *
+     * @return The block writer
+     */
+    public static BlockWriter getBlockWriter() {
+        return blockWriter;
+    }
+
+    /**
+     * Returns the sidebar renderer
+     *
+     * @return The sidebar renderer
+     */
+    public static SidebarRenderer getSidebarRenderer() {
+        return sidebarRenderer;
+    }
+
     /**
      * Creates a new instance of the specified class, or returns the fallback if no
      * instance can be created.
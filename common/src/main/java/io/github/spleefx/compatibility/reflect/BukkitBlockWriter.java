@@ -0,0 +1,51 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.compatibility.reflect;
+
+import io.github.spleefx.compatibility.BlockWriter;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+
+import java.util.Collection;
+
+/**
+ * A block writer used on versions that have no direct implementation. All blocks are changed
+ * through the Bukkit API, with physics disabled.
+ */
+public class BukkitBlockWriter implements BlockWriter {
+
+    @Override
+    public boolean setType(Block block, Material type) {
+        block.setType(type, false);
+        return false;
+    }
+
+    @Override
+    public boolean restore(BlockState state) {
+        state.update(true, false);
+        return false;
+    }
+
+    @Override
+    public void sendChange(Block block) {
+    }
+
+    @Override
+    public void relight(Chunk chunk, Collection<Block> changed) {
+    }
+}
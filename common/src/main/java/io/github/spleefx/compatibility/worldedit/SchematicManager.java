@@ -16,9 +16,13 @@
 package io.github.spleefx.compatibility.worldedit;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.sk89q.worldedit.bukkit.WorldEditPlugin;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.session.ClipboardHolder;
 import io.github.spleefx.compatibility.CompatibilityHandler;
+import io.github.spleefx.util.plugin.PluginSettings;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Server;
@@ -46,6 +50,15 @@ public abstract class SchematicManager {
      */
     private static final SchematicManager FACTORY;
 
+    /**
+     * A cache of all parsed schematics, weighed by the amount of blocks they contain. This allows
+     * regenerating an arena without reading and decoding its schematic from the disk every time.
+     */
+    private static final Cache<File, Clipboard> CLIPBOARDS = CacheBuilder.newBuilder()
+            .maximumWeight(((Number) PluginSettings.ARENA_SCHEMATIC_CACHE_SIZE.get()).longValue())
+            .weigher((File file, Clipboard clipboard) -> FACTORY.getVolume(clipboard))
+            .build();
+
     /**
      * Represents the schematic file
      */
@@ -81,7 +94,8 @@ public abstract class SchematicManager {
     }
 
     /**
-     * Writes the specified clipboard data to the schematic
+     * Writes the specified clipboard data to the schematic. Implementations must invalidate
+     * the cached clipboard of this schematic once the file has been rewritten.
      *
      * @param clipboard Clipboard to write
      */
@@ -94,6 +108,92 @@ public abstract class SchematicManager {
      */
     public abstract CompletableFuture<Void> paste(Location location) throws NoSchematicException;
 
+    /**
+     * Pastes the whole schematic in the current tick
+     *
+     * @param location Location to paste in
+     */
+    public abstract CompletableFuture<Void> pasteAll(Location location) throws NoSchematicException;
+
+    /**
+     * Reads and parses the schematic file as a clipboard
+     *
+     * @return The clipboard of the schematic, or null if it could not be read
+     */
+    protected abstract Clipboard load();
+
+    /**
+     * Returns the amount of blocks contained in the specified clipboard
+     *
+     * @param clipboard Clipboard to measure
+     * @return The clipboard volume
+     */
+    protected abstract int getVolume(Clipboard clipboard);
+
+    /**
+     * Returns the region that the specified clipboard occupies when pasted at the specified location
+     *
+     * @param clipboard Clipboard to measure
+     * @param location  Location the clipboard is pasted in
+     * @return The region bounds, as {minX, minY, minZ, maxX, maxY, maxZ}
+     */
+    protected abstract int[] getRegion(Clipboard clipboard, Location location);
+
+    /**
+     * Returns the region that the schematic occupies when pasted at the specified location
+     *
+     * @param location Location the schematic is pasted in
+     * @return The region bounds, as {minX, minY, minZ, maxX, maxY, maxZ}, or null if the schematic could not be read
+     */
+    public int[] getRegion(Location location) {
+        Clipboard clipboard = getClipboard();
+        return clipboard == null ? null : getRegion(clipboard, location);
+    }
+
+    /**
+     * Returns the region that the specified clipboard occupies when pasted at the specified location
+     *
+     * @param clipboard Clipboard to measure
+     * @param location  Location the clipboard is pasted in
+     * @return The region bounds, as {minX, minY, minZ, maxX, maxY, maxZ}
+     */
+    public static int[] getRegion(ClipboardHolder clipboard, Location location) {
+        return FACTORY.getRegion(clipboard.getClipboard(), location);
+    }
+
+    /**
+     * Returns the clipboard of the schematic, reading it from the disk only if it is not
+     * already cached.
+     *
+     * @return The clipboard of the schematic, or null if it could not be read
+     */
+    protected Clipboard getClipboard() {
+        Clipboard clipboard = CLIPBOARDS.getIfPresent(schematic);
+        if (clipboard == null) {
+            clipboard = load();
+            if (clipboard != null)
+                CLIPBOARDS.put(schematic, clipboard);
+        }
+        return clipboard;
+    }
+
+    /**
+     * Invalidates the cached clipboard of this schematic
+     */
+    public void invalidate() {
+        invalidate(schematic);
+    }
+
+    /**
+     * Invalidates the cached clipboard of the specified schematic file. This must be called
+     * whenever the file is rewritten or deleted.
+     *
+     * @param schematic Schematic file to invalidate
+     */
+    public static void invalidate(File schematic) {
+        CLIPBOARDS.invalidate(schematic);
+    }
+
     /**
      * Creates a new instance of the processor
      *
@@ -0,0 +1,140 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.compatibility.worldedit;
+
+import io.github.spleefx.util.plugin.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A paste which is split into slices of chunk sections, and applied over multiple ticks so
+ * that no single tick pastes more blocks than the configured budget.
+ */
+public class SlicedPaste implements Runnable {
+
+    /**
+     * All slices that are yet to be pasted, in order
+     */
+    private final Queue<Slice> slices = new ArrayDeque<>();
+
+    /**
+     * The future completed once the last slice is pasted
+     */
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    /**
+     * The maximum amount of blocks pasted in a single tick
+     */
+    private final int budget = ((Number) PluginSettings.ARENA_SLICED_REGENERATION_BLOCKS_PER_TICK.get()).intValue();
+
+    /**
+     * The task that pastes the slices
+     */
+    private BukkitTask task;
+
+    /**
+     * Starts pasting the slices. If the plugin is disabled (for example, when the server is shutting
+     * down), all slices are pasted in the current tick, as the scheduler would never run them.
+     *
+     * @param plugin Plugin to schedule with
+     * @return A future completed once the last slice is pasted
+     */
+    public CompletableFuture<Void> start(Plugin plugin) {
+        if (slices.isEmpty())
+            future.complete(null);
+        else if (!plugin.isEnabled())
+            while (!future.isDone()) run();
+        else
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this, 0, 1);
+        return future;
+    }
+
+    @Override
+    public void run() {
+        int pasted = 0;
+        while (!slices.isEmpty() && (pasted == 0 || pasted + slices.peek().volume <= budget)) {
+            Slice slice = slices.poll();
+            try {
+                slice.paste.call();
+            } catch (Exception e) {
+                if (task != null) task.cancel();
+                future.completeExceptionally(e);
+                return;
+            }
+            pasted += slice.volume;
+        }
+        if (slices.isEmpty()) {
+            if (task != null) task.cancel();
+            future.complete(null);
+        }
+    }
+
+    /**
+     * Splits the specified region into the chunk sections it will be pasted in, and adds a slice
+     * for each section. Sections are added chunk by chunk, from the bottom to the top of each chunk.
+     *
+     * @param min    The minimum point of the source region, as {x, y, z}
+     * @param max    The maximum point of the source region, as {x, y, z}
+     * @param offset The offset from the source region to the destination, as {x, y, z}
+     * @param paste  The task that pastes the source bounds of a section
+     */
+    public void addSections(int[] min, int[] max, int[] offset, SectionConsumer paste) {
+        int minChunkX = (min[0] + offset[0]) >> 4, maxChunkX = (max[0] + offset[0]) >> 4;
+        int minChunkY = (min[1] + offset[1]) >> 4, maxChunkY = (max[1] + offset[1]) >> 4;
+        int minChunkZ = (min[2] + offset[2]) >> 4, maxChunkZ = (max[2] + offset[2]) >> 4;
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                for (int cy = minChunkY; cy <= maxChunkY; cy++) {
+                    int minX = Math.max(min[0], (cx << 4) - offset[0]), maxX = Math.min(max[0], (cx << 4) + 15 - offset[0]);
+                    int minY = Math.max(min[1], (cy << 4) - offset[1]), maxY = Math.min(max[1], (cy << 4) + 15 - offset[1]);
+                    int minZ = Math.max(min[2], (cz << 4) - offset[2]), maxZ = Math.min(max[2], (cz << 4) + 15 - offset[2]);
+                    int volume = (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+                    slices.add(new Slice(volume, () -> {
+                        paste.accept(minX, minY, minZ, maxX, maxY, maxZ);
+                        return null;
+                    }));
+                }
+            }
+        }
+    }
+
+    /**
+     * Pastes the source bounds of a section
+     */
+    @FunctionalInterface
+    public interface SectionConsumer {
+
+        void accept(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) throws Exception;
+
+    }
+
+    private static class Slice {
+
+        private final int volume;
+        private final Callable<?> paste;
+
+        private Slice(int volume, Callable<?> paste) {
+            this.volume = volume;
+            this.paste = paste;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data;
+
+import io.github.spleefx.SpleefX;
+import io.github.spleefx.data.DataProvider.PlayerStoringStrategy;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent.Result;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Starts loading the statistics of players while they are logging in, so that they are already
+ * loaded once the players join, and releases them once the players leave.
+ */
+public class DataPrefetcher implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != Result.ALLOWED) return;
+        OfflinePlayer player = Bukkit.getOfflinePlayer(event.getUniqueId());
+        if (DataProvider.getStoringStrategy() == PlayerStoringStrategy.NAME && player.getName() == null)
+            return; // first join, nothing to load
+        SpleefX.getPlugin().getDataProvider().getStatisticsAsync(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        Bukkit.getScheduler().runTask(SpleefX.getPlugin(), () -> {
+            if (!player.isOnline())
+                SpleefX.getPlugin().getDataProvider().release(player);
+        });
+    }
+}
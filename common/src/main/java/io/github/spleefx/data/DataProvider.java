@@ -17,15 +17,21 @@ package io.github.spleefx.data;
 
 import io.github.spleefx.SpleefX;
 import io.github.spleefx.data.provider.FlatFileProvider;
+import io.github.spleefx.data.provider.mysql.MySQLProvider;
+import io.github.spleefx.data.provider.sqlite.SQLiteProvider;
 import io.github.spleefx.economy.booster.BoosterInstance;
 import io.github.spleefx.extension.GameExtension;
+import io.github.spleefx.util.game.BukkitExecutors;
 import io.github.spleefx.util.io.FileManager;
 import io.github.spleefx.util.plugin.PluginSettings;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.inventory.Inventory;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static java.util.UUID.fromString;
 
@@ -88,6 +94,7 @@ public interface DataProvider {
     default void addBooster(OfflinePlayer player, BoosterInstance booster) {
         GameStats stats = getStatistics(player);
         stats.getBoosters().put(stats.getBoosters().size() + 1, booster);
+        stats.markDirty();
     }
 
     /**
@@ -113,6 +120,36 @@ public interface DataProvider {
      */
     List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension);
 
+    /**
+     * Returns the top players in the specified statistic, from the highest to the lowest. The
+     * returned list is immutable, and should be preferred over {@link #getTopPlayers(PlayerStatistic, GameExtension)}
+     * when only the first few players are needed.
+     *
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @param limit     The maximum amount of players to return
+     * @return The top players
+     */
+    default List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension, int limit) {
+        List<LeaderboardTopper> top = getTopPlayers(statistic, extension);
+        return Collections.unmodifiableList(top.size() > limit ? top.subList(0, limit) : top);
+    }
+
+    /**
+     * Returns the rank of the player in the specified statistic
+     *
+     * @param player    Player to get for
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @return The rank of the player starting from 1, or -1 if the player is not ranked
+     */
+    default int getRank(OfflinePlayer player, PlayerStatistic statistic, GameExtension extension) {
+        List<LeaderboardTopper> top = getTopPlayers(statistic, extension);
+        for (int i = 0; i < top.size(); i++)
+            if (top.get(i).getUUID().equals(player.getUniqueId())) return i + 1;
+        return -1;
+    }
+
     /**
      * Returns the statistics of the specified player
      *
@@ -121,6 +158,43 @@ public interface DataProvider {
      */
     GameStats getStatistics(OfflinePlayer player);
 
+    /**
+     * Returns the statistics of the specified player, reading them from the storage in the background
+     * if they are not loaded already. This may be invoked from any thread, and can be used to load the
+     * statistics of a player before they are needed.
+     * <p>
+     * The returned future is completed on the main thread, or is already completed if the statistics
+     * are loaded.
+     *
+     * @param player Player to retrieve from
+     * @return A future of the player's statistics
+     */
+    default CompletableFuture<GameStats> getStatisticsAsync(OfflinePlayer player) {
+        if (Bukkit.isPrimaryThread())
+            return CompletableFuture.completedFuture(getStatistics(player));
+        return CompletableFuture.supplyAsync(() -> getStatistics(player), BukkitExecutors.MAIN);
+    }
+
+    /**
+     * Called when the specified player leaves the server. Providers which keep statistics in memory
+     * may unload the statistics of the player from now on.
+     *
+     * @param player Player that left
+     */
+    default void release(OfflinePlayer player) {
+    }
+
+    /**
+     * Returns whether the statistics of the specified player must be kept in memory. This is the case for
+     * online players, and for players whose boosters are being consumed, as their statistics are read every second.
+     *
+     * @param player UUID of the player
+     * @return {@code true} if the statistics must not be unloaded
+     */
+    static boolean isPinned(UUID player) {
+        return Bukkit.getPlayer(player) != null || SpleefX.getPlugin().getBoosterConsumer().isConsuming(player);
+    }
+
     /**
      * Returns the storing strategy specified in the config
      *
@@ -130,6 +204,19 @@ public interface DataProvider {
         return PluginSettings.STATISTICS_STORE_PLAYERS_BY.get();
     }
 
+    /**
+     * Returns the maximum amount of offline players whose statistics are kept in memory, as specified
+     * in the config. A size of 0 is rejected, as statistics would be unloaded as soon as they are returned.
+     *
+     * @return The cache size, or -1 for no limit
+     */
+    static int getCacheSize() {
+        int size = ((Number) PluginSettings.STATISTICS_CACHE_SIZE.get()).intValue();
+        if (size != 0) return Math.max(-1, size);
+        SpleefX.logger().warning("PlayerGameStatistics.CacheSize cannot be 0. Using 1 instead.");
+        return 1;
+    }
+
     /**
      * Creates a GUI for the player's statistics
      *
@@ -142,6 +229,17 @@ public interface DataProvider {
         return StatisticsConfig.MENU.get().asInventory(of, s, mode);
     }
 
+    /**
+     * Creates a GUI for the player's statistics, once the statistics are loaded
+     *
+     * @param of   Player to get for
+     * @param mode The mode
+     * @return A future of the created inventory, completed on the main thread
+     */
+    default CompletableFuture<Inventory> createGUIAsync(OfflinePlayer of, GameExtension mode) {
+        return getStatisticsAsync(of).thenApply(s -> StatisticsConfig.MENU.get().asInventory(of, s, mode));
+    }
+
     /**
      * Represents the storage type
      */
@@ -160,7 +258,12 @@ public interface DataProvider {
         /**
          * A SQLite file
          */
-        SQLITE(getSQLProvider());
+        SQLITE(SQLiteProvider.class),
+
+        /**
+         * A MySQL (or MariaDB) database, which can be shared between servers
+         */
+        MYSQL(MySQLProvider.class);
 
         private Class<? extends DataProvider> providerClass;
 
@@ -188,20 +291,6 @@ public interface DataProvider {
             }
         }
 
-        /**
-         * Returns the SQL provider class, or the flat file provider if no SQL provider is found
-         *
-         * @return The appropriate class
-         */
-        @SuppressWarnings("unchecked")
-        private static Class<? extends DataProvider> getSQLProvider() {
-            try {
-                return (Class<? extends DataProvider>) Class.forName("io.github.spleefx.data.provider.sqlite.SQLiteProvider");
-            } catch (Throwable t) {
-                return FlatFileProvider.class;
-            }
-        }
-
     }
 
     /**
@@ -15,9 +15,13 @@
  */
 package io.github.spleefx.data;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import io.github.spleefx.SpleefX;
 import io.github.spleefx.economy.booster.BoosterInstance;
 import io.github.spleefx.extension.GameExtension;
@@ -26,14 +30,11 @@ import io.github.spleefx.perk.GamePerk.MapAdapter;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 
+import java.io.IOException;
 import java.text.NumberFormat;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.IntFunction;
-import java.util.stream.Collectors;
 
 import static io.github.spleefx.util.plugin.PluginSettings.ECO_USE_VAULT;
 
@@ -66,11 +67,12 @@ public class GameStats {
     private Map<Integer, BoosterInstance> boosters = new HashMap<>();
 
     /**
-     * Represents the global statistics
+     * Represents the global statistics, indexed by {@link PlayerStatistic#ordinal()}
      */
     @Expose
     @SerializedName("global")
-    private Map<PlayerStatistic, Integer> global;
+    @JsonAdapter(StatisticsAdapter.class)
+    private int[] global;
 
     /**
      * A map which stores outer objects, whether from this plugin or from other plugins
@@ -80,17 +82,23 @@ public class GameStats {
     private Map<Object, Object> customDataMap;
 
     /**
-     * Represents statistics for each mode
+     * Represents statistics for each mode, indexed by {@link PlayerStatistic#ordinal()}
      */
     @Expose
     @SerializedName("modes")
-    private Map<String, Map<PlayerStatistic, Integer>> gameStatistics;
+    @JsonAdapter(ModesAdapter.class)
+    private Map<String, int[]> gameStatistics;
+
+    /**
+     * Whether were the statistics modified since they were last saved
+     */
+    private transient volatile boolean dirty;
 
     /**
      * A simple instance for empty maps
      */
     public GameStats() {
-        global = new HashMap<>();
+        global = new int[PlayerStatistic.values.length];
         gameStatistics = new HashMap<>();
     }
 
@@ -103,8 +111,9 @@ public class GameStats {
      */
     public int get(PlayerStatistic type, GameExtension mode) {
         if (mode == null)
-            return global.computeIfAbsent(type, (e) -> 0);
-        return gameStatistics.computeIfAbsent(mode.getKey(), (v) -> new HashMap<>()).computeIfAbsent(type, (e) -> 0);
+            return global[type.ordinal()];
+        int[] statistics = gameStatistics.get(mode.getKey());
+        return statistics == null ? 0 : statistics[type.ordinal()];
     }
 
     /**
@@ -116,9 +125,10 @@ public class GameStats {
      * @return
      */
     public GameStats add(PlayerStatistic type, GameExtension mode, int addition) {
-        global.merge(type, addition, Integer::sum);
+        dirty = true;
+        global[type.ordinal()] += addition;
         if (mode != null)
-            gameStatistics.computeIfAbsent(mode.getKey(), (v) -> new HashMap<>()).merge(type, addition, Integer::sum);
+            gameStatistics.computeIfAbsent(mode.getKey(), (v) -> new int[PlayerStatistic.values.length])[type.ordinal()] += addition;
         return this;
     }
 
@@ -127,7 +137,10 @@ public class GameStats {
     }
 
     public List<BoosterInstance> getActiveBoosters() {
-        return boosters.values().stream().filter(BoosterInstance::isActive).collect(Collectors.toList());
+        List<BoosterInstance> active = new ArrayList<>(boosters.size());
+        for (BoosterInstance booster : boosters.values())
+            if (booster.isActive()) active.add(booster);
+        return active;
     }
 
     public Map<GamePerk, Integer> getPerks() {
@@ -152,6 +165,7 @@ public class GameStats {
      * @param task Task to run
      */
     public int onCoins(IntFunction<Integer> task) {
+        dirty = true;
         return coins = task.apply(coins);
     }
 
@@ -160,6 +174,7 @@ public class GameStats {
             SpleefX.getPlugin().getVaultHandler().add(player, amount);
             return;
         }
+        dirty = true;
         coins += amount;
     }
 
@@ -177,6 +192,7 @@ public class GameStats {
             SpleefX.getPlugin().getVaultHandler().withdraw(player, amount);
             return;
         }
+        dirty = true;
         coins -= amount;
     }
 
@@ -189,14 +205,132 @@ public class GameStats {
         return boosters;
     }
 
+    /**
+     * Replaces all the data of these statistics with the data of the specified statistics, so that
+     * existing references to this object see the new data. The modification state is left unchanged.
+     *
+     * @param other Statistics to take the data from. They must not be used afterwards.
+     */
+    public void copyFrom(GameStats other) {
+        coins = other.coins;
+        perks = other.perks;
+        boosters = other.boosters;
+        global = other.global;
+        customDataMap = other.customDataMap;
+        gameStatistics = other.gameStatistics;
+    }
+
+    /**
+     * Marks the statistics as modified. This must be called after modifying any field
+     * directly (such as {@link #coins}), or any of the returned maps (such as {@link #getPerks()}).
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Returns whether were the statistics modified since this method was last called, and
+     * resets the modification state.
+     *
+     * @return True if the statistics were modified
+     */
+    public boolean pollDirty() {
+        if (!dirty) return false;
+        dirty = false;
+        return true;
+    }
+
     @Override
     public String toString() {
         return "GameStats{" +
                 "coins=" + coins +
                 ", boosters=" + boosters +
-                ", global=" + global +
-                ", gameStatistics=" + gameStatistics +
+                ", global=" + Arrays.toString(global) +
+                ", gameStatistics=" + gameStatistics.keySet() +
                 '}';
     }
 
+    /**
+     * Reads a statistics object ({@code {"WINS": 1, ...}}) into an array indexed by {@link PlayerStatistic#ordinal()}
+     *
+     * @param in Reader to read from
+     * @return The statistics array
+     * @throws IOException If the JSON is malformed
+     */
+    private static int[] readStatistics(JsonReader in) throws IOException {
+        int[] statistics = new int[PlayerStatistic.values.length];
+        in.beginObject();
+        while (in.hasNext()) {
+            PlayerStatistic statistic = PlayerStatistic.from(in.nextName());
+            if (statistic == null)
+                in.skipValue();
+            else
+                statistics[statistic.ordinal()] = in.nextInt();
+        }
+        in.endObject();
+        return statistics;
+    }
+
+    private static void writeStatistics(JsonWriter out, int[] statistics) throws IOException {
+        out.beginObject();
+        for (PlayerStatistic statistic : PlayerStatistic.values)
+            out.name(statistic.name()).value(statistics[statistic.ordinal()]);
+        out.endObject();
+    }
+
+    /**
+     * Serializes statistic arrays in the same format as the previous {@code Map<PlayerStatistic, Integer>}
+     */
+    public static class StatisticsAdapter extends TypeAdapter<int[]> {
+
+        @Override
+        public void write(JsonWriter out, int[] value) throws IOException {
+            if (value == null)
+                out.nullValue();
+            else
+                writeStatistics(out, value);
+        }
+
+        @Override
+        public int[] read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return new int[PlayerStatistic.values.length];
+            }
+            return readStatistics(in);
+        }
+    }
+
+    /**
+     * Serializes per-mode statistic arrays in the same format as the previous {@code Map<String, Map<PlayerStatistic, Integer>>}
+     */
+    public static class ModesAdapter extends TypeAdapter<Map<String, int[]>> {
+
+        @Override
+        public void write(JsonWriter out, Map<String, int[]> value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            for (Map.Entry<String, int[]> mode : value.entrySet())
+                writeStatistics(out.name(mode.getKey()), mode.getValue());
+            out.endObject();
+        }
+
+        @Override
+        public Map<String, int[]> read(JsonReader in) throws IOException {
+            Map<String, int[]> modes = new HashMap<>();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return modes;
+            }
+            in.beginObject();
+            while (in.hasNext())
+                modes.put(in.nextName(), readStatistics(in));
+            in.endObject();
+            return modes;
+        }
+    }
+
 }
@@ -42,6 +42,10 @@ public class LeaderboardTopper {
                 : CompletableFuture.completedFuture(playerOff);
     }
 
+    public UUID getUUID() {
+        return player;
+    }
+
     public int getCount() {
         return count;
     }
@@ -0,0 +1,120 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data;
+
+import io.github.spleefx.SpleefX;
+import io.github.spleefx.extension.GameExtension;
+import org.bukkit.OfflinePlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accumulates statistic increments in memory, and folds them into the {@link DataProvider} in batches.
+ * This keeps frequent increments (such as mined blocks) away from the storage layer.
+ * <p>
+ * Increments can be added from any thread. Accumulated counters are flushed every tick and whenever
+ * a game ends, and must be flushed from the main thread.
+ */
+public class StatAccumulator implements Runnable {
+
+    /**
+     * The pending counters of each player and extension
+     */
+    private final ConcurrentHashMap<Key, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the specified amount to the statistic
+     *
+     * @param stat      Statistic to add to
+     * @param player    Player to add for
+     * @param extension Extension to add for. Can be null.
+     * @param increment Value to add
+     */
+    public void add(PlayerStatistic stat, OfflinePlayer player, GameExtension extension, int increment) {
+        counters.compute(new Key(player.getUniqueId(), extension), (key, pending) -> {
+            if (pending == null) pending = new Counters(player, extension);
+            pending.values[stat.ordinal()] += increment;
+            return pending;
+        });
+    }
+
+    /**
+     * Folds all accumulated counters into the data provider
+     */
+    public void flush() {
+        if (counters.isEmpty()) return;
+        List<Counters> drained = new ArrayList<>(counters.size());
+        for (Key key : counters.keySet())
+            counters.computeIfPresent(key, (k, pending) -> {
+                drained.add(pending);
+                return null;
+            });
+        DataProvider provider = SpleefX.getPlugin().getDataProvider();
+        for (Counters pending : drained) {
+            for (PlayerStatistic stat : PlayerStatistic.values) {
+                int value = pending.values[stat.ordinal()];
+                if (value != 0)
+                    provider.add(stat, pending.player, pending.extension, value);
+            }
+            SpleefX.getPlugin().getScoreboardTicker().markDirty(pending.player.getUniqueId());
+        }
+    }
+
+    @Override
+    public void run() {
+        flush();
+    }
+
+    private static class Key {
+
+        private final UUID player;
+        private final GameExtension extension;
+
+        private Key(UUID player, GameExtension extension) {
+            this.player = player;
+            this.extension = extension;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return player.equals(key.player) && Objects.equals(extension, key.extension);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(player, extension);
+        }
+    }
+
+    private static class Counters {
+
+        private final OfflinePlayer player;
+        private final GameExtension extension;
+        private final int[] values = new int[PlayerStatistic.values.length];
+
+        private Counters(OfflinePlayer player, GameExtension extension) {
+            this.player = player;
+            this.extension = extension;
+        }
+    }
+}
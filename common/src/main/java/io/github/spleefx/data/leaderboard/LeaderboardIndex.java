@@ -0,0 +1,102 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.leaderboard;
+
+import io.github.spleefx.data.GameStats;
+import io.github.spleefx.data.PlayerStatistic;
+import io.github.spleefx.extension.ExtensionsManager;
+import io.github.spleefx.extension.GameExtension;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link ScoreIndex} for every statistic, globally and in each extension. Indexes are updated
+ * whenever a statistic changes, so leaderboards are always current without re-sorting all players.
+ */
+public class LeaderboardIndex {
+
+    /**
+     * The global index of each statistic
+     */
+    private final Map<PlayerStatistic, ScoreIndex> global = new EnumMap<>(PlayerStatistic.class);
+
+    /**
+     * The index of each statistic in each extension, mapped by the extension key
+     */
+    private final Map<PlayerStatistic, Map<String, ScoreIndex>> extensions = new EnumMap<>(PlayerStatistic.class);
+
+    public LeaderboardIndex() {
+        for (PlayerStatistic statistic : PlayerStatistic.values) {
+            global.put(statistic, new ScoreIndex());
+            extensions.put(statistic, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Returns the index of the specified statistic
+     *
+     * @param statistic Statistic to get for
+     * @param extension Extension to get for. Null to get the global index
+     * @return The index
+     */
+    public ScoreIndex get(PlayerStatistic statistic, GameExtension extension) {
+        if (extension == null) return global.get(statistic);
+        return extensions.get(statistic).computeIfAbsent(extension.getKey(), k -> new ScoreIndex());
+    }
+
+    /**
+     * Updates the specified statistic of the player, globally and in the specified extension
+     *
+     * @param player    Player to update
+     * @param statistic Statistic to update
+     * @param extension Extension the statistic changed in. Can be null.
+     * @param stats     The statistics of the player
+     */
+    public void update(UUID player, PlayerStatistic statistic, GameExtension extension, GameStats stats) {
+        global.get(statistic).update(player, stats.get(statistic, null));
+        if (extension != null)
+            get(statistic, extension).update(player, stats.get(statistic, extension));
+    }
+
+    /**
+     * Updates all statistics of the player, globally and in every extension
+     *
+     * @param player Player to update
+     * @param stats  The statistics of the player
+     */
+    public void update(UUID player, GameStats stats) {
+        for (PlayerStatistic statistic : PlayerStatistic.values) {
+            global.get(statistic).update(player, stats.get(statistic, null));
+            for (GameExtension extension : ExtensionsManager.EXTENSIONS.values())
+                get(statistic, extension).update(player, stats.get(statistic, extension));
+        }
+    }
+
+    /**
+     * Removes the player from all indexes
+     *
+     * @param player Player to remove
+     */
+    public void remove(UUID player) {
+        for (PlayerStatistic statistic : PlayerStatistic.values) {
+            global.get(statistic).remove(player);
+            extensions.get(statistic).values().forEach(index -> index.remove(player));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.leaderboard;
+
+import io.github.spleefx.data.LeaderboardTopper;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An indexable skip list of player scores, ordered from the highest score to the lowest (ties are
+ * ordered by the player UUID). Besides its next nodes, every node stores how many positions each
+ * link skips, which allows updating a score, looking up the player at a rank, and looking up the
+ * rank of a player, all in O(log n).
+ * <p>
+ * The top of the index is additionally kept in an immutable view, which is only rebuilt when an
+ * update changes it. Top-N queries are served from that view without copying.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ScoreIndex {
+
+    /**
+     * The maximum level of a node
+     */
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * The maximum size of the cached top view. Larger queries are copied from the index.
+     */
+    private static final int MAX_VIEW_SIZE = 1000;
+
+    /**
+     * The head node, which has no player and links to the first node in each level
+     */
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+
+    /**
+     * The score of each player in the index
+     */
+    private final Map<UUID, Integer> scores = new HashMap<>();
+
+    /**
+     * The cached top of the index, or null if it has to be rebuilt
+     */
+    private List<LeaderboardTopper> view = Collections.emptyList();
+
+    /**
+     * The amount of players the cached view was requested for
+     */
+    private int viewSize = 0;
+
+    /**
+     * The last player of the cached view, used to tell whether an update changes the view
+     */
+    private UUID viewLastPlayer;
+    private int viewLastScore;
+
+    /**
+     * Sets the score of the specified player
+     *
+     * @param player Player to update
+     * @param score  New score of the player
+     */
+    public synchronized void update(UUID player, int score) {
+        Integer previous = scores.put(player, score);
+        if (previous != null) {
+            if (previous == score) return;
+            delete(player, previous);
+            invalidate(player, previous);
+        }
+        insert(player, score);
+        invalidate(player, score);
+    }
+
+    /**
+     * Removes the specified player from the index
+     *
+     * @param player Player to remove
+     */
+    public synchronized void remove(UUID player) {
+        Integer previous = scores.remove(player);
+        if (previous != null) {
+            delete(player, previous);
+            invalidate(player, previous);
+        }
+    }
+
+    /**
+     * Returns the player at the specified rank
+     *
+     * @param rank The rank, starting from 1
+     * @return The player at the rank, or null if the rank is out of bounds
+     */
+    public synchronized LeaderboardTopper get(int rank) {
+        if (rank < 1 || rank > scores.size()) return null;
+        Node x = head;
+        int traversed = 0;
+        for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.width[i] <= rank) {
+                traversed += x.width[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) return new LeaderboardTopper(x.player, x.score);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the rank of the specified player
+     *
+     * @param player Player to look up
+     * @return The rank of the player starting from 1, or -1 if the player is not in the index
+     */
+    public synchronized int rank(UUID player) {
+        Integer score = scores.get(player);
+        if (score == null) return -1;
+        Node x = head;
+        int traversed = 0;
+        for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+            while (x.next[i] != null && !after(x.next[i], player, score)) {
+                traversed += x.width[i];
+                x = x.next[i];
+            }
+            if (x.player != null && x.player.equals(player)) return traversed;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the top players, from the highest score to the lowest. The returned list is immutable,
+     * and is not updated when the index changes.
+     *
+     * @param limit The maximum amount of players to return
+     * @return The top players
+     */
+    public synchronized List<LeaderboardTopper> top(int limit) {
+        if (limit > MAX_VIEW_SIZE) return Collections.unmodifiableList(copy(limit));
+        if (view == null || limit > viewSize) {
+            viewSize = Math.max(limit, viewSize);
+            view = Collections.unmodifiableList(copy(viewSize));
+            if (!view.isEmpty()) {
+                LeaderboardTopper last = view.get(view.size() - 1);
+                viewLastPlayer = last.getUUID();
+                viewLastScore = last.getCount();
+            }
+        }
+        return limit >= view.size() ? view : view.subList(0, limit);
+    }
+
+    /**
+     * Copies the top players of the index into a new list
+     */
+    private List<LeaderboardTopper> copy(int limit) {
+        List<LeaderboardTopper> top = new ArrayList<>(Math.min(limit, scores.size()));
+        for (Node x = head.next[0]; x != null && top.size() < limit; x = x.next[0])
+            top.add(new LeaderboardTopper(x.player, x.score));
+        return top;
+    }
+
+    /**
+     * Drops the cached view if the specified entry is (or was) a part of it
+     */
+    private void invalidate(UUID player, int score) {
+        if (view == null || viewSize == 0) return;
+        if (view.size() < viewSize || !(viewLastScore > score || (viewLastScore == score && viewLastPlayer.compareTo(player) < 0)))
+            view = null;
+    }
+
+    /**
+     * Returns the amount of players in the index
+     *
+     * @return The index size
+     */
+    public synchronized int size() {
+        return scores.size();
+    }
+
+    private void insert(UUID player, int score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+            rank[i] = i == MAX_LEVEL - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], player, score)) {
+                rank[i] += x.width[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        Node node = new Node(player, score, randomLevel());
+        for (int i = 0; i < node.next.length; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.width[i] = update[i].width[i] - (rank[0] - rank[i]);
+            update[i].width[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = node.next.length; i < MAX_LEVEL; i++)
+            update[i].width[i]++;
+    }
+
+    private void delete(UUID player, int score) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], player, score))
+                x = x.next[i];
+            update[i] = x;
+        }
+        Node target = x.next[0];
+        if (target == null || !target.player.equals(player)) return;
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            if (update[i].next[i] == target) {
+                update[i].width[i] += target.width[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else
+                update[i].width[i]--;
+        }
+    }
+
+    /**
+     * Returns whether the specified node is ordered before the specified player and score
+     */
+    private static boolean before(Node node, UUID player, int score) {
+        return node.score > score || (node.score == score && node.player.compareTo(player) < 0);
+    }
+
+    /**
+     * Returns whether the specified node is ordered after the specified player and score
+     */
+    private static boolean after(Node node, UUID player, int score) {
+        return node.score < score || (node.score == score && node.player.compareTo(player) > 0);
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        while (level < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0)
+            level++;
+        return level;
+    }
+
+    private static class Node {
+
+        private final UUID player;
+        private final int score;
+        private final Node[] next;
+        private final int[] width;
+
+        private Node(UUID player, int score, int level) {
+            this.player = player;
+            this.score = score;
+            next = new Node[level];
+            width = new int[level];
+        }
+    }
+}
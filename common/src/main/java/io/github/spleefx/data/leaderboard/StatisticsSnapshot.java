@@ -0,0 +1,308 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.leaderboard;
+
+import io.github.spleefx.data.GameStats;
+import io.github.spleefx.data.PlayerStatistic;
+import io.github.spleefx.extension.ExtensionsManager;
+import io.github.spleefx.extension.GameExtension;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A columnar copy of the statistics of all players, which can be written to and read from a single
+ * file sequentially. Every player has a row, and every statistic has a column globally and in each
+ * extension, so leaderboards can be rebuilt without reading the file of every player.
+ * <p>
+ * The file starts with a header of the rows count and statistic names, followed by a column of
+ * UUIDs, then a column of ints for every statistic, grouped by extension.
+ * <p>
+ * This class is thread-safe.
+ */
+public class StatisticsSnapshot {
+
+    /**
+     * The magic number which snapshot files start with
+     */
+    private static final int MAGIC = 0x53585331;
+
+    /**
+     * The column key of global statistics
+     */
+    private static final String GLOBAL = "";
+
+    private static final int STATISTICS = PlayerStatistic.values.length;
+
+    /**
+     * The row of each player
+     */
+    private final Map<UUID, Integer> rows = new HashMap<>();
+
+    /**
+     * The UUID column, split into the most and least significant bits
+     */
+    private long[] most, least;
+
+    /**
+     * The statistic columns of each extension, mapped by the extension key. Each array is indexed
+     * by the statistic ordinal, then by the row.
+     */
+    private final Map<String, int[][]> columns = new LinkedHashMap<>();
+
+    /**
+     * The amount of rows
+     */
+    private int size = 0;
+
+    /**
+     * Statistic arrays which are shared with a copy of this snapshot, and must be copied before being updated
+     */
+    private final Set<int[]> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Whether is this snapshot a copy, which cannot be updated
+     */
+    private boolean frozen = false;
+
+    /**
+     * Whether was the snapshot modified since {@link #pollModified()} was last invoked
+     */
+    private boolean modified = false;
+
+    public StatisticsSnapshot() {
+        this(16);
+    }
+
+    private StatisticsSnapshot(int capacity) {
+        most = new long[capacity];
+        least = new long[capacity];
+    }
+
+    /**
+     * Updates all statistics of the player, globally and in every extension
+     *
+     * @param player Player to update
+     * @param stats  The statistics of the player
+     */
+    public synchronized void update(UUID player, GameStats stats) {
+        int row = rowOf(player);
+        for (PlayerStatistic statistic : PlayerStatistic.values) {
+            values(GLOBAL, statistic)[row] = stats.get(statistic, null);
+            for (GameExtension extension : ExtensionsManager.EXTENSIONS.values())
+                values(extension.getKey(), statistic)[row] = stats.get(statistic, extension);
+        }
+        modified = true;
+    }
+
+    /**
+     * Updates the specified statistic of the player, globally and in the specified extension
+     *
+     * @param player    Player to update
+     * @param statistic Statistic to update
+     * @param extension Extension the statistic changed in. Can be null.
+     * @param stats     The statistics of the player
+     */
+    public synchronized void update(UUID player, PlayerStatistic statistic, GameExtension extension, GameStats stats) {
+        int row = rowOf(player);
+        values(GLOBAL, statistic)[row] = stats.get(statistic, null);
+        if (extension != null)
+            values(extension.getKey(), statistic)[row] = stats.get(statistic, extension);
+        modified = true;
+    }
+
+    /**
+     * Adds all the statistics of this snapshot to the specified leaderboards. Statistics of extensions
+     * which no longer exist are skipped.
+     *
+     * @param leaderboards Leaderboards to add to
+     */
+    public synchronized void populate(LeaderboardIndex leaderboards) {
+        UUID[] players = new UUID[size];
+        for (int row = 0; row < size; row++)
+            players[row] = new UUID(most[row], least[row]);
+        columns.forEach((key, statistics) -> {
+            GameExtension extension = key.equals(GLOBAL) ? null : ExtensionsManager.getByKey(key);
+            if (extension == null && !key.equals(GLOBAL)) return;
+            for (PlayerStatistic statistic : PlayerStatistic.values) {
+                ScoreIndex index = leaderboards.get(statistic, extension);
+                int[] values = statistics[statistic.ordinal()];
+                for (int row = 0; row < size; row++)
+                    index.update(players[row], values[row]);
+            }
+        });
+    }
+
+    /**
+     * Returns whether the snapshot was modified since this method was last invoked
+     *
+     * @return True if the snapshot was modified
+     */
+    public synchronized boolean pollModified() {
+        if (!modified) return false;
+        modified = false;
+        return true;
+    }
+
+    /**
+     * Returns the amount of players in this snapshot
+     *
+     * @return The amount of rows
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of this snapshot, which can be written while this one keeps being updated. The copy
+     * shares the columns of this snapshot, and a column is only copied once it is updated here, so taking
+     * a copy does not copy any statistics. The copy itself cannot be updated.
+     *
+     * @return The copy
+     */
+    public synchronized StatisticsSnapshot copy() {
+        StatisticsSnapshot copy = new StatisticsSnapshot(0);
+        copy.frozen = true;
+        copy.size = size;
+        copy.most = most; // rows are only ever appended past the size of the copy
+        copy.least = least;
+        columns.forEach((key, statistics) -> {
+            copy.columns.put(key, statistics.clone());
+            Collections.addAll(shared, statistics);
+        });
+        return copy;
+    }
+
+    /**
+     * Writes this snapshot to the specified file. The file is replaced atomically, so it is either
+     * the previous snapshot or this one.
+     *
+     * @param file File to write to
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void write(File file) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(STATISTICS);
+            for (PlayerStatistic statistic : PlayerStatistic.values)
+                out.writeUTF(statistic.name());
+            out.writeInt(columns.size());
+            for (int row = 0; row < size; row++)
+                out.writeLong(most[row]);
+            for (int row = 0; row < size; row++)
+                out.writeLong(least[row]);
+            for (Map.Entry<String, int[][]> column : columns.entrySet()) {
+                out.writeUTF(column.getKey());
+                for (int[] values : column.getValue())
+                    for (int row = 0; row < size; row++)
+                        out.writeInt(values[row]);
+            }
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a snapshot from the specified file. Statistics which no longer exist are skipped, and statistics
+     * which did not exist when the snapshot was written are set to 0.
+     *
+     * @param file File to read from
+     * @return The read snapshot, or {@code null} if the file does not exist
+     * @throws IOException If the file cannot be read, or is not a valid snapshot
+     */
+    public static StatisticsSnapshot read(File file) throws IOException {
+        if (!file.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a statistics snapshot: " + file.getName());
+            int size = in.readInt();
+            int statistics = in.readInt();
+            if (size < 0 || statistics < 0) throw new IOException("Corrupted statistics snapshot: " + file.getName());
+            int[] ordinals = new int[statistics];
+            for (int i = 0; i < statistics; i++) {
+                String name = in.readUTF();
+                PlayerStatistic statistic = Arrays.stream(PlayerStatistic.values).filter(s -> s.name().equals(name)).findFirst().orElse(null);
+                ordinals[i] = statistic == null ? -1 : statistic.ordinal();
+            }
+            int columnCount = in.readInt();
+            StatisticsSnapshot snapshot = new StatisticsSnapshot(Math.max(size, 16));
+            snapshot.size = size;
+            for (int row = 0; row < size; row++)
+                snapshot.most[row] = in.readLong();
+            for (int row = 0; row < size; row++) {
+                snapshot.least[row] = in.readLong();
+                snapshot.rows.put(new UUID(snapshot.most[row], snapshot.least[row]), row);
+            }
+            for (int c = 0; c < columnCount; c++) {
+                int[][] column = snapshot.column(in.readUTF());
+                for (int ordinal : ordinals) {
+                    int[] values = ordinal == -1 ? new int[size] : column[ordinal];
+                    for (int row = 0; row < size; row++)
+                        values[row] = in.readInt();
+                }
+            }
+            snapshot.modified = true;
+            return snapshot;
+        }
+    }
+
+    private int rowOf(UUID player) {
+        if (frozen) throw new IllegalStateException("Copies of a snapshot cannot be updated");
+        Integer row = rows.get(player);
+        if (row != null) return row;
+        if (size == most.length) {
+            int capacity = most.length * 2;
+            most = Arrays.copyOf(most, capacity);
+            least = Arrays.copyOf(least, capacity);
+            for (int[][] statistics : columns.values())
+                for (int i = 0; i < STATISTICS; i++) {
+                    shared.remove(statistics[i]);
+                    statistics[i] = Arrays.copyOf(statistics[i], capacity);
+                }
+        }
+        most[size] = player.getMostSignificantBits();
+        least[size] = player.getLeastSignificantBits();
+        rows.put(player, size);
+        return size++;
+    }
+
+    private int[][] column(String key) {
+        return columns.computeIfAbsent(key, k -> new int[STATISTICS][most.length]);
+    }
+
+    /**
+     * Returns the values of the specified statistic in the specified column, copying them first
+     * if they are shared with a copy of this snapshot
+     *
+     * @param key       The column key
+     * @param statistic The statistic
+     * @return The values, indexed by the row
+     */
+    private int[] values(String key, PlayerStatistic statistic) {
+        int[][] column = column(key);
+        int[] values = column[statistic.ordinal()];
+        if (shared.remove(values))
+            column[statistic.ordinal()] = values = values.clone();
+        return values;
+    }
+}
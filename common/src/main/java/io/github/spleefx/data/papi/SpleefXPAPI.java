@@ -28,7 +28,9 @@ import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
 
 import java.text.NumberFormat;
-import java.util.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -37,8 +39,6 @@ import java.util.concurrent.CompletableFuture;
 @AllArgsConstructor
 public class SpleefXPAPI extends PlaceholderExpansion {
 
-    private static final List<String> INTS = new ArrayList<>(Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"));
-
     /**
      * The number formatter
      */
@@ -79,20 +79,17 @@ public class SpleefXPAPI extends PlaceholderExpansion {
      */
     @Override
     public String onRequest(OfflinePlayer player, String identifier) {
-        if (INTS.stream().anyMatch(identifier::contains)) {
+        if (containsDigit(identifier)) {
             String[] requested = identifier.split(":");
             String[] split = requested[0].split("_");
             int pos = Integer.parseInt(split[split.length - 1]);
             GameExtension extension = ExtensionsManager.getByKey(requested[1]);
             String request = requested[2];
             PlayerStatistic stat = PlayerStatistic.from(requested[0].substring(0, requested[0].lastIndexOf("_")));
-            LeaderboardTopper topper;
-            List<LeaderboardTopper> toppers = plugin.getDataProvider().getTopPlayers(stat, extension);
-            try {
-                topper = toppers.get(pos - 1);
-            } catch (IndexOutOfBoundsException e) {
-                topper = toppers.get(toppers.size() - 1);
-            }
+            List<LeaderboardTopper> toppers = plugin.getDataProvider().getTopPlayers(stat, extension, pos);
+            if (toppers.isEmpty())
+                return "No players yet";
+            LeaderboardTopper topper = toppers.get(toppers.size() - 1);
             CompletableFuture<OfflinePlayer> playerFuture = topper.getPlayer();
             if (!playerFuture.isDone())
                 return "Player not cached yet";
@@ -120,7 +117,12 @@ public class SpleefXPAPI extends PlaceholderExpansion {
             }
         }
         if (player == null) return format(0);
-        GameStats stats = plugin.getDataProvider().getStatistics(player);
+        if (identifier.toLowerCase().startsWith("rank_"))
+            return rank(player, identifier.substring("rank_".length()).toLowerCase());
+        CompletableFuture<GameStats> statsFuture = plugin.getDataProvider().getStatisticsAsync(player);
+        if (!statsFuture.isDone())
+            return "Player not cached yet";
+        GameStats stats = statsFuture.join();
         switch (identifier.toLowerCase()) {
             case "games_played":
                 return format(stats.get(PlayerStatistic.GAMES_PLAYED, null));
@@ -153,6 +155,31 @@ public class SpleefXPAPI extends PlaceholderExpansion {
         }
     }
 
+    /**
+     * Returns the rank of the player in the requested statistic, which is either
+     * {@code <statistic>} or {@code <statistic>_<extension>}
+     *
+     * @param player  Player to get for
+     * @param request The requested statistic
+     * @return The formatted rank, or 0 if the player is not ranked
+     */
+    private String rank(OfflinePlayer player, String request) {
+        PlayerStatistic stat = PlayerStatistic.from(request);
+        GameExtension extension = null;
+        if (stat == null && request.contains("_")) {
+            stat = PlayerStatistic.from(request.substring(0, request.lastIndexOf('_')));
+            extension = ExtensionsManager.getByKey(request.substring(request.lastIndexOf('_') + 1));
+        }
+        if (stat == null) return "Invalid statistic: " + request;
+        return format(Math.max(0, plugin.getDataProvider().getRank(player, stat, extension)));
+    }
+
+    private static boolean containsDigit(String identifier) {
+        for (int i = 0; i < identifier.length(); i++)
+            if (Character.isDigit(identifier.charAt(i))) return true;
+        return false;
+    }
+
     /**
      * Formats the specified number with commas
      *
@@ -16,14 +16,20 @@
 package io.github.spleefx.data.provider;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import io.github.spleefx.SpleefX;
+import io.github.spleefx.data.DataException;
 import io.github.spleefx.data.DataProvider;
+import io.github.spleefx.data.DataProvider.PlayerStoringStrategy;
 import io.github.spleefx.data.GameStats;
 import io.github.spleefx.data.LeaderboardTopper;
 import io.github.spleefx.data.PlayerStatistic;
-import io.github.spleefx.extension.ExtensionsManager;
+import io.github.spleefx.data.leaderboard.LeaderboardIndex;
+import io.github.spleefx.data.leaderboard.ScoreIndex;
+import io.github.spleefx.data.leaderboard.StatisticsSnapshot;
 import io.github.spleefx.extension.GameExtension;
 import io.github.spleefx.util.PlaceholderUtil;
+import io.github.spleefx.util.game.BukkitExecutors;
 import io.github.spleefx.util.io.FileManager;
 import io.github.spleefx.util.plugin.PluginSettings;
 import org.bukkit.Bukkit;
@@ -35,30 +41,82 @@ import org.moltenjson.utils.Gsons;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.*;
-import java.util.Map.Entry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
-
-import static java.util.Collections.reverseOrder;
+import java.util.function.Consumer;
 
 public class FlatFileProvider implements DataProvider {
 
-    private static final TreeNamingStrategy<OfflinePlayer> NAMING_STRATEGY = new PlayerNamingStrategy();
+    /**
+     * The size (in bytes) of the journal after which it is compacted into the statistics files
+     */
+    private static final long MAX_JOURNAL_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The leaderboards of all statistics, kept up to date as statistics change
+     */
+    private final LeaderboardIndex leaderboards = new LeaderboardIndex();
+
+    /**
+     * Whether have all players been added to the leaderboards
+     */
+    private volatile boolean leaderboardsLoaded = false;
+
+    /**
+     * A columnar copy of all statistics, used to load leaderboards without reading every file. Null
+     * if leaderboards are disabled.
+     */
+    private StatisticsSnapshot snapshot;
+    private File snapshotFile;
+
+    /**
+     * Statistics files being read in the background, mapped by the player UUID
+     */
+    private final Map<UUID, CompletableFuture<GameStats>> reads = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum amount of offline players to keep in memory
+     */
+    private final int cacheSize = DataProvider.getCacheSize();
+
+    /**
+     * Offline players which have their statistics in memory, ordered from the least recently used.
+     * Pinned players (see {@link DataProvider#isPinned(UUID)}) are never in this map, so their statistics are never evicted.
+     */
+    private final LinkedHashMap<UUID, Boolean> evictable = new LinkedHashMap<>(16, 0.75f, true);
 
-    private static final Map<PlayerStatistic, Set<LeaderboardTopper>> TOP = new HashMap<>();
+    /**
+     * The names and UUIDs of all players, used to resolve statistics files without profile lookups
+     */
+    private final PlayerNameIndex names = new PlayerNameIndex(new File(SpleefX.getPlugin().getDataFolder(), "player-names.json"));
 
-    private static final Map<PlayerStatistic, Map<GameExtension, Set<LeaderboardTopper>>> TOP_BY_EXTENSION = new HashMap<>();
+    private final TreeNamingStrategy<UUID> namingStrategy = new PlayerNamingStrategy(names);
 
-    private TreeConfiguration<OfflinePlayer, GameStats> statisticsTree =
-            new TreeConfigurationBuilder<OfflinePlayer, GameStats>(new File(SpleefX.getPlugin().getDataFolder(), PluginSettings.STATISTICS_DIRECTORY.get()), NAMING_STRATEGY)
+    private TreeConfiguration<UUID, GameStats> statisticsTree =
+            new TreeConfigurationBuilder<UUID, GameStats>(new File(SpleefX.getPlugin().getDataFolder(), PluginSettings.STATISTICS_DIRECTORY.get()), namingStrategy)
                     .setLazy(false)
-                    .setDataMap(new HashMap<>())
+                    .setDataMap(new ConcurrentHashMap<>())
                     .setGson(Gsons.DEFAULT)
                     .ignoreInvalidFiles(true)
+                    .setExclusionPrefixes(ImmutableList.of(PluginSettings.UNITED_FILE_NAME.get())) // legacy file, converted on startup
+                    .setSharded(true)
                     .build();
 
+    /**
+     * The journal which modified statistics are appended to between saves, or null if it is disabled
+     */
+    private StatisticsJournal journal;
+
     /**
      * Returns whether the player has an entry in the storage or not
      *
@@ -67,7 +125,7 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public boolean hasEntry(OfflinePlayer player) {
-        return statisticsTree.hasData(player);
+        return statisticsTree.hasData(player.getUniqueId()) || statisticsTree.exists(player.getUniqueId());
     }
 
     /**
@@ -77,12 +135,7 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public void add(OfflinePlayer player) {
-        try {
-            statisticsTree.createIfAbsent(player, new GameStats(), "json");
-        } catch (IOException e) {
-            SpleefX.logger().severe("Failed to create statistics for player " + player.getName() + ". Error:");
-            e.printStackTrace();
-        }
+        getStatistics(player);
     }
 
     /**
@@ -95,7 +148,7 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public int get(PlayerStatistic stat, OfflinePlayer player, GameExtension mode) {
-        return statisticsTree.lazyLoad(player, GameStats.class, "json").get(stat, mode);
+        return getStatistics(player).get(stat, mode);
     }
 
     /**
@@ -108,8 +161,8 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public void add(PlayerStatistic stat, OfflinePlayer player, GameExtension mode, int addition) {
-        add(player);
-        statisticsTree.get(player).add(stat, mode, addition);
+        GameStats stats = getStatistics(player).add(stat, mode, addition);
+        index(player.getUniqueId(), stat, mode, stats);
     }
 
     /**
@@ -119,14 +172,127 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public void saveEntries(SpleefX plugin) {
+        journalDirty();
+        // files may only contain what is already in the journal, otherwise a replay could overwrite them with older records.
+        // the sealed segments hold exactly the records appended so far, which is what the files are saved with
+        CompletableFuture<Long> sealed = journal == null ? CompletableFuture.completedFuture(null) : journal.roll();
+        statisticsTree.saveDirty();
+        StatisticsSnapshot snapshot = this.snapshot != null && this.snapshot.pollModified() ? this.snapshot.copy() : null;
+        Consumer<Long> flush = segment -> {
+            statisticsTree.flushWrites();
+            names.save();
+            if (snapshot != null) writeSnapshot(snapshot);
+            if (segment != null) journal.delete(segment); // compact the journal once the files are written
+        };
+        if (!plugin.isEnabled()) { // shutting down, write everything before the plugin is gone
+            flush.accept(sealed.handle((segment, error) -> segment).join());
+            if (journal != null) journal.close();
+        } else // a segment which failed to be sealed is kept, and compacted with the next save
+            sealed.handleAsync((segment, error) -> segment, BukkitExecutors.ASYNC).thenAccept(flush).exceptionally(e -> {
+                SpleefX.logger().severe("Failed to save player statistics. Error:");
+                e.printStackTrace();
+                return null;
+            });
+    }
+
+    /**
+     * Updates the leaderboards and the snapshot with all statistics of the player
+     */
+    private void index(UUID player, GameStats stats) {
+        leaderboards.update(player, stats);
+        if (snapshot != null) snapshot.update(player, stats);
+    }
+
+    /**
+     * Updates the leaderboards and the snapshot with the specified statistic of the player
+     */
+    private void index(UUID player, PlayerStatistic stat, GameExtension mode, GameStats stats) {
+        leaderboards.update(player, stat, mode, stats);
+        if (snapshot != null) snapshot.update(player, stat, mode, stats);
+    }
+
+    /**
+     * Loads the leaderboards from the snapshot file, if there is any
+     *
+     * @param keep Whether to keep the file after reading it. If statistics are not journaled, the
+     *             file is deleted, as changes written after it are lost if the server stops without saving.
+     * @return The loaded snapshot, or an empty snapshot if there is none
+     */
+    private StatisticsSnapshot loadSnapshot(boolean keep) {
+        Stopwatch timer = Stopwatch.createStarted();
         try {
-            statisticsTree.lazySave();
+            StatisticsSnapshot snapshot = StatisticsSnapshot.read(snapshotFile);
+            if (snapshot == null) return new StatisticsSnapshot();
+            snapshot.populate(leaderboards);
+            leaderboardsLoaded = true;
+            if (!keep && !snapshotFile.delete())
+                SpleefX.logger().warning("Failed to delete " + snapshotFile.getName() + ".");
+            SpleefX.logger().info("Loaded the leaderboards of " + snapshot.size() + " player(s) from the statistics snapshot in " + timer.elapsed(TimeUnit.MILLISECONDS) + " milliseconds.");
+            return snapshot;
         } catch (IOException e) {
-            SpleefX.logger().severe("Failed to save player statistics. Error:");
+            SpleefX.logger().warning("Failed to read the statistics snapshot. Leaderboards will be loaded from the player files.");
+            e.printStackTrace();
+            return new StatisticsSnapshot();
+        }
+    }
+
+    private void writeSnapshot(StatisticsSnapshot snapshot) {
+        try {
+            snapshot.write(snapshotFile);
+        } catch (IOException e) {
+            SpleefX.logger().severe("Failed to write the statistics snapshot. Error:");
             e.printStackTrace();
         }
     }
 
+    /**
+     * Marks all modified statistics to be saved, and appends them to the journal
+     */
+    private void journalDirty() {
+        statisticsTree.getData().forEach((id, stats) -> {
+            if (stats != null && stats.pollDirty()) {
+                statisticsTree.markDirty(id);
+                if (journal != null) journal.append(id, serialize(stats));
+            }
+        });
+    }
+
+    private static byte[] serialize(GameStats stats) {
+        return Gsons.DEFAULT.toJson(stats).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens the journal, and restores all statistics which were not saved since the last time it was compacted
+     *
+     * @param directory Directory of the journal
+     */
+    private void openJournal(File directory) {
+        try {
+            journal = new StatisticsJournal(directory);
+        } catch (IOException e) {
+            SpleefX.logger().severe("Failed to open the statistics journal. Statistics will only be saved periodically. Error:");
+            e.printStackTrace();
+            return;
+        }
+        Map<UUID, byte[]> latest = new HashMap<>();
+        long replayed = journal.replay(latest::put);
+        latest.forEach((id, payload) -> {
+            try {
+                GameStats stats = Gsons.DEFAULT.fromJson(new String(payload, StandardCharsets.UTF_8), GameStats.class);
+                statisticsTree.create(id, stats, "json");
+                statisticsTree.unload(id);
+                index(id, stats);
+            } catch (IOException | RuntimeException e) {
+                SpleefX.logger().warning("Failed to restore the statistics of " + id + " from the journal.");
+                e.printStackTrace();
+            }
+        });
+        statisticsTree.flushWrites();
+        journal.delete(replayed);
+        if (!latest.isEmpty())
+            SpleefX.logger().info("Restored the statistics of " + latest.size() + " player(s) from the journal.");
+    }
+
     /**
      * Sets the player statistics entirely. Useful for converting between different {@link DataProvider}
      * implementations.
@@ -137,7 +303,13 @@ public class FlatFileProvider implements DataProvider {
     @Override
     public void setStatistics(OfflinePlayer player, GameStats stats) {
         try {
-            statisticsTree.create(player, stats, "json");
+            if (journal != null) {
+                journal.append(player.getUniqueId(), serialize(stats));
+                journal.sync();
+            }
+            statisticsTree.create(player.getUniqueId(), stats, "json");
+            index(player.getUniqueId(), stats);
+            touch(player, player.getUniqueId());
         } catch (IOException e) {
             SpleefX.logger().severe("Failed to convert player statistics. Error:");
             e.printStackTrace();
@@ -151,37 +323,30 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public void createRequiredFiles(FileManager<SpleefX> fileManager) {
-        if (PlaceholderUtil.PAPI && (boolean) PluginSettings.LEADERBOARDS.get()) {
-            AtomicBoolean firstTime = new AtomicBoolean(true);
-            SpleefX.logger().info("Leaderboards are enabled. Loading player data after 5 seconds to allow it to be sorted beforehand. This may take some time depending on the amount of data it has to process.");
-            Bukkit.getScheduler().runTaskTimer(fileManager.getPlugin(), () -> {
+        int journalInterval = PluginSettings.STATISTICS_JOURNAL_INTERVAL.get();
+        boolean indexLeaderboards = PlaceholderUtil.PAPI && (boolean) PluginSettings.LEADERBOARDS.get();
+        if (indexLeaderboards) { // before the journal is replayed, so it is replayed over the snapshot
+            snapshotFile = new File(fileManager.getPlugin().getDataFolder(), "statistics-snapshot.bin");
+            snapshot = loadSnapshot(journalInterval > 0);
+        }
+        if (journalInterval > 0) {
+            openJournal(new File(fileManager.getPlugin().getDataFolder(), "statistics-journal"));
+            if (journal != null)
+                Bukkit.getScheduler().runTaskTimer(fileManager.getPlugin(), () -> {
+                    journalDirty();
+                    if (journal.getSize() > MAX_JOURNAL_SIZE)
+                        saveEntries(fileManager.getPlugin());
+                }, journalInterval, journalInterval);
+        }
+        if (indexLeaderboards && !leaderboardsLoaded) {
+            SpleefX.logger().info("Leaderboards are enabled. Loading and indexing player data. This may take some time depending on the amount of data it has to process.");
+            Bukkit.getScheduler().runTask(fileManager.getPlugin(), () -> {
                 Stopwatch timer = Stopwatch.createStarted();
-                Map<OfflinePlayer, GameStats> stats = new HashMap<>(statisticsTree.isDataLoaded() ? statisticsTree.getData() : statisticsTree.load(GameStats.class));
-                for (PlayerStatistic ps : PlayerStatistic.values) {
-                    if (firstTime.get())
-                        SpleefX.logger().info("Sorting leaderboards for statistic " + ps);
-
-                    List<Entry<OfflinePlayer, GameStats>> toSort = new ArrayList<>(stats.entrySet());
-                    toSort.removeIf(e -> e.getKey() == null || e.getValue() == null);
-                    toSort.sort(reverseOrder(Comparator.comparingInt(e -> e.getValue().get(ps, null))));
-                    List<LeaderboardTopper> top = toSort.stream().map(player -> new LeaderboardTopper(player.getKey().getUniqueId(), player.getValue().get(ps, null))).collect(Collectors.toList());
-                    TOP.put(ps, new HashSet<>(top));
-                    Map<GameExtension, Set<LeaderboardTopper>> tops = new HashMap<>();
-                    for (GameExtension extension : ExtensionsManager.EXTENSIONS.values()) {
-                        if (firstTime.get())
-                            SpleefX.logger().info("Sorting leaderboards for extension " + extension.getKey() + " in statistic " + ps);
-                        List<LeaderboardTopper> topEx = stats.entrySet().stream()
-                                .sorted(reverseOrder(Comparator.comparingInt(e -> e.getValue().get(ps, extension))))
-                                .map(e -> new LeaderboardTopper(e.getKey().getUniqueId(), e.getValue().get(ps, extension)))
-                                .collect(Collectors.toList());
-                        tops.put(extension, new LinkedHashSet<>(topEx));
-                    }
-                    TOP_BY_EXTENSION.put(ps, tops);
-                }
-                SpleefX.logger().info("Finished loading and sorting all leaderboards in " + timer.elapsed(TimeUnit.MILLISECONDS) + " milliseconds.");
-                firstTime.set(false);
+                statisticsTree.readAll(GameStats.class, this::index);
+                leaderboardsLoaded = true;
+                SpleefX.logger().info("Finished loading and indexing all leaderboards in " + timer.elapsed(TimeUnit.MILLISECONDS) + " milliseconds.");
                 timer.stop();
-            }, 0, 600 * 20);
+            });
         }
     }
 
@@ -192,19 +357,43 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension) {
+        return getLeaderboard(statistic, extension).top(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the top players in the specified statistic, from the highest to the lowest
+     *
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @param limit     The maximum amount of players to return
+     * @return The top players
+     */
+    @Override
+    public List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension, int limit) {
+        return getLeaderboard(statistic, extension).top(limit);
+    }
+
+    /**
+     * Returns the rank of the player in the specified statistic
+     *
+     * @param player    Player to get for
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @return The rank of the player starting from 1, or -1 if the player is not ranked
+     */
+    @Override
+    public int getRank(OfflinePlayer player, PlayerStatistic statistic, GameExtension extension) {
+        return getLeaderboard(statistic, extension).rank(player.getUniqueId());
+    }
+
+    private ScoreIndex getLeaderboard(PlayerStatistic statistic, GameExtension extension) {
         if (!(boolean) PluginSettings.LEADERBOARDS.get())
             throw new IllegalStateException("Leaderboards are not enabled! Enable them in the config.yml.");
         if (!PlaceholderUtil.PAPI)
             throw new IllegalStateException("PlaceholderAPI is not found! Get PlaceholderAPI for leaderboards to work.");
-        if (extension == null) {
-            try {
-                return new ArrayList<>(TOP.get(statistic));
-            } catch (NullPointerException e) {
-                e.printStackTrace();
-                throw new IllegalStateException("The plugin hasn't started loading leaderboards data yet! Please wait. If this occured even after 5 seconds of loading the plugin, report (all of) the errors above. Otherwise, ignore it and wait!");
-            }
-        } else
-            return new ArrayList<>(TOP_BY_EXTENSION.get(statistic).get(extension));
+        if (!leaderboardsLoaded)
+            throw new IllegalStateException("The plugin hasn't finished loading leaderboards data yet! Please wait.");
+        return leaderboards.get(statistic, extension);
     }
 
     /**
@@ -215,10 +404,21 @@ public class FlatFileProvider implements DataProvider {
      */
     @Override
     public GameStats getStatistics(OfflinePlayer player) {
-        GameStats stats = statisticsTree.lazyLoad(player, GameStats.class, "json");
+        UUID id = player.getUniqueId();
+        if (player.isOnline()) names.put(id, player.getName());
+        GameStats stats = statisticsTree.get(id);
+        if (stats == null) stats = load(id);
+        touch(player, id);
+        return stats;
+    }
+
+    private GameStats load(UUID id) {
+        GameStats stats = awaitRead(id);
+        if (stats != null) return statisticsTree.cacheIfAbsent(id, stats, "json");
+        stats = statisticsTree.lazyLoad(id, GameStats.class, "json");
         if (stats == null) {
             try {
-                statisticsTree.create(player, stats = new GameStats(), "json");
+                statisticsTree.create(id, stats = new GameStats(), "json");
             } catch (IOException e) {
                 SpleefX.logger().severe("Failed to save player statistics. Error:");
                 e.printStackTrace();
@@ -227,7 +427,115 @@ public class FlatFileProvider implements DataProvider {
         return stats;
     }
 
-    static class PlayerNamingStrategy implements TreeNamingStrategy<OfflinePlayer> {
+    /**
+     * Marks the statistics of the specified player as recently used. Offline players become eligible
+     * for eviction, while pinned players are kept in memory.
+     *
+     * @param player Player to mark
+     * @param id     The player UUID
+     */
+    private void touch(OfflinePlayer player, UUID id) {
+        boolean pinned = player.isOnline() || DataProvider.isPinned(id);
+        synchronized (evictable) {
+            if (pinned)
+                evictable.remove(id);
+            else
+                evictable.put(id, Boolean.TRUE);
+        }
+        if (!pinned && Bukkit.isPrimaryThread()) evict(id);
+    }
+
+    /**
+     * Unloads the least recently used offline players until there are no more than {@link #cacheSize}
+     * of them in memory. Modified statistics are written before being unloaded.
+     *
+     * @param keep The UUID of a player which must stay loaded (as it is being returned), or null
+     */
+    private void evict(UUID keep) {
+        if (cacheSize < 0) return;
+        List<UUID> evicted = new ArrayList<>();
+        synchronized (evictable) {
+            for (Iterator<UUID> iterator = evictable.keySet().iterator(); evictable.size() > cacheSize && iterator.hasNext(); ) {
+                UUID id = iterator.next();
+                if (id.equals(keep)) continue;
+                iterator.remove();
+                if (DataProvider.isPinned(id)) continue; // joined or activated a booster since it was last used
+                GameStats stats = statisticsTree.get(id);
+                if (stats != null && stats.pollDirty()) {
+                    statisticsTree.markDirty(id);
+                    if (journal != null) journal.append(id, serialize(stats));
+                }
+                evicted.add(id);
+            }
+        }
+        if (evicted.isEmpty()) return;
+        if (journal != null) journal.sync();
+        evicted.forEach(statisticsTree::unload);
+    }
+
+    /**
+     * Allows the statistics of the specified player to be evicted, as they are no longer online
+     *
+     * @param player Player to release
+     */
+    @Override
+    public void release(OfflinePlayer player) {
+        UUID id = player.getUniqueId();
+        if (!statisticsTree.hasData(id)) return;
+        synchronized (evictable) {
+            evictable.put(id, Boolean.TRUE);
+        }
+        evict(null);
+    }
+
+    /**
+     * Returns the statistics of the specified player, reading their file in the background if they
+     * are not loaded already
+     *
+     * @param player Player to retrieve from
+     * @return A future of the player's statistics, completed on the main thread
+     */
+    @Override
+    public CompletableFuture<GameStats> getStatisticsAsync(OfflinePlayer player) {
+        UUID id = player.getUniqueId();
+        GameStats stats = statisticsTree.get(id);
+        if (stats != null) return CompletableFuture.completedFuture(stats);
+        CompletableFuture<GameStats> read = reads.computeIfAbsent(id, k -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return statisticsTree.read(id, GameStats.class, "json");
+            } catch (IOException e) {
+                throw new DataException(e);
+            }
+        }, BukkitExecutors.ASYNC));
+        return read.handleAsync((v, error) -> getStatistics(player), BukkitExecutors.MAIN);
+    }
+
+    /**
+     * Waits for the background read of the specified player's file, if there is any
+     *
+     * @param id UUID of the player to wait for
+     * @return The read statistics, or null if there is no read, the player has no file, or the read failed
+     */
+    private GameStats awaitRead(UUID id) {
+        CompletableFuture<GameStats> read = reads.remove(id);
+        if (read == null) return null;
+        try {
+            return read.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves statistics files from the player name index, so it never has to look up player profiles
+     */
+    static class PlayerNamingStrategy implements TreeNamingStrategy<UUID> {
+
+        private final PlayerNameIndex names;
+
+        PlayerNamingStrategy(PlayerNameIndex names) {
+            this.names = names;
+        }
 
         /**
          * Converts the specified object to be a valid file name. The returned file name
@@ -237,19 +545,30 @@ public class FlatFileProvider implements DataProvider {
          * @return The valid file name.
          */
         @Override
-        public String toName(OfflinePlayer e) {
-            return DataProvider.getStoringStrategy().apply(e);
+        public String toName(UUID e) {
+            if (DataProvider.getStoringStrategy() == PlayerStoringStrategy.UUID)
+                return e.toString();
+            String name = names.getName(e);
+            if (name == null) // not indexed yet. looking up by UUID only reads the local player cache
+                names.put(e, name = Bukkit.getOfflinePlayer(e).getName());
+            return name;
         }
 
         /**
          * Converts the file name to be an object, can be used as a key.
          *
          * @param name The file name. This does <i>NOT</i> include the extension.
-         * @return The object key
+         * @return The object key, or {@code null} if the name cannot be resolved
          */
         @Override
-        public OfflinePlayer fromName(String name) {
-            return DataProvider.getStoringStrategy().from(name);
+        public UUID fromName(String name) {
+            if (DataProvider.getStoringStrategy() == PlayerStoringStrategy.NAME)
+                return names.getUUID(name);
+            try {
+                return UUID.fromString(name);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
         }
     }
 
@@ -0,0 +1,158 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.provider;
+
+import com.google.gson.reflect.TypeToken;
+import io.github.spleefx.SpleefX;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.moltenjson.utils.Gsons;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A local index of player names and UUIDs, stored in a single file. This allows resolving the
+ * players of stored data without looking up their profiles, which may require a request to Mojang.
+ * <p>
+ * Players are added to the index as their statistics are used while they are online. When the index
+ * file is first created, it is filled with all players known to the server.
+ * <p>
+ * This class is thread-safe.
+ */
+public class PlayerNameIndex {
+
+    private static final Type MAP_TYPE = new TypeToken<Map<UUID, String>>() {
+    }.getType();
+
+    /**
+     * The file of the index
+     */
+    private final File file;
+
+    /**
+     * The name of each player
+     */
+    private final Map<UUID, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * The UUID of each player, mapped by their name in lower case
+     */
+    private final Map<String, UUID> uuids = new ConcurrentHashMap<>();
+
+    /**
+     * Whether was the index modified since it was last saved
+     */
+    private volatile boolean dirty = false;
+
+    /**
+     * Creates a new index and loads it from the specified file. If the file does not exist, the index
+     * is filled with the players known to the server.
+     *
+     * @param file The file of the index
+     */
+    public PlayerNameIndex(File file) {
+        this.file = file;
+        if (file.exists()) {
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                Map<UUID, String> stored = Gsons.DEFAULT.fromJson(reader, MAP_TYPE);
+                if (stored != null) stored.forEach(this::put);
+            } catch (IOException | RuntimeException e) {
+                SpleefX.logger().warning("Failed to read the player name index (" + file.getName() + "). It will be rebuilt.");
+                e.printStackTrace();
+            }
+        }
+        if (names.isEmpty()) {
+            for (OfflinePlayer player : Bukkit.getOfflinePlayers())
+                if (player.getName() != null)
+                    put(player.getUniqueId(), player.getName());
+            dirty = true;
+        }
+    }
+
+    /**
+     * Adds the specified player to the index, or updates their name
+     *
+     * @param uuid UUID of the player
+     * @param name Name of the player
+     */
+    public void put(UUID uuid, String name) {
+        if (uuid == null || name == null) return;
+        String previous = names.put(uuid, name);
+        if (name.equals(previous)) return;
+        if (previous != null)
+            uuids.remove(previous.toLowerCase(Locale.ROOT), uuid);
+        uuids.put(name.toLowerCase(Locale.ROOT), uuid);
+        dirty = true;
+    }
+
+    /**
+     * Returns the name of the specified player
+     *
+     * @param uuid UUID of the player
+     * @return The name of the player, or {@code null} if they are not indexed
+     */
+    public String getName(UUID uuid) {
+        return names.get(uuid);
+    }
+
+    /**
+     * Returns the UUID of the player with the specified name
+     *
+     * @param name Name of the player (case-insensitive)
+     * @return The UUID of the player, or {@code null} if they are not indexed
+     */
+    public UUID getUUID(String name) {
+        return uuids.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Writes the index to its file, if it was modified since it was last saved. Concurrent saves
+     * are applied one after another, as they share the same temporary file.
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        dirty = false;
+        Map<UUID, String> snapshot = new HashMap<>(names);
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                Gsons.DEFAULT.toJson(snapshot, MAP_TYPE, writer);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            dirty = true;
+            SpleefX.logger().severe("Failed to save the player name index. Error:");
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.provider;
+
+import io.github.spleefx.SpleefX;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of player statistics. Every record stores the complete statistics of one
+ * player at the time they were appended, so the latest record of each player is all that is needed
+ * to restore them.
+ * <p>
+ * Records are written by a background thread in batches, and each batch is forced to the disk once
+ * (group commit). The journal is split into numbered segments. Once the records of a segment are
+ * written to the main storage, the segment can be deleted with {@link #delete(long)}.
+ * <p>
+ * Each segment starts with a magic number, followed by records of the following format:
+ * <pre>
+ *     long   UUID most significant bits
+ *     long   UUID least significant bits
+ *     int    payload length
+ *     byte[] payload
+ *     int    CRC32 of the payload
+ * </pre>
+ * A segment that ends with an incomplete or corrupted record (for example, because the server was
+ * killed while writing it) is read up to the last valid record.
+ * <p>
+ * This class is thread-safe.
+ */
+public class StatisticsJournal implements AutoCloseable {
+
+    /**
+     * The magic number which every segment starts with
+     */
+    private static final int MAGIC = 0x53584A31;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".bin";
+
+    /**
+     * The directory which contains all the segments
+     */
+    private final File directory;
+
+    /**
+     * The thread which writes records to the disk
+     */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "SpleefX Journal Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A lock guarding the pending batch
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The records waiting to be written
+     */
+    private List<Record> pending = new ArrayList<>();
+
+    /**
+     * A future completed once the pending records are on the disk
+     */
+    private CompletableFuture<Void> batch = new CompletableFuture<>();
+
+    /**
+     * The batch of the last appended record
+     */
+    private CompletableFuture<Void> lastBatch = CompletableFuture.completedFuture(null);
+
+    /**
+     * The segment records are currently written to
+     */
+    private volatile long segment;
+    private FileOutputStream stream;
+    private DataOutputStream out;
+
+    /**
+     * The size of the current segment, in bytes
+     */
+    private volatile long size;
+
+    /**
+     * Creates a new journal in the specified directory. Records are written to a new segment, which
+     * comes after all the existing ones.
+     *
+     * @param directory Directory of the journal
+     * @throws IOException If the segment cannot be created
+     */
+    public StatisticsJournal(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs())
+            throw new IOException("Cannot create journal directory " + directory.getPath());
+        long last = 0;
+        for (long existing : getSegments()) last = Math.max(last, existing);
+        open(last + 1);
+    }
+
+    /**
+     * Appends the specified record to the journal. The record is written in the background.
+     *
+     * @param player  UUID of the player
+     * @param payload The serialized statistics of the player
+     * @return A future completed once the record is on the disk
+     */
+    public CompletableFuture<Void> append(UUID player, byte[] payload) {
+        synchronized (lock) {
+            boolean schedule = pending.isEmpty();
+            pending.add(new Record(player, payload));
+            if (schedule) writer.execute(this::commit);
+            return lastBatch = batch;
+        }
+    }
+
+    /**
+     * Waits until all records appended so far are on the disk
+     */
+    public void sync() {
+        CompletableFuture<Void> future;
+        synchronized (lock) {
+            future = lastBatch;
+        }
+        try {
+            future.join();
+        } catch (CompletionException ignored) { // already reported by the writer thread
+        }
+    }
+
+    /**
+     * Starts a new segment. All records appended before invoking this method are written to the
+     * previous segments, and all records appended after it are written to the new one. This does
+     * not wait for the writer thread.
+     *
+     * @return A future of the number of the last previous segment, completed once all its records are on the disk
+     */
+    public CompletableFuture<Long> roll() {
+        CompletableFuture<Long> sealed = new CompletableFuture<>();
+        synchronized (lock) {
+            boolean schedule = pending.isEmpty();
+            pending.add(new Record(sealed));
+            if (schedule) writer.execute(this::commit);
+        }
+        return sealed;
+    }
+
+    /**
+     * Reads all the records of the segments before the current one, in the order they were appended
+     *
+     * @param action Action to invoke for every record
+     * @return The number of the last read segment
+     */
+    public long replay(BiConsumer<UUID, byte[]> action) {
+        List<Long> segments = getSegments();
+        segments.sort(null);
+        long last = 0;
+        for (long number : segments) {
+            if (number >= segment) break;
+            last = number;
+            File file = getFile(number);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    SpleefX.logger().warning("Skipping invalid journal segment " + file.getName() + ".");
+                    continue;
+                }
+                CRC32 crc = new CRC32();
+                while (true) {
+                    UUID player;
+                    byte[] payload;
+                    try {
+                        player = new UUID(in.readLong(), in.readLong());
+                        int length = in.readInt();
+                        if (length < 0) throw new EOFException();
+                        payload = new byte[length];
+                        in.readFully(payload);
+                        crc.reset();
+                        crc.update(payload, 0, length);
+                        if (in.readInt() != (int) crc.getValue()) throw new EOFException();
+                    } catch (EOFException e) { // end of the segment, or a record was not fully written
+                        break;
+                    }
+                    action.accept(player, payload);
+                }
+            } catch (IOException e) {
+                SpleefX.logger().warning("Failed to read journal segment " + file.getName() + ".");
+                e.printStackTrace();
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Deletes all segments up to (and including) the specified one. This should only be invoked once
+     * their records are in the main storage.
+     *
+     * @param upTo Number of the last segment to delete
+     */
+    public void delete(long upTo) {
+        for (long number : getSegments())
+            if (number <= upTo && !getFile(number).delete())
+                SpleefX.logger().warning("Failed to delete journal segment " + getFile(number).getName() + ".");
+    }
+
+    /**
+     * Returns the size of the current segment
+     *
+     * @return The size, in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Writes all pending records, and closes the journal
+     */
+    @Override
+    public void close() {
+        writer.execute(() -> {
+            commit();
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the pending batch and forces it to the disk. This is only invoked by the writer thread.
+     */
+    private void commit() {
+        List<Record> records;
+        CompletableFuture<Void> future;
+        synchronized (lock) {
+            records = pending;
+            future = batch;
+            pending = new ArrayList<>();
+            batch = new CompletableFuture<>();
+        }
+        if (records.isEmpty()) {
+            future.complete(null);
+            return;
+        }
+        try {
+            CRC32 crc = new CRC32();
+            for (Record record : records) {
+                if (record.roll != null) { // seal the segment, the records after it go to the next one
+                    force();
+                    long sealed = segment;
+                    open(sealed + 1);
+                    record.roll.complete(sealed);
+                    continue;
+                }
+                out.writeLong(record.player.getMostSignificantBits());
+                out.writeLong(record.player.getLeastSignificantBits());
+                out.writeInt(record.payload.length);
+                out.write(record.payload);
+                crc.reset();
+                crc.update(record.payload, 0, record.payload.length);
+                out.writeInt((int) crc.getValue());
+            }
+            force();
+            future.complete(null);
+        } catch (IOException e) {
+            SpleefX.logger().severe("Failed to write to the statistics journal. Error:");
+            e.printStackTrace();
+            future.completeExceptionally(e);
+            for (Record record : records)
+                if (record.roll != null) record.roll.completeExceptionally(e); // no-op if already sealed
+        }
+    }
+
+    /**
+     * Forces all written records of the current segment to the disk
+     */
+    private void force() throws IOException {
+        out.flush();
+        stream.getFD().sync();
+        size = out.size();
+    }
+
+    private void open(long number) throws IOException {
+        if (out != null) out.close();
+        segment = number;
+        stream = new FileOutputStream(getFile(number));
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.flush();
+        size = out.size();
+    }
+
+    private File getFile(long number) {
+        return new File(directory, PREFIX + number + SUFFIX);
+    }
+
+    private List<Long> getSegments() {
+        List<Long> segments = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) return segments;
+        for (String name : names) {
+            if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) continue;
+            try {
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return segments;
+    }
+
+    private static class Record {
+
+        private final UUID player;
+        private final byte[] payload;
+
+        /**
+         * The future of {@link #roll()} if this record marks the end of a segment, otherwise null
+         */
+        private final CompletableFuture<Long> roll;
+
+        private Record(UUID player, byte[] payload) {
+            this.player = player;
+            this.payload = payload;
+            roll = null;
+        }
+
+        private Record(CompletableFuture<Long> roll) {
+            player = null;
+            payload = null;
+            this.roll = roll;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.provider.mysql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small fixed-size pool of JDBC connections. Connections are created lazily, and are validated
+ * before being handed out, so connections dropped by the server are replaced transparently.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * The time (in seconds) to wait for a free connection
+     */
+    private static final int BORROW_TIMEOUT = 30;
+
+    /**
+     * The time (in seconds) to wait for a connection to be validated
+     */
+    private static final int VALIDATION_TIMEOUT = 2;
+
+    private final String url, username, password;
+    private final int size;
+
+    /**
+     * All connections which are not in use
+     */
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * The amount of connections created by this pool
+     */
+    private final AtomicInteger created = new AtomicInteger();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new connection pool
+     *
+     * @param url      The JDBC URL
+     * @param username The database username
+     * @param password The database password
+     * @param size     The maximum amount of connections
+     */
+    public ConnectionPool(String url, String username, String password, int size) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.size = Math.max(1, size);
+    }
+
+    /**
+     * Borrows a connection from the pool. The connection must be returned with {@link #release(Connection)}.
+     *
+     * @return The connection
+     * @throws SQLException If the pool is closed, no connection is freed in time, or a connection cannot be created
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("The connection pool is closed");
+        Connection connection = idle.poll();
+        if (connection == null) {
+            if (created.incrementAndGet() <= size)
+                return connect();
+            created.decrementAndGet();
+            try {
+                connection = idle.poll(BORROW_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+            if (connection == null) throw new SQLException("Timed out while waiting for a connection");
+        }
+        if (connection.isValid(VALIDATION_TIMEOUT)) return connection;
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+        return connect();
+    }
+
+    /**
+     * Returns the specified connection to the pool
+     *
+     * @param connection Connection to return
+     */
+    public void release(Connection connection) {
+        if (closed) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+            return;
+        }
+        idle.offer(connection);
+    }
+
+    private Connection connect() throws SQLException {
+        try {
+            return DriverManager.getConnection(url, username, password);
+        } catch (SQLException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle connections. Connections in use are closed once they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,1190 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.provider.mysql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.spleefx.SpleefX;
+import io.github.spleefx.data.*;
+import io.github.spleefx.extension.GameExtension;
+import io.github.spleefx.util.game.BukkitExecutors;
+import io.github.spleefx.util.io.FileManager;
+import io.github.spleefx.util.plugin.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.moltenjson.utils.Gsons;
+
+import java.sql.*;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A data provider which stores player data in a MySQL (or MariaDB) database, allowing several
+ * servers to share the same player data.
+ * <p>
+ * Player data is cached locally, and is never read or written on the main thread once loaded:
+ * <ul>
+ *     <li>Statistic increments are written as increments, so that servers never overwrite each
+ *     other's statistics.</li>
+ *     <li>All writes go through a single writer thread, which groups all writes queued in the
+ *     meantime into one transaction.</li>
+ *     <li>Every write bumps the version column of the player. Saves of the remaining player data
+ *     (coins, perks, boosters and custom data) only apply if the version is still the one this server
+ *     last saw. Otherwise, the player is reloaded, and the local changes since the last save are merged
+ *     into the reloaded data and saved again.</li>
+ *     <li>The cached versions are compared against the database periodically, and players changed by
+ *     other servers are reloaded in the background, and their changes are copied into the cached
+ *     {@link GameStats} of the player.</li>
+ *     <li>Only the most recently used offline players are kept in memory (see {@link DataProvider#getCacheSize()}),
+ *     so references to the {@link GameStats} of offline players should not be kept across ticks.</li>
+ *     <li>Leaderboards and ranks are queried in the background, and are served from a cache which is
+ *     refreshed every few seconds.</li>
+ * </ul>
+ * Any JDBC driver speaking the MySQL dialect can be used, such as H2 in MySQL mode
+ * ({@code jdbc:h2:mem:spleefx;MODE=MySQL}).
+ */
+public class MySQLProvider implements DataProvider {
+
+    /**
+     * The extension column value of global statistics
+     */
+    private static final String GLOBAL = "";
+
+    /**
+     * The maximum amount of writes applied in a single transaction
+     */
+    private static final int MAX_BATCH = 1024;
+
+    /**
+     * The smallest amount of players fetched for a leaderboard, so that consecutive positions are
+     * served from the same query
+     */
+    private static final int MIN_TOP_FETCH = 10;
+
+    /**
+     * The time (in milliseconds) after which leaderboards and ranks are queried again
+     */
+    private static final long QUERY_REFRESH = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * The maximum amount of players in a single version check query
+     */
+    private static final int VERSION_CHECK_SIZE = 500;
+
+    /**
+     * The amount of times a failed transaction is retried before its writes are dropped
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * The time (in milliseconds) to wait before retrying a failed transaction
+     */
+    private static final long RETRY_DELAY = TimeUnit.SECONDS.toMillis(2);
+
+    /**
+     * The time (in ticks) to wait before merging a player whose writes are still pending
+     */
+    private static final long RECONCILE_DELAY = 20;
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    /**
+     * Marks the end of the writes queue
+     */
+    private static final Write STOP = new Write(null, null, null, false);
+
+    static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS spleefx_players (player VARCHAR(36) NOT NULL PRIMARY KEY, uuid CHAR(36) NOT NULL, " +
+                    "coins INT NOT NULL DEFAULT 0, custom TEXT, version BIGINT NOT NULL DEFAULT 0)",
+            "CREATE TABLE IF NOT EXISTS spleefx_statistics (player VARCHAR(36) NOT NULL, extension VARCHAR(64) NOT NULL, statistic VARCHAR(32) NOT NULL, " +
+                    "value INT NOT NULL, PRIMARY KEY (player, extension, statistic), INDEX spleefx_statistics_top (extension, statistic, value))",
+            "CREATE TABLE IF NOT EXISTS spleefx_perks (player VARCHAR(36) NOT NULL, perk VARCHAR(64) NOT NULL, amount INT NOT NULL, PRIMARY KEY (player, perk))",
+            "CREATE TABLE IF NOT EXISTS spleefx_boosters (player VARCHAR(36) NOT NULL, slot INT NOT NULL, data TEXT NOT NULL, PRIMARY KEY (player, slot))"
+    };
+
+    /**
+     * Creates a player if they are not stored already
+     */
+    static final String INSERT_PLAYER = "INSERT IGNORE INTO spleefx_players (player, uuid) VALUES (?, ?)";
+
+    /**
+     * Saves a player, only if the player was not changed since the specified version
+     */
+    static final String UPDATE_PLAYER = "UPDATE spleefx_players SET coins = ?, custom = ?, version = version + 1 WHERE player = ? AND version = ?";
+
+    /**
+     * Overwrites a statistic
+     */
+    static final String SET_STATISTIC = "INSERT INTO spleefx_statistics (player, extension, statistic, value) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE value = VALUES(value)";
+
+    /**
+     * Adds to a statistic
+     */
+    static final String INCREMENT_STATISTIC = "INSERT INTO spleefx_statistics (player, extension, statistic, value) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE value = value + VALUES(value)";
+
+    /**
+     * All loaded players, mapped by their storage key
+     */
+    private final Map<String, PlayerEntry> players = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum amount of offline players to keep in memory
+     */
+    private final int cacheSize = DataProvider.getCacheSize();
+
+    /**
+     * Offline players which are loaded, ordered from the least recently used. Pinned players
+     * (see {@link DataProvider#isPinned(UUID)}) are never in this map, so they are never evicted.
+     */
+    private final LinkedHashMap<String, OfflinePlayer> evictable = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * All players currently being loaded, mapped by their storage key
+     */
+    private final Map<String, CompletableFuture<PlayerEntry>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * The statistics returned on the main thread for players which are still being loaded
+     */
+    private final Map<String, GameStats> placeholders = new ConcurrentHashMap<>();
+
+    /**
+     * All writes waiting for the writer thread
+     */
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+
+    /**
+     * Recently requested leaderboards, mapped by the statistic and extension
+     */
+    private final Cache<String, Query<TopPlayers>> leaderboards = CacheBuilder.newBuilder()
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Recently requested ranks, mapped by the player, statistic and extension
+     */
+    private final Cache<String, Query<Integer>> ranks = CacheBuilder.newBuilder()
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
+    private final ConnectionPool pool;
+
+    /**
+     * The threads which run all reads
+     */
+    private final ExecutorService readers;
+
+    /**
+     * The thread which applies all writes
+     */
+    private final Thread writer;
+
+    public MySQLProvider() {
+        int poolSize = ((Number) PluginSettings.MYSQL_POOL_SIZE.get()).intValue();
+        pool = new ConnectionPool(PluginSettings.MYSQL_URL.get(), PluginSettings.MYSQL_USERNAME.get(), PluginSettings.MYSQL_PASSWORD.get(), poolSize);
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            try (Statement statement = connection.createStatement()) {
+                for (String table : SCHEMA)
+                    statement.execute(table);
+            }
+        } catch (SQLException e) {
+            pool.close();
+            throw new DataException(e);
+        } finally {
+            if (connection != null) pool.release(connection);
+        }
+        readers = Executors.newFixedThreadPool(Math.max(1, poolSize - 1), task -> {
+            Thread thread = new Thread(task, "SpleefX MySQL Reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer = new Thread(this::write, "SpleefX MySQL Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Starts synchronizing the cached players with the database
+     *
+     * @param fileManager File manager instance
+     */
+    @Override
+    public void createRequiredFiles(FileManager<SpleefX> fileManager) {
+        long interval = ((Number) PluginSettings.MYSQL_SYNC_INTERVAL.get()).longValue() * 20;
+        Bukkit.getScheduler().runTaskTimer(fileManager.getPlugin(), this::sync, interval, interval);
+    }
+
+    /**
+     * Returns whether the player has an entry in the storage or not. On the main thread, only players
+     * which are already loaded are reported, as the database is never queried there.
+     *
+     * @param player Player to check for
+     * @return {@code true} if the player is stored, false if otherwise.
+     */
+    @Override
+    public boolean hasEntry(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        if (players.containsKey(key)) return true;
+        if (Bukkit.isPrimaryThread()) return false;
+        return CompletableFuture.supplyAsync(() -> read(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM spleefx_players WHERE player = ?")) {
+                statement.setString(1, key);
+                try (ResultSet result = statement.executeQuery()) {
+                    return result.next();
+                }
+            }
+        }), readers).join();
+    }
+
+    /**
+     * Adds the player to the data entries
+     *
+     * @param player Player to add
+     */
+    @Override
+    public void add(OfflinePlayer player) {
+        getStatistics(player);
+    }
+
+    /**
+     * Retrieves the player's statistics from the specified extension
+     *
+     * @param stat   Statistic to retrieve
+     * @param player Player to retrieve from
+     * @param mode   The mode. Set to {@code null} to get global statistics
+     * @return The statistic
+     */
+    @Override
+    public int get(PlayerStatistic stat, OfflinePlayer player, GameExtension mode) {
+        return getStatistics(player).get(stat, mode);
+    }
+
+    /**
+     * Adds the specified amount to the statistic
+     *
+     * @param stat      Statistic to add to
+     * @param player    Player to add for
+     * @param mode      Mode to add for
+     * @param increment Value to add
+     */
+    @Override
+    public void add(PlayerStatistic stat, OfflinePlayer player, GameExtension mode, int increment) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        PlayerEntry entry = players.get(key);
+        if (entry == null) { // applied in order once the player is loaded
+            load(key, player).whenComplete((loaded, error) -> {
+                if (error != null)
+                    SpleefX.logger().severe("Failed to load the data of " + player.getName() + ", dropping " + increment + " " + stat + ": " + error);
+                else
+                    BukkitExecutors.MAIN.execute(() -> add(loaded, stat, mode, increment));
+            });
+            return;
+        }
+        touch(player, key);
+        add(entry, stat, mode, increment);
+    }
+
+    private void add(PlayerEntry entry, PlayerStatistic stat, GameExtension mode, int increment) {
+        entry.stats.add(stat, mode, increment);
+        queue(new Write(entry, GLOBAL, stat, increment));
+        if (mode != null)
+            queue(new Write(entry, mode.getKey(), stat, increment));
+    }
+
+    /**
+     * Saves all the entries of the data
+     *
+     * @param plugin Plugin instance
+     */
+    @Override
+    public void saveEntries(SpleefX plugin) {
+        players.values().forEach(entry -> {
+            if (entry.stats.pollDirty())
+                queue(new Write(entry, null, serialize(entry.stats), false));
+        });
+        if (!plugin.isEnabled())
+            close();
+    }
+
+    /**
+     * Sets the player statistics entirely. Useful for converting between different {@link DataProvider}
+     * implementations.
+     *
+     * @param player Player to convert
+     * @param stats  Stats to override with
+     */
+    @Override
+    public void setStatistics(OfflinePlayer player, GameStats stats) {
+        PlayerEntry entry = new PlayerEntry(DataProvider.getStoringStrategy().apply(player), stats, 0);
+        players.put(entry.key, entry);
+        stats.pollDirty();
+        queue(new Write(entry, player.getUniqueId(), serialize(stats), true));
+        touch(player, entry.key);
+    }
+
+    /**
+     * Returns the top n players in the specified statistic
+     *
+     * @param statistic Statistic to get from
+     */
+    @Override
+    public List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension) {
+        return getTopPlayers(statistic, extension, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the top players in the specified statistic, from the highest to the lowest. Leaderboards
+     * are queried in the background, so the returned list may be a few seconds old, and is empty until
+     * the leaderboard is first loaded.
+     *
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @param limit     The maximum amount of players to return
+     * @return The top players
+     */
+    @Override
+    public List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension, int limit) {
+        String extensionKey = extension == null ? GLOBAL : extension.getKey();
+        Query<TopPlayers> query = leaderboards.asMap().computeIfAbsent(statistic.name() + ":" + extensionKey, k -> new Query<>());
+        TopPlayers top = query.value;
+        boolean tooShort = top != null && top.players.size() >= top.limit && top.limit < limit;
+        if (tooShort || query.isStale()) {
+            int fetch = Math.max(Math.max(limit, MIN_TOP_FETCH), top == null ? 0 : top.limit);
+            query.refresh(() -> queryTop(statistic.name(), extensionKey, fetch));
+        }
+        if (top == null) return Collections.emptyList();
+        return limit >= top.players.size() ? top.players : top.players.subList(0, limit);
+    }
+
+    private TopPlayers queryTop(String statistic, String extension, int limit) {
+        return read(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT p.uuid, s.value FROM spleefx_statistics s " +
+                    "JOIN spleefx_players p ON p.player = s.player WHERE s.extension = ? AND s.statistic = ? ORDER BY s.value DESC LIMIT ?")) {
+                statement.setString(1, extension);
+                statement.setString(2, statistic);
+                statement.setInt(3, limit);
+                List<LeaderboardTopper> players = new ArrayList<>(Math.min(limit, 100));
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next())
+                        players.add(new LeaderboardTopper(UUID.fromString(result.getString(1)), result.getInt(2)));
+                }
+                return new TopPlayers(Collections.unmodifiableList(players), limit);
+            }
+        });
+    }
+
+    /**
+     * Returns the rank of the player in the specified statistic. Players with the same score share
+     * the same rank. Ranks are queried in the background, and may be a few seconds old.
+     *
+     * @param player    Player to get for
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @return The rank of the player starting from 1, or -1 if it is not loaded yet
+     */
+    @Override
+    public int getRank(OfflinePlayer player, PlayerStatistic statistic, GameExtension extension) {
+        String extensionKey = extension == null ? GLOBAL : extension.getKey();
+        Query<Integer> query = ranks.asMap().computeIfAbsent(player.getUniqueId() + ":" + statistic.name() + ":" + extensionKey, k -> new Query<>());
+        if (query.isStale()) {
+            int score = get(statistic, player, extension);
+            query.refresh(() -> read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM spleefx_statistics WHERE extension = ? AND statistic = ? AND value > ?")) {
+                    statement.setString(1, extensionKey);
+                    statement.setString(2, statistic.name());
+                    statement.setInt(3, score);
+                    try (ResultSet result = statement.executeQuery()) {
+                        return result.next() ? result.getInt(1) + 1 : -1;
+                    }
+                }
+            }));
+        }
+        Integer rank = query.value;
+        return rank == null ? -1 : rank;
+    }
+
+    /**
+     * Returns the statistics of the specified player. If the player is not loaded yet, this blocks
+     * until the player is loaded, unless called from the main thread. There, the player is loaded in
+     * the background, and a placeholder is returned in the meantime. Coins, perks, boosters and custom
+     * data changed in the placeholder are merged into the player once loaded.
+     *
+     * @param player Player to retrieve from
+     * @return The player's statistics
+     */
+    @Override
+    public GameStats getStatistics(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        PlayerEntry entry = players.get(key);
+        if (entry != null) {
+            touch(player, key);
+            return entry.stats;
+        }
+        CompletableFuture<PlayerEntry> future = load(key, player);
+        if (!Bukkit.isPrimaryThread()) return future.join().stats;
+        return placeholders.computeIfAbsent(key, k -> {
+            future.whenComplete((loaded, error) -> BukkitExecutors.MAIN.execute(() -> {
+                GameStats placeholder = placeholders.remove(k);
+                if (error != null)
+                    SpleefX.logger().warning("Failed to load the data of " + player.getName() + ": " + error);
+                else if (placeholder != null && placeholder.pollDirty())
+                    adopt(loaded, placeholder);
+            }));
+            return new GameStats();
+        });
+    }
+
+    /**
+     * Merges the changes made to a placeholder into the loaded player
+     *
+     * @param entry       The loaded player
+     * @param placeholder The placeholder returned while the player was loading
+     */
+    private void adopt(PlayerEntry entry, GameStats placeholder) {
+        JsonObject merged = merge(serialize(new GameStats()), serialize(placeholder), serialize(entry.stats));
+        entry.stats.copyFrom(Gsons.DEFAULT.fromJson(merged, GameStats.class));
+        entry.stats.markDirty();
+    }
+
+    /**
+     * Returns the statistics of the specified player, loading them in the background if they are not
+     * loaded already
+     *
+     * @param player Player to retrieve from
+     * @return A future of the player's statistics, completed on the main thread
+     */
+    @Override
+    public CompletableFuture<GameStats> getStatisticsAsync(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        PlayerEntry entry = players.get(key);
+        if (entry != null) {
+            touch(player, key);
+            return CompletableFuture.completedFuture(entry.stats);
+        }
+        return load(key, player).thenApplyAsync(loaded -> loaded.stats, BukkitExecutors.MAIN);
+    }
+
+    /**
+     * Loads the specified player in the background, if the player is not loaded or being loaded already
+     *
+     * @param key    The player storage key
+     * @param player The player
+     * @return A future of the loaded player
+     */
+    private CompletableFuture<PlayerEntry> load(String key, OfflinePlayer player) {
+        CompletableFuture<PlayerEntry> future = new CompletableFuture<>();
+        CompletableFuture<PlayerEntry> existing = loading.putIfAbsent(key, future);
+        if (existing != null) return existing;
+        PlayerEntry loaded = players.get(key);
+        if (loaded != null) {
+            loading.remove(key, future);
+            future.complete(loaded);
+            return future;
+        }
+        readers.execute(() -> {
+            try {
+                PlayerEntry entry = read(connection -> readPlayer(connection, key, player.getUniqueId()));
+                PlayerEntry previous = players.putIfAbsent(key, entry);
+                touch(player, key);
+                future.complete(previous == null ? entry : previous);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                loading.remove(key, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Reads the data of the specified player
+     *
+     * @param connection Connection to read with
+     * @param key        The player storage key
+     * @param uuid       The player UUID, used to create the player if they are not stored. Can be null.
+     * @return The player data
+     * @throws SQLException If a database error occurs
+     */
+    private static PlayerEntry readPlayer(Connection connection, String key, UUID uuid) throws SQLException {
+        JsonObject json = new JsonObject();
+        long version;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT coins, custom, version FROM spleefx_players WHERE player = ?")) {
+            statement.setString(1, key);
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next()) {
+                    if (uuid != null)
+                        try (PreparedStatement insert = connection.prepareStatement(INSERT_PLAYER)) {
+                            insert.setString(1, key);
+                            insert.setString(2, uuid.toString());
+                            insert.executeUpdate();
+                        }
+                    return new PlayerEntry(key, new GameStats(), 0);
+                }
+                json.addProperty("coins", result.getInt(1));
+                String custom = result.getString(2);
+                if (custom != null)
+                    json.add("custom", PARSER.parse(custom));
+                version = result.getLong(3);
+            }
+        }
+        JsonObject global = new JsonObject();
+        JsonObject modes = new JsonObject();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT extension, statistic, value FROM spleefx_statistics WHERE player = ?")) {
+            statement.setString(1, key);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    String extension = result.getString(1);
+                    JsonObject target = global;
+                    if (!extension.equals(GLOBAL)) {
+                        if (!modes.has(extension))
+                            modes.add(extension, new JsonObject());
+                        target = modes.getAsJsonObject(extension);
+                    }
+                    target.addProperty(result.getString(2), result.getInt(3));
+                }
+            }
+        }
+        json.add("global", global);
+        json.add("modes", modes);
+        JsonObject perks = new JsonObject();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT perk, amount FROM spleefx_perks WHERE player = ?")) {
+            statement.setString(1, key);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next())
+                    perks.addProperty(result.getString(1), result.getInt(2));
+            }
+        }
+        json.add("perks", perks);
+        JsonObject boosters = new JsonObject();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT slot, data FROM spleefx_boosters WHERE player = ?")) {
+            statement.setString(1, key);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next())
+                    boosters.add(Integer.toString(result.getInt(1)), PARSER.parse(result.getString(2)));
+            }
+        }
+        json.add("boosters", boosters);
+        return new PlayerEntry(key, Gsons.DEFAULT.fromJson(json, GameStats.class), version);
+    }
+
+    /**
+     * Marks the specified player as recently used. Offline players become eligible for eviction,
+     * while pinned players are kept in memory.
+     *
+     * @param player Player to mark
+     * @param key    The player storage key
+     */
+    private void touch(OfflinePlayer player, String key) {
+        boolean pinned = player.isOnline() || DataProvider.isPinned(player.getUniqueId());
+        synchronized (evictable) {
+            if (pinned)
+                evictable.remove(key);
+            else
+                evictable.put(key, player);
+        }
+        if (!pinned && Bukkit.isPrimaryThread()) evict(key);
+    }
+
+    /**
+     * Unloads the least recently used offline players until there are no more than {@link #cacheSize}
+     * of them in memory. Players with changes which are not written yet are saved, and unloaded
+     * once their writes are applied, so that conflicts with other servers can still be merged.
+     *
+     * @param keep The storage key of a player which must stay loaded (as it is being returned), or null
+     */
+    private void evict(String keep) {
+        if (cacheSize < 0) return;
+        synchronized (evictable) {
+            for (Iterator<Entry<String, OfflinePlayer>> iterator = evictable.entrySet().iterator(); evictable.size() > cacheSize && iterator.hasNext(); ) {
+                Entry<String, OfflinePlayer> candidate = iterator.next();
+                if (candidate.getKey().equals(keep)) continue;
+                PlayerEntry entry = players.get(candidate.getKey());
+                if (entry != null) {
+                    if (entry.stats.pollDirty())
+                        queue(new Write(entry, null, serialize(entry.stats), false));
+                    if (entry.pending.get() > 0) continue; // evicted on a later pass
+                }
+                iterator.remove();
+                if (DataProvider.isPinned(candidate.getValue().getUniqueId())) continue; // joined or activated a booster since it was last used
+                if (entry != null)
+                    players.remove(candidate.getKey(), entry);
+            }
+        }
+    }
+
+    /**
+     * Allows the specified player to be evicted, as they are no longer online
+     *
+     * @param player Player to release
+     */
+    @Override
+    public void release(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        if (!players.containsKey(key)) return;
+        synchronized (evictable) {
+            evictable.put(key, player);
+        }
+        evict(null);
+    }
+
+    /**
+     * Saves all modified players, and reloads players which were changed by other servers
+     */
+    private void sync() {
+        evict(null);
+        Map<String, Long> versions = new HashMap<>();
+        players.values().forEach(entry -> {
+            if (entry.stats.pollDirty())
+                queue(new Write(entry, null, serialize(entry.stats), false));
+            else if (entry.pending.get() == 0)
+                versions.put(entry.key, entry.version);
+        });
+        if (versions.isEmpty()) return;
+        readers.execute(() -> {
+            try {
+                List<PlayerEntry> changed = read(connection -> {
+                    List<String> outdated = new ArrayList<>();
+                    for (List<String> keys : partition(new ArrayList<>(versions.keySet()))) {
+                        StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+                        keys.forEach(k -> placeholders.add("?"));
+                        try (PreparedStatement statement = connection.prepareStatement("SELECT player, version FROM spleefx_players WHERE player IN " + placeholders)) {
+                            for (int i = 0; i < keys.size(); i++)
+                                statement.setString(i + 1, keys.get(i));
+                            try (ResultSet result = statement.executeQuery()) {
+                                while (result.next()) {
+                                    Long version = versions.get(result.getString(1));
+                                    if (version != null && result.getLong(2) > version)
+                                        outdated.add(result.getString(1));
+                                }
+                            }
+                        }
+                    }
+                    List<PlayerEntry> reloaded = new ArrayList<>(outdated.size());
+                    for (String key : outdated)
+                        reloaded.add(readPlayer(connection, key, null));
+                    return reloaded;
+                });
+                if (!changed.isEmpty())
+                    Bukkit.getScheduler().runTask(SpleefX.getPlugin(), () -> changed.forEach(this::replace));
+            } catch (DataException e) {
+                SpleefX.logger().warning("Failed to check for player data changed by other servers: " + e.getCause());
+            }
+        });
+    }
+
+    /**
+     * Replaces the cached data of a player with the specified data, which was changed by another server.
+     * Local changes which were not saved yet are merged into the reloaded data, and saved again.
+     *
+     * @param reloaded The data read from the database
+     */
+    private void replace(PlayerEntry reloaded) {
+        PlayerEntry entry = players.get(reloaded.key);
+        if (entry == null || reloaded.version <= entry.version) return;
+        if (entry.pending.get() > 0) { // the local statistics are ahead of the database, so try again once they are written
+            Bukkit.getScheduler().runTaskLater(SpleefX.getPlugin(), () -> reconcile(entry), RECONCILE_DELAY);
+            return;
+        }
+        JsonObject merged = merge(entry.base, serialize(entry.stats), reloaded.base);
+        entry.version = reloaded.version;
+        entry.base = reloaded.base;
+        if (merged.equals(reloaded.base)) {
+            entry.stats.copyFrom(reloaded.stats);
+            return;
+        }
+        entry.stats.copyFrom(Gsons.DEFAULT.fromJson(merged, GameStats.class));
+        queue(new Write(entry, null, merged, false));
+    }
+
+    /**
+     * Reloads the specified player in the background, and merges the local changes into the reloaded data
+     *
+     * @param entry Player to reload
+     */
+    private void reconcile(PlayerEntry entry) {
+        readers.execute(() -> {
+            try {
+                PlayerEntry reloaded = read(connection -> readPlayer(connection, entry.key, null));
+                Bukkit.getScheduler().runTask(SpleefX.getPlugin(), () -> replace(reloaded));
+            } catch (DataException e) {
+                SpleefX.logger().warning("Failed to reload player data changed by another server: " + e.getCause());
+            } catch (IllegalStateException ignored) { // plugin disabled
+            }
+        });
+    }
+
+    /**
+     * Applies the changes between the base and the local data on top of the remote data. Coins and perk amounts
+     * are merged as differences, boosters and custom data are taken from the local data if they were changed
+     * locally, and statistics are always taken from the remote data, as they are written as increments.
+     *
+     * @param base   The data as last saved or loaded by this server
+     * @param local  The current local data
+     * @param remote The data currently in the database
+     * @return The merged data
+     */
+    private static JsonObject merge(JsonObject base, JsonObject local, JsonObject remote) {
+        JsonObject merged = PARSER.parse(remote.toString()).getAsJsonObject();
+        merged.addProperty("coins", getInt(remote, "coins") + getInt(local, "coins") - getInt(base, "coins"));
+        JsonObject basePerks = getObject(base, "perks"), localPerks = getObject(local, "perks"), remotePerks = getObject(remote, "perks");
+        Set<String> keys = new HashSet<>();
+        localPerks.entrySet().forEach(e -> keys.add(e.getKey()));
+        remotePerks.entrySet().forEach(e -> keys.add(e.getKey()));
+        JsonObject perks = new JsonObject();
+        for (String perk : keys) {
+            int amount = getInt(remotePerks, perk) + getInt(localPerks, perk) - getInt(basePerks, perk);
+            if (amount > 0) perks.addProperty(perk, amount);
+        }
+        merged.add("perks", perks);
+        for (String field : new String[]{"boosters", "custom"}) {
+            JsonElement value = local.get(field);
+            if (Objects.equals(value, base.get(field))) continue;
+            if (value == null)
+                merged.remove(field);
+            else
+                merged.add(field, value);
+        }
+        return merged;
+    }
+
+    private static int getInt(JsonObject object, String key) {
+        JsonElement value = object.get(key);
+        return value == null || value.isJsonNull() ? 0 : value.getAsInt();
+    }
+
+    private static JsonObject getObject(JsonObject object, String key) {
+        JsonElement value = object.get(key);
+        return value == null || !value.isJsonObject() ? new JsonObject() : value.getAsJsonObject();
+    }
+
+    private static List<List<String>> partition(List<String> keys) {
+        List<List<String>> partitions = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += VERSION_CHECK_SIZE)
+            partitions.add(keys.subList(i, Math.min(keys.size(), i + VERSION_CHECK_SIZE)));
+        return partitions;
+    }
+
+    private static JsonObject serialize(GameStats stats) {
+        return Gsons.DEFAULT.toJsonTree(stats).getAsJsonObject();
+    }
+
+    private void queue(Write write) {
+        write.entry.pending.incrementAndGet();
+        writes.add(write);
+    }
+
+    /**
+     * Runs the specified task with a pooled connection
+     *
+     * @param task Task to run
+     * @return The task result
+     * @throws DataException If a database error occurs
+     */
+    private <T> T read(SQLFunction<T> task) {
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            return task.apply(connection);
+        } catch (SQLException e) {
+            throw new DataException(e);
+        } finally {
+            if (connection != null) pool.release(connection);
+        }
+    }
+
+    /**
+     * Applies all queued writes until the provider is closed. If a transaction fails, its writes are
+     * retried (together with any writes queued in the meantime). After a few failed attempts, saves of
+     * the player data are dropped and their players are marked as modified, so they are saved again on
+     * the next synchronization. Statistic increments cannot be recreated, so they are kept and retried
+     * until they are written.
+     */
+    private void write() {
+        List<Write> batch = new ArrayList<>();
+        boolean running = true;
+        int attempts = 0;
+        while (running) {
+            try {
+                if (batch.isEmpty())
+                    batch.add(writes.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            writes.drainTo(batch, MAX_BATCH);
+            if (batch.remove(STOP)) running = false;
+            if (batch.isEmpty() || commit(batch)) {
+                batch.clear();
+                attempts = 0;
+                continue;
+            }
+            if (++attempts >= MAX_ATTEMPTS) {
+                int size = batch.size();
+                batch.removeIf(write -> {
+                    if (write.data == null) return false;
+                    write.entry.stats.markDirty();
+                    write.entry.pending.decrementAndGet();
+                    return true;
+                });
+                SpleefX.logger().severe("Dropping " + (size - batch.size()) + " saves after " + attempts + " failed attempts to write them. " +
+                        "Their players will be saved again, and " + batch.size() + " statistic changes will be retried.");
+                attempts = 0;
+            }
+            if (!running) break;
+            try {
+                Thread.sleep(RETRY_DELAY);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Applies the specified writes in a single transaction. Statistic increments to the same
+     * statistic are merged into one.
+     *
+     * @param batch Writes to apply
+     * @return True if the writes were applied, false if the transaction failed
+     */
+    private boolean commit(List<Write> batch) {
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            connection.setAutoCommit(false);
+            Map<StatisticKey, Integer> increments = new LinkedHashMap<>();
+            // the version of each player as of this transaction, updated as the writes are applied
+            Map<PlayerEntry, Long> versions = new HashMap<>();
+            Map<PlayerEntry, JsonObject> bases = new HashMap<>();
+            Set<PlayerEntry> incremented = new LinkedHashSet<>(), saved = new HashSet<>(), overwritten = new HashSet<>(), conflicts = new LinkedHashSet<>();
+            try (PreparedStatement insertPlayer = connection.prepareStatement(INSERT_PLAYER);
+                 PreparedStatement updatePlayer = connection.prepareStatement(UPDATE_PLAYER);
+                 PreparedStatement overwritePlayer = connection.prepareStatement("UPDATE spleefx_players SET coins = ?, custom = ?, version = version + 1 WHERE player = ?");
+                 PreparedStatement setStatistic = connection.prepareStatement(SET_STATISTIC);
+                 PreparedStatement deletePerks = connection.prepareStatement("DELETE FROM spleefx_perks WHERE player = ?");
+                 PreparedStatement perk = connection.prepareStatement("INSERT INTO spleefx_perks (player, perk, amount) VALUES (?, ?, ?)");
+                 PreparedStatement deleteBoosters = connection.prepareStatement("DELETE FROM spleefx_boosters WHERE player = ?");
+                 PreparedStatement booster = connection.prepareStatement("INSERT INTO spleefx_boosters (player, slot, data) VALUES (?, ?, ?)")) {
+                for (Write write : batch) {
+                    PlayerEntry entry = write.entry;
+                    if (write.data == null) {
+                        incremented.add(entry);
+                        increments.merge(new StatisticKey(entry.key, write.extension, write.statistic.name()), write.increment, Integer::sum);
+                        continue;
+                    }
+                    String key = entry.key;
+                    JsonObject json = write.data;
+                    if (write.uuid != null) {
+                        insertPlayer.setString(1, key);
+                        insertPlayer.setString(2, write.uuid.toString());
+                        insertPlayer.executeUpdate();
+                    }
+                    if (write.statistics) { // the whole player is replaced, so the version does not matter
+                        overwritePlayer.setInt(1, getInt(json, "coins"));
+                        overwritePlayer.setString(2, json.has("custom") ? json.get("custom").toString() : null);
+                        overwritePlayer.setString(3, key);
+                        overwritePlayer.executeUpdate();
+                        overwritten.add(entry);
+                    } else {
+                        long version = versions.computeIfAbsent(entry, e -> e.version);
+                        updatePlayer.setInt(1, getInt(json, "coins"));
+                        updatePlayer.setString(2, json.has("custom") ? json.get("custom").toString() : null);
+                        updatePlayer.setString(3, key);
+                        updatePlayer.setLong(4, version);
+                        if (updatePlayer.executeUpdate() == 0) { // changed by another server
+                            conflicts.add(entry);
+                            continue;
+                        }
+                        versions.put(entry, version + 1);
+                        saved.add(entry);
+                    }
+                    bases.put(entry, json);
+                    if (write.statistics) {
+                        if (json.has("global"))
+                            for (Entry<String, JsonElement> value : json.getAsJsonObject("global").entrySet())
+                                addStatistic(setStatistic, key, GLOBAL, value.getKey(), value.getValue().getAsInt());
+                        if (json.has("modes"))
+                            for (Entry<String, JsonElement> mode : json.getAsJsonObject("modes").entrySet())
+                                for (Entry<String, JsonElement> value : mode.getValue().getAsJsonObject().entrySet())
+                                    addStatistic(setStatistic, key, mode.getKey(), value.getKey(), value.getValue().getAsInt());
+                        setStatistic.executeBatch();
+                    }
+                    deletePerks.setString(1, key);
+                    deletePerks.executeUpdate();
+                    if (json.has("perks")) {
+                        for (Entry<String, JsonElement> value : json.getAsJsonObject("perks").entrySet()) {
+                            perk.setString(1, key);
+                            perk.setString(2, value.getKey());
+                            perk.setInt(3, value.getValue().getAsInt());
+                            perk.addBatch();
+                        }
+                        perk.executeBatch();
+                    }
+                    deleteBoosters.setString(1, key);
+                    deleteBoosters.executeUpdate();
+                    if (json.has("boosters")) {
+                        for (Entry<String, JsonElement> value : json.getAsJsonObject("boosters").entrySet()) {
+                            booster.setString(1, key);
+                            booster.setInt(2, Integer.parseInt(value.getKey()));
+                            booster.setString(3, value.getValue().toString());
+                            booster.addBatch();
+                        }
+                        booster.executeBatch();
+                    }
+                }
+            }
+            if (!increments.isEmpty())
+                try (PreparedStatement increment = connection.prepareStatement(INCREMENT_STATISTIC)) {
+                    for (Entry<StatisticKey, Integer> value : increments.entrySet())
+                        addStatistic(increment, value.getKey().player, value.getKey().extension, value.getKey().statistic, value.getValue());
+                    increment.executeBatch();
+                }
+            try (PreparedStatement bump = connection.prepareStatement("UPDATE spleefx_players SET version = version + 1 WHERE player = ? AND version = ?");
+                 PreparedStatement forceBump = connection.prepareStatement("UPDATE spleefx_players SET version = version + 1 WHERE player = ?");
+                 PreparedStatement version = connection.prepareStatement("SELECT version FROM spleefx_players WHERE player = ?")) {
+                for (PlayerEntry entry : incremented) {
+                    if (saved.contains(entry) || overwritten.contains(entry)) continue; // already bumped by a save
+                    if (!conflicts.contains(entry)) {
+                        long expected = entry.version;
+                        bump.setString(1, entry.key);
+                        bump.setLong(2, expected);
+                        if (bump.executeUpdate() == 1) {
+                            versions.put(entry, expected + 1);
+                            continue;
+                        }
+                    }
+                    // the increments apply regardless, but other servers must still see the change
+                    forceBump.setString(1, entry.key);
+                    forceBump.executeUpdate();
+                    conflicts.add(entry);
+                }
+                for (PlayerEntry entry : overwritten) {
+                    version.setString(1, entry.key);
+                    try (ResultSet result = version.executeQuery()) {
+                        if (result.next()) versions.put(entry, result.getLong(1));
+                    }
+                }
+            }
+            connection.commit();
+            versions.forEach((entry, version) -> {
+                if (conflicts.contains(entry)) return; // reloaded below instead
+                entry.version = version;
+                JsonObject base = bases.get(entry);
+                if (base != null) entry.base = base;
+            });
+            batch.forEach(write -> write.entry.pending.decrementAndGet());
+            conflicts.forEach(this::reconcile);
+            return true;
+        } catch (SQLException e) {
+            SpleefX.logger().severe("Failed to write " + batch.size() + " changes to the MySQL database. Error:");
+            e.printStackTrace();
+            if (connection != null)
+                try {
+                    connection.rollback();
+                } catch (SQLException ignored) {
+                }
+            return false;
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+                pool.release(connection);
+            }
+        }
+    }
+
+    private static void addStatistic(PreparedStatement statement, String player, String extension, String statistic, int value) throws SQLException {
+        statement.setString(1, player);
+        statement.setString(2, extension);
+        statement.setString(3, statistic);
+        statement.setInt(4, value);
+        statement.addBatch();
+    }
+
+    /**
+     * Waits for all queued writes to be applied, and closes all connections
+     */
+    private void close() {
+        writes.add(STOP);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        readers.shutdown();
+        pool.close();
+    }
+
+    /**
+     * A cached player
+     */
+    private static class PlayerEntry {
+
+        private final String key;
+        private final GameStats stats;
+
+        /**
+         * The version of the player in the database when it was last read or written by this server
+         */
+        private volatile long version;
+
+        /**
+         * The player data at {@link #version}, which local changes are merged against
+         */
+        private volatile JsonObject base;
+
+        /**
+         * The amount of writes of this player that were not applied yet
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private PlayerEntry(String key, GameStats stats, long version) {
+            this.key = key;
+            this.stats = stats;
+            this.version = version;
+            base = serialize(stats);
+        }
+    }
+
+    /**
+     * A write waiting for the writer thread. A write is either a statistic increment, or a save of all
+     * the player data.
+     */
+    private static class Write {
+
+        private final PlayerEntry entry;
+
+        /**
+         * The serialized player data, or null if this is a statistic increment
+         */
+        private final JsonObject data;
+
+        /**
+         * The player UUID, used to create the player if they are not stored. Can be null.
+         */
+        private final UUID uuid;
+
+        /**
+         * Whether should the statistics in {@link #data} be written as well
+         */
+        private final boolean statistics;
+
+        private final String extension;
+        private final PlayerStatistic statistic;
+        private final int increment;
+
+        private Write(PlayerEntry entry, UUID uuid, JsonObject data, boolean statistics) {
+            this.entry = entry;
+            this.uuid = uuid;
+            this.data = data;
+            this.statistics = statistics;
+            extension = null;
+            statistic = null;
+            increment = 0;
+        }
+
+        private Write(PlayerEntry entry, String extension, PlayerStatistic statistic, int increment) {
+            this.entry = entry;
+            this.extension = extension;
+            this.statistic = statistic;
+            this.increment = increment;
+            uuid = null;
+            data = null;
+            statistics = false;
+        }
+    }
+
+    private static class StatisticKey {
+
+        private final String player, extension, statistic;
+
+        private StatisticKey(String player, String extension, String statistic) {
+            this.player = player;
+            this.extension = extension;
+            this.statistic = statistic;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StatisticKey)) return false;
+            StatisticKey that = (StatisticKey) o;
+            return player.equals(that.player) && extension.equals(that.extension) && statistic.equals(that.statistic);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(player, extension, statistic);
+        }
+    }
+
+    private static class TopPlayers {
+
+        private final List<LeaderboardTopper> players;
+        private final int limit;
+
+        private TopPlayers(List<LeaderboardTopper> players, int limit) {
+            this.players = players;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * The cached result of a query, which is refreshed in the background
+     */
+    private class Query<T> {
+
+        private volatile T value;
+        private volatile long updated = 0;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private boolean isStale() {
+            return System.currentTimeMillis() - updated > QUERY_REFRESH;
+        }
+
+        private void refresh(Supplier<T> query) {
+            if (!refreshing.compareAndSet(false, true)) return;
+            readers.execute(() -> {
+                try {
+                    value = query.get();
+                    updated = System.currentTimeMillis();
+                } catch (DataException e) {
+                    SpleefX.logger().warning("Failed to query the MySQL database: " + e.getCause());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface SQLFunction<T> {
+
+        T apply(Connection connection) throws SQLException;
+
+    }
+}
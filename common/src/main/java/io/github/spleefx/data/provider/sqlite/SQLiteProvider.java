@@ -0,0 +1,924 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.provider.sqlite;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.spleefx.SpleefX;
+import io.github.spleefx.data.*;
+import io.github.spleefx.economy.booster.BoosterInstance;
+import io.github.spleefx.extension.GameExtension;
+import io.github.spleefx.util.game.BukkitExecutors;
+import io.github.spleefx.util.plugin.PluginSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.moltenjson.utils.Gsons;
+
+import java.io.File;
+import java.sql.*;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A data provider which stores player data in a SQLite database.
+ * <p>
+ * Players, statistics, perks and boosters are stored in their own tables, and leaderboards are
+ * computed with indexed queries. Player data is loaded into memory in the background when it is
+ * first requested, and offline players are unloaded once more than the configured cache size are
+ * in memory. All writes are applied by a single writer thread, which groups all writes queued in
+ * the meantime into one transaction, and retries failed transactions. The database runs in WAL
+ * mode, so reads are never blocked by the writer.
+ */
+public class SQLiteProvider implements DataProvider {
+
+    /**
+     * The extension column value of global statistics
+     */
+    private static final String GLOBAL = "";
+
+    /**
+     * The maximum amount of writes applied in a single transaction
+     */
+    private static final int MAX_BATCH = 1024;
+
+    /**
+     * The amount of times a failed transaction is retried before its writes are dropped
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * The time (in milliseconds) to wait before retrying a failed transaction for the first time. The
+     * delay is doubled after every failed attempt.
+     */
+    private static final long RETRY_DELAY = 500;
+
+    /**
+     * The smallest amount of players fetched for a leaderboard, so that consecutive positions are
+     * served from the same query
+     */
+    private static final int MIN_TOP_FETCH = 10;
+
+    /**
+     * The time (in milliseconds) after which a cached leaderboard or rank is queried again
+     */
+    private static final long QUERY_REFRESH = TimeUnit.SECONDS.toMillis(1);
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    /**
+     * Marks the end of the writes queue
+     */
+    private static final Write STOP = new Write(null, null, statements -> {
+    });
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS players (player TEXT PRIMARY KEY, uuid TEXT NOT NULL, coins INTEGER NOT NULL DEFAULT 0, custom TEXT)",
+            "CREATE TABLE IF NOT EXISTS statistics (player TEXT NOT NULL, extension TEXT NOT NULL, statistic TEXT NOT NULL, value INTEGER NOT NULL, PRIMARY KEY (player, extension, statistic))",
+            "CREATE INDEX IF NOT EXISTS statistics_top ON statistics (extension, statistic, value DESC)",
+            "CREATE TABLE IF NOT EXISTS perks (player TEXT NOT NULL, perk TEXT NOT NULL, amount INTEGER NOT NULL, PRIMARY KEY (player, perk))",
+            "CREATE TABLE IF NOT EXISTS boosters (player TEXT NOT NULL, slot INTEGER NOT NULL, data TEXT NOT NULL, PRIMARY KEY (player, slot))"
+    };
+
+    /**
+     * All loaded player statistics, mapped by their storage key
+     */
+    private final Map<String, GameStats> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * All players currently being loaded, mapped by their storage key
+     */
+    private final Map<String, CompletableFuture<GameStats>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * The statistics returned on the main thread for players which are still being loaded
+     */
+    private final Map<String, GameStats> placeholders = new ConcurrentHashMap<>();
+
+    /**
+     * The UUIDs of players whose first save failed, so that their next save inserts them
+     */
+    private final Map<String, UUID> inserts = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum amount of offline players to keep in memory
+     */
+    private final int cacheSize = DataProvider.getCacheSize();
+
+    /**
+     * Offline players which have their statistics in memory, ordered from the least recently used.
+     * Pinned players (see {@link DataProvider#isPinned(UUID)}) are never in this map, so their statistics are never evicted.
+     */
+    private final LinkedHashMap<String, OfflinePlayer> evictable = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * All writes waiting for the writer thread
+     */
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+
+    /**
+     * Recently requested leaderboards, mapped by the statistic and extension
+     */
+    private final Cache<String, Query<TopPlayers>> leaderboards = CacheBuilder.newBuilder()
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * Recently requested ranks, mapped by the player, statistic and extension
+     */
+    private final Cache<String, Query<Integer>> ranks = CacheBuilder.newBuilder()
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * The connection used for reading. Access must be synchronized on it.
+     */
+    private final Connection reader;
+
+    /**
+     * The connection used by the writer thread
+     */
+    private final Connection writerConnection;
+
+    /**
+     * The connection used by the query thread, so that leaderboards never wait for players being loaded
+     */
+    private final Connection queryConnection;
+
+    /**
+     * The thread which runs all reads of player data
+     */
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "SpleefX SQLite Reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The thread which runs all leaderboard and rank queries
+     */
+    private final ExecutorService queries = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "SpleefX SQLite Leaderboards");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The thread which applies all writes
+     */
+    private final Thread writer;
+
+    public SQLiteProvider() {
+        File file = new File(SpleefX.getPlugin().getDataFolder(), PluginSettings.SQLITE_FILE_NAME.get());
+        try {
+            Class.forName("org.sqlite.JDBC");
+            writerConnection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement statement = writerConnection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                for (String table : SCHEMA)
+                    statement.execute(table);
+            }
+            writerConnection.setAutoCommit(false);
+            reader = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            queryConnection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new DataException(e);
+        }
+        writer = new Thread(this::write, "SpleefX SQLite Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns whether the player has an entry in the storage or not. On the main thread, only players
+     * which are already loaded are reported, as the database is never queried there.
+     *
+     * @param player Player to check for
+     * @return {@code true} if the player is stored, false if otherwise.
+     */
+    @Override
+    public boolean hasEntry(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        if (statistics.containsKey(key)) return true;
+        if (Bukkit.isPrimaryThread()) return false;
+        synchronized (reader) {
+            try (PreparedStatement statement = reader.prepareStatement("SELECT 1 FROM players WHERE player = ?")) {
+                statement.setString(1, key);
+                try (ResultSet result = statement.executeQuery()) {
+                    return result.next();
+                }
+            } catch (SQLException e) {
+                throw new DataException(e);
+            }
+        }
+    }
+
+    /**
+     * Adds the player to the data entries
+     *
+     * @param player Player to add
+     */
+    @Override
+    public void add(OfflinePlayer player) {
+        getStatistics(player);
+    }
+
+    /**
+     * Retrieves the player's statistics from the specified extension
+     *
+     * @param stat   Statistic to retrieve
+     * @param player Player to retrieve from
+     * @param mode   The mode. Set to {@code null} to get global statistics
+     * @return The statistic
+     */
+    @Override
+    public int get(PlayerStatistic stat, OfflinePlayer player, GameExtension mode) {
+        return getStatistics(player).get(stat, mode);
+    }
+
+    /**
+     * Adds the specified amount to the statistic. The new values are written right away, so that
+     * leaderboards stay current.
+     *
+     * @param stat      Statistic to add to
+     * @param player    Player to add for
+     * @param mode      Mode to add for
+     * @param increment Value to add
+     */
+    @Override
+    public void add(PlayerStatistic stat, OfflinePlayer player, GameExtension mode, int increment) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        GameStats stats = statistics.get(key);
+        if (stats == null) { // applied in order once the player is loaded
+            load(player, key).whenComplete((loaded, error) -> {
+                if (error != null)
+                    SpleefX.logger().severe("Failed to load the data of " + player.getName() + ", dropping " + increment + " " + stat + ": " + error);
+                else
+                    BukkitExecutors.MAIN.execute(() -> add(key, loaded, stat, mode, increment));
+            });
+            return;
+        }
+        add(key, stats, stat, mode, increment);
+    }
+
+    private void add(String key, GameStats stats, PlayerStatistic stat, GameExtension mode, int increment) {
+        stats.add(stat, mode, increment);
+        int global = stats.get(stat, null);
+        writes.add(new Write(key, stats, statements -> statements.statistic(key, GLOBAL, stat.name(), global)));
+        if (mode != null) {
+            String extension = mode.getKey();
+            int value = stats.get(stat, mode);
+            writes.add(new Write(key, stats, statements -> statements.statistic(key, extension, stat.name(), value)));
+        }
+    }
+
+    /**
+     * Saves all the entries of the data
+     *
+     * @param plugin Plugin instance
+     */
+    @Override
+    public void saveEntries(SpleefX plugin) {
+        statistics.forEach((key, stats) -> {
+            if (stats.pollDirty())
+                queueSave(key, null, stats);
+        });
+        if (!plugin.isEnabled())
+            close();
+    }
+
+    /**
+     * Sets the player statistics entirely. Useful for converting between different {@link DataProvider}
+     * implementations.
+     *
+     * @param player Player to convert
+     * @param stats  Stats to override with
+     */
+    @Override
+    public void setStatistics(OfflinePlayer player, GameStats stats) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        statistics.put(key, stats);
+        stats.pollDirty();
+        queueSave(key, player.getUniqueId(), stats);
+        touch(player, key);
+    }
+
+    /**
+     * Returns the top n players in the specified statistic
+     *
+     * @param statistic Statistic to get from
+     */
+    @Override
+    public List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension) {
+        return getTopPlayers(statistic, extension, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the top players in the specified statistic, from the highest to the lowest. Leaderboards
+     * are queried in the background, so the returned list may be a second old, and is empty until the
+     * leaderboard is first loaded.
+     *
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @param limit     The maximum amount of players to return
+     * @return The top players
+     */
+    @Override
+    public List<LeaderboardTopper> getTopPlayers(PlayerStatistic statistic, GameExtension extension, int limit) {
+        String extensionKey = extension == null ? GLOBAL : extension.getKey();
+        Query<TopPlayers> query = leaderboards.asMap().computeIfAbsent(statistic.name() + ":" + extensionKey, k -> new Query<>());
+        TopPlayers top = query.value;
+        boolean tooShort = top != null && top.players.size() >= top.limit && top.limit < limit;
+        if (tooShort || query.isStale()) {
+            int fetch = Math.max(Math.max(limit, MIN_TOP_FETCH), top == null ? 0 : top.limit);
+            query.refresh(() -> queryTop(statistic.name(), extensionKey, fetch));
+        }
+        if (top == null) return Collections.emptyList();
+        return limit >= top.players.size() ? top.players : top.players.subList(0, limit);
+    }
+
+    /**
+     * Queries the top players of the specified statistic. This is only invoked by the query thread.
+     */
+    private TopPlayers queryTop(String statistic, String extension, int limit) throws SQLException {
+        try (PreparedStatement statement = queryConnection.prepareStatement("SELECT p.uuid, s.value FROM statistics s JOIN players p ON p.player = s.player " +
+                "WHERE s.extension = ? AND s.statistic = ? ORDER BY s.value DESC LIMIT ?")) {
+            statement.setString(1, extension);
+            statement.setString(2, statistic);
+            statement.setInt(3, limit);
+            List<LeaderboardTopper> players = new ArrayList<>(Math.min(limit, 100));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next())
+                    players.add(new LeaderboardTopper(UUID.fromString(result.getString(1)), result.getInt(2)));
+            }
+            return new TopPlayers(Collections.unmodifiableList(players), limit);
+        }
+    }
+
+    /**
+     * Returns the rank of the player in the specified statistic. Players with the same score share
+     * the same rank. Ranks are queried in the background, and may be a second old.
+     * <p>
+     * The score of players which are loaded is taken from memory, as it may not be written yet. The
+     * score of other players is read along with their rank, and is never loaded for it.
+     *
+     * @param player    Player to get for
+     * @param statistic Statistic to get from
+     * @param extension Extension to get from. Set to {@code null} to get global statistics
+     * @return The rank of the player starting from 1, or -1 if it is not loaded yet
+     */
+    @Override
+    public int getRank(OfflinePlayer player, PlayerStatistic statistic, GameExtension extension) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        String extensionKey = extension == null ? GLOBAL : extension.getKey();
+        Query<Integer> query = ranks.asMap().computeIfAbsent(key + ":" + statistic.name() + ":" + extensionKey, k -> new Query<>());
+        if (query.isStale()) {
+            GameStats stats = statistics.get(key);
+            Integer score = stats == null ? null : stats.get(statistic, extension);
+            query.refresh(() -> queryRank(key, statistic.name(), extensionKey, score));
+        }
+        Integer rank = query.value;
+        return rank == null ? -1 : rank;
+    }
+
+    /**
+     * Queries the rank of the specified score. This is only invoked by the query thread.
+     *
+     * @param key   The player storage key
+     * @param score The score of the player, or null to read it from the database
+     */
+    private int queryRank(String key, String statistic, String extension, Integer score) throws SQLException {
+        String value = score != null ? "?" : "COALESCE((SELECT value FROM statistics WHERE player = ? AND extension = ? AND statistic = ?), 0)";
+        try (PreparedStatement statement = queryConnection.prepareStatement("SELECT COUNT(*) FROM statistics WHERE extension = ? AND statistic = ? AND value > " + value)) {
+            statement.setString(1, extension);
+            statement.setString(2, statistic);
+            if (score != null)
+                statement.setInt(3, score);
+            else {
+                statement.setString(3, key);
+                statement.setString(4, extension);
+                statement.setString(5, statistic);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getInt(1) + 1 : -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of the specified player. If the player is not loaded, this waits until
+     * the player is loaded, unless called from the main thread. There, the player is loaded in the
+     * background, and a placeholder is returned in the meantime. Coins, perks, boosters and custom
+     * data added to the placeholder are added to the player once loaded.
+     *
+     * @param player Player to retrieve from
+     * @return The player's statistics
+     */
+    @Override
+    public GameStats getStatistics(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        GameStats stats = statistics.get(key);
+        if (stats == null) {
+            CompletableFuture<GameStats> future = load(player, key);
+            if (Bukkit.isPrimaryThread())
+                return placeholders.computeIfAbsent(key, k -> {
+                    future.whenComplete((loaded, error) -> BukkitExecutors.MAIN.execute(() -> {
+                        GameStats placeholder = placeholders.remove(k);
+                        if (error != null)
+                            SpleefX.logger().warning("Failed to load the data of " + player.getName() + ": " + error);
+                        else if (placeholder != null && placeholder.pollDirty())
+                            adopt(loaded, placeholder);
+                    }));
+                    return new GameStats();
+                });
+            stats = future.join();
+        }
+        touch(player, key);
+        return stats;
+    }
+
+    /**
+     * Adds the changes made to a placeholder to the loaded player
+     *
+     * @param stats       The loaded player statistics
+     * @param placeholder The placeholder returned while the player was loading
+     */
+    private static void adopt(GameStats stats, GameStats placeholder) {
+        stats.onCoins(coins -> coins + placeholder.coins);
+        placeholder.getPerks().forEach((perk, amount) -> stats.getPerks().merge(perk, amount, Integer::sum));
+        for (BoosterInstance booster : placeholder.getBoosters().values())
+            stats.getBoosters().put(stats.getBoosters().size() + 1, booster);
+        stats.getCustomDataMap().putAll(placeholder.getCustomDataMap());
+        stats.markDirty();
+    }
+
+    /**
+     * Returns the statistics of the specified player, loading them from the database in the background
+     * if they are not loaded already
+     *
+     * @param player Player to retrieve from
+     * @return A future of the player's statistics, completed on the main thread
+     */
+    @Override
+    public CompletableFuture<GameStats> getStatisticsAsync(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        GameStats stats = statistics.get(key);
+        if (stats != null) return CompletableFuture.completedFuture(stats);
+        return load(player, key).thenApplyAsync(Function.identity(), BukkitExecutors.MAIN);
+    }
+
+    /**
+     * Loads the specified player in the background, if the player is not loaded or being loaded already.
+     * Players which are not stored yet are created.
+     *
+     * @param player Player to load
+     * @param key    The player storage key
+     * @return A future of the player statistics
+     */
+    private CompletableFuture<GameStats> load(OfflinePlayer player, String key) {
+        CompletableFuture<GameStats> future = new CompletableFuture<>();
+        CompletableFuture<GameStats> existing = loading.putIfAbsent(key, future);
+        if (existing != null) return existing;
+        GameStats loaded = statistics.get(key);
+        if (loaded != null) {
+            loading.remove(key, future);
+            future.complete(loaded);
+            return future;
+        }
+        loader.execute(() -> {
+            try {
+                GameStats stats = read(key);
+                boolean created = stats == null;
+                if (created) stats = new GameStats();
+                GameStats previous = statistics.putIfAbsent(key, stats);
+                if (previous == null) {
+                    if (created) queueSave(key, player.getUniqueId(), stats);
+                    touch(player, key);
+                }
+                future.complete(previous == null ? stats : previous);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                loading.remove(key, future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Marks the statistics of the specified player as recently used. Offline players become eligible
+     * for eviction, while pinned players are kept in memory.
+     *
+     * @param player Player to mark
+     * @param key    The player storage key
+     */
+    private void touch(OfflinePlayer player, String key) {
+        boolean pinned = player.isOnline() || DataProvider.isPinned(player.getUniqueId());
+        synchronized (evictable) {
+            if (pinned)
+                evictable.remove(key);
+            else
+                evictable.put(key, player);
+        }
+        if (!pinned && Bukkit.isPrimaryThread()) evict(key);
+    }
+
+    /**
+     * Unloads the least recently used offline players until there are no more than {@link #cacheSize}
+     * of them in memory. Modified statistics are saved before being unloaded.
+     *
+     * @param keep The storage key of a player which must stay loaded (as it is being returned), or null
+     */
+    private void evict(String keep) {
+        if (cacheSize < 0) return;
+        synchronized (evictable) {
+            for (Iterator<Entry<String, OfflinePlayer>> iterator = evictable.entrySet().iterator(); evictable.size() > cacheSize && iterator.hasNext(); ) {
+                Entry<String, OfflinePlayer> entry = iterator.next();
+                if (entry.getKey().equals(keep)) continue;
+                iterator.remove();
+                if (DataProvider.isPinned(entry.getValue().getUniqueId())) continue; // joined or activated a booster since it was last used
+                GameStats stats = statistics.remove(entry.getKey());
+                if (stats != null && stats.pollDirty())
+                    queueSave(entry.getKey(), null, stats);
+            }
+        }
+    }
+
+    /**
+     * Allows the statistics of the specified player to be evicted, as they are no longer online
+     *
+     * @param player Player to release
+     */
+    @Override
+    public void release(OfflinePlayer player) {
+        String key = DataProvider.getStoringStrategy().apply(player);
+        if (!statistics.containsKey(key)) return;
+        synchronized (evictable) {
+            evictable.put(key, player);
+        }
+        evict(null);
+    }
+
+    /**
+     * Reads the statistics of the specified player from the database
+     *
+     * @param key The player storage key
+     * @return The player statistics, or null if the player is not stored
+     */
+    private GameStats read(String key) {
+        JsonObject json = new JsonObject();
+        synchronized (reader) {
+            try {
+                try (PreparedStatement statement = reader.prepareStatement("SELECT coins, custom FROM players WHERE player = ?")) {
+                    statement.setString(1, key);
+                    try (ResultSet result = statement.executeQuery()) {
+                        if (!result.next()) return null;
+                        json.addProperty("coins", result.getInt(1));
+                        String custom = result.getString(2);
+                        if (custom != null)
+                            json.add("custom", PARSER.parse(custom));
+                    }
+                }
+                JsonObject global = new JsonObject();
+                JsonObject modes = new JsonObject();
+                try (PreparedStatement statement = reader.prepareStatement("SELECT extension, statistic, value FROM statistics WHERE player = ?")) {
+                    statement.setString(1, key);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            String extension = result.getString(1);
+                            JsonObject target = global;
+                            if (!extension.equals(GLOBAL)) {
+                                if (!modes.has(extension))
+                                    modes.add(extension, new JsonObject());
+                                target = modes.getAsJsonObject(extension);
+                            }
+                            target.addProperty(result.getString(2), result.getInt(3));
+                        }
+                    }
+                }
+                json.add("global", global);
+                json.add("modes", modes);
+                JsonObject perks = new JsonObject();
+                try (PreparedStatement statement = reader.prepareStatement("SELECT perk, amount FROM perks WHERE player = ?")) {
+                    statement.setString(1, key);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next())
+                            perks.addProperty(result.getString(1), result.getInt(2));
+                    }
+                }
+                json.add("perks", perks);
+                JsonObject boosters = new JsonObject();
+                try (PreparedStatement statement = reader.prepareStatement("SELECT slot, data FROM boosters WHERE player = ?")) {
+                    statement.setString(1, key);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next())
+                            boosters.add(Integer.toString(result.getInt(1)), PARSER.parse(result.getString(2)));
+                    }
+                }
+                json.add("boosters", boosters);
+            } catch (SQLException e) {
+                throw new DataException(e);
+            }
+        }
+        return Gsons.DEFAULT.fromJson(json, GameStats.class);
+    }
+
+    /**
+     * Queues a write of all the data of the specified player. The data is serialized on the calling thread.
+     *
+     * @param key   The player storage key
+     * @param uuid  The player UUID. Can be null if the player is already stored.
+     * @param stats The player statistics
+     */
+    private void queueSave(String key, UUID uuid, GameStats stats) {
+        UUID insert = uuid == null ? inserts.remove(key) : uuid;
+        JsonObject json = Gsons.DEFAULT.toJsonTree(stats).getAsJsonObject();
+        writes.add(new Write(key, stats, insert, statements -> statements.player(key, insert, json)));
+    }
+
+    /**
+     * Applies all queued writes until the provider is closed. If a transaction fails, its writes are
+     * retried (together with any writes queued in the meantime) after a growing delay. After a few
+     * failed attempts, the writes are dropped and their players are marked as modified, so that they
+     * are saved again as a whole.
+     */
+    private void write() {
+        Statements statements;
+        try {
+            statements = new Statements(writerConnection);
+        } catch (SQLException e) {
+            SpleefX.logger().severe("Failed to prepare SQLite statements. Player data will not be saved! Error:");
+            e.printStackTrace();
+            return;
+        }
+        List<Write> batch = new ArrayList<>();
+        boolean running = true;
+        int attempts = 0;
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty())
+                    batch.add(writes.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            writes.drainTo(batch, MAX_BATCH - batch.size());
+            if (batch.remove(STOP)) running = false;
+            if (batch.isEmpty() || commit(statements, batch)) {
+                batch.clear();
+                attempts = 0;
+                continue;
+            }
+            long delay = RETRY_DELAY << attempts;
+            if (++attempts >= MAX_ATTEMPTS) {
+                SpleefX.logger().severe("Dropping " + batch.size() + " changes after " + attempts + " failed attempts to write them. " +
+                        "Their players will be saved again.");
+                rewrite(batch);
+                batch.clear();
+                attempts = 0;
+                if (!running) break;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        try {
+            statements.close();
+            writerConnection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Applies the specified writes in a single transaction
+     *
+     * @param statements The writer statements
+     * @param batch      Writes to apply
+     * @return True if the writes were applied, false if the transaction failed
+     */
+    private boolean commit(Statements statements, List<Write> batch) {
+        try {
+            for (Write write : batch)
+                write.action.apply(statements);
+            writerConnection.commit();
+            return true;
+        } catch (SQLException e) {
+            SpleefX.logger().severe("Failed to write " + batch.size() + " changes to the SQLite database. Error:");
+            e.printStackTrace();
+            try {
+                writerConnection.rollback();
+            } catch (SQLException ignored) {
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Makes sure the players of the specified dropped writes are saved again as a whole. Loaded players
+     * are marked as modified, while players which were unloaded in the meantime are saved right away.
+     *
+     * @param dropped The dropped writes
+     */
+    private void rewrite(List<Write> dropped) {
+        for (Write write : dropped)
+            if (write.uuid != null) inserts.put(write.key, write.uuid);
+        Set<GameStats> rewritten = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Write write : dropped) {
+            if (!rewritten.add(write.stats)) continue;
+            if (statistics.get(write.key) == write.stats)
+                write.stats.markDirty();
+            else
+                queueSave(write.key, null, write.stats);
+        }
+    }
+
+    /**
+     * Waits for all queued writes to be applied, and closes the database
+     */
+    private void close() {
+        writes.add(STOP);
+        loader.shutdown();
+        queries.shutdown();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            synchronized (reader) {
+                reader.close();
+            }
+            if (queries.awaitTermination(5, TimeUnit.SECONDS))
+                queryConnection.close();
+        } catch (InterruptedException | SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Represents a change applied by the writer thread
+     */
+    @FunctionalInterface
+    private interface Action {
+
+        void apply(Statements statements) throws SQLException;
+
+    }
+
+    /**
+     * Represents a write applied by the writer thread, along with the player it belongs to
+     */
+    private static class Write {
+
+        private final String key;
+        private final GameStats stats;
+        private final UUID uuid;
+        private final Action action;
+
+        private Write(String key, GameStats stats, Action action) {
+            this(key, stats, null, action);
+        }
+
+        private Write(String key, GameStats stats, UUID uuid, Action action) {
+            this.key = key;
+            this.stats = stats;
+            this.uuid = uuid;
+            this.action = action;
+        }
+    }
+
+    /**
+     * The prepared statements of the writer thread
+     */
+    private static class Statements {
+
+        private final PreparedStatement insertPlayer, updatePlayer, statistic, deletePerks, perk, deleteBoosters, booster;
+
+        private Statements(Connection connection) throws SQLException {
+            insertPlayer = connection.prepareStatement("INSERT OR REPLACE INTO players (coins, custom, player, uuid) VALUES (?, ?, ?, ?)");
+            updatePlayer = connection.prepareStatement("UPDATE players SET coins = ?, custom = ? WHERE player = ?");
+            statistic = connection.prepareStatement("INSERT OR REPLACE INTO statistics (player, extension, statistic, value) VALUES (?, ?, ?, ?)");
+            deletePerks = connection.prepareStatement("DELETE FROM perks WHERE player = ?");
+            perk = connection.prepareStatement("INSERT OR REPLACE INTO perks (player, perk, amount) VALUES (?, ?, ?)");
+            deleteBoosters = connection.prepareStatement("DELETE FROM boosters WHERE player = ?");
+            booster = connection.prepareStatement("INSERT OR REPLACE INTO boosters (player, slot, data) VALUES (?, ?, ?)");
+        }
+
+        private void statistic(String key, String extension, String statistic, int value) throws SQLException {
+            this.statistic.setString(1, key);
+            this.statistic.setString(2, extension);
+            this.statistic.setString(3, statistic);
+            this.statistic.setInt(4, value);
+            this.statistic.executeUpdate();
+        }
+
+        private void player(String key, UUID uuid, JsonObject json) throws SQLException {
+            PreparedStatement player = uuid == null ? updatePlayer : insertPlayer;
+            player.setInt(1, json.has("coins") ? json.get("coins").getAsInt() : 0);
+            player.setString(2, json.has("custom") ? json.get("custom").toString() : null);
+            player.setString(3, key);
+            if (uuid != null)
+                player.setString(4, uuid.toString());
+            player.executeUpdate();
+            if (json.has("global"))
+                for (Entry<String, JsonElement> value : json.getAsJsonObject("global").entrySet())
+                    statistic(key, GLOBAL, value.getKey(), value.getValue().getAsInt());
+            if (json.has("modes"))
+                for (Entry<String, JsonElement> mode : json.getAsJsonObject("modes").entrySet())
+                    for (Entry<String, JsonElement> value : mode.getValue().getAsJsonObject().entrySet())
+                        statistic(key, mode.getKey(), value.getKey(), value.getValue().getAsInt());
+            deletePerks.setString(1, key);
+            deletePerks.executeUpdate();
+            if (json.has("perks"))
+                for (Entry<String, JsonElement> value : json.getAsJsonObject("perks").entrySet()) {
+                    perk.setString(1, key);
+                    perk.setString(2, value.getKey());
+                    perk.setInt(3, value.getValue().getAsInt());
+                    perk.executeUpdate();
+                }
+            deleteBoosters.setString(1, key);
+            deleteBoosters.executeUpdate();
+            if (json.has("boosters"))
+                for (Entry<String, JsonElement> value : json.getAsJsonObject("boosters").entrySet()) {
+                    booster.setString(1, key);
+                    booster.setInt(2, Integer.parseInt(value.getKey()));
+                    booster.setString(3, value.getValue().toString());
+                    booster.executeUpdate();
+                }
+        }
+
+        private void close() throws SQLException {
+            for (PreparedStatement statement : new PreparedStatement[]{insertPlayer, updatePlayer, statistic, deletePerks, perk, deleteBoosters, booster})
+                statement.close();
+        }
+    }
+
+    /**
+     * A cached query result, refreshed in the background by the query thread
+     *
+     * @param <T> The result type
+     */
+    private class Query<T> {
+
+        private volatile T value;
+        private volatile long updated = 0;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private boolean isStale() {
+            return System.currentTimeMillis() - updated > QUERY_REFRESH;
+        }
+
+        private void refresh(SQLSupplier<T> query) {
+            if (!refreshing.compareAndSet(false, true)) return;
+            try {
+                queries.execute(() -> {
+                    try {
+                        value = query.get();
+                        updated = System.currentTimeMillis();
+                    } catch (SQLException e) {
+                        SpleefX.logger().warning("Failed to query the SQLite database: " + e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) { // closed
+                refreshing.set(false);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SQLSupplier<T> {
+
+        T get() throws SQLException;
+
+    }
+
+    private static class TopPlayers {
+
+        private final List<LeaderboardTopper> players;
+        private final int limit;
+
+        private TopPlayers(List<LeaderboardTopper> players, int limit) {
+            this.players = players;
+            this.limit = limit;
+        }
+    }
+}
@@ -22,10 +22,13 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A utility for handling all active boosters
@@ -33,9 +36,10 @@ import java.util.Map.Entry;
 public class BoosterConsumer {
 
     /**
-     * A map of all active boosters
+     * The slots of all active boosters, mapped by their owner. Boosters are looked up by their slot every
+     * time they are consumed, as the statistics which hold them may be unloaded and read again meanwhile.
      */
-    private Map<BoosterInstance, Long> activeBoosters = new HashMap<>();
+    private final Map<UUID, Set<Integer>> activeBoosters = new ConcurrentHashMap<>();
 
     /**
      * The consuming task
@@ -45,49 +49,87 @@ public class BoosterConsumer {
     /**
      * Registers the booster to be consumed
      *
+     * @param player  Owner of the booster
      * @param booster Booster to consume
      */
     public void consumeBooster(OfflinePlayer player, BoosterInstance booster) {
-        activeBoosters.put(booster, booster.getDuration());
         GameStats s = SpleefX.getPlugin().getDataProvider().getStatistics(player);
-        SpleefX.getActiveBoosterLoader().getActiveBoostersMap().put(booster.getOwner(), s.getBoosters().size());
+        int slot = slotOf(s, booster);
+        if (slot == -1) return; // not owned by the player
+        activeBoosters.computeIfAbsent(player.getUniqueId(), k -> new HashSet<>()).add(slot);
+        s.markDirty(); // the booster state is saved with the statistics
+        SpleefX.getActiveBoosterLoader().getActiveBoostersMap().put(player.getUniqueId(), slot);
     }
 
     /**
      * Stops the booster from being consumed
      *
+     * @param owner   UUID of the booster owner
      * @param booster Booster to pause
      */
-    public void pauseBooster(BoosterInstance booster) {
-        activeBoosters.remove(booster);
+    public void pauseBooster(UUID owner, BoosterInstance booster) {
+        Set<Integer> slots = activeBoosters.get(owner);
+        if (slots == null) return;
+        int slot = slotOf(SpleefX.getPlugin().getDataProvider().getStatistics(Bukkit.getOfflinePlayer(owner)), booster);
+        slots.remove(slot);
+        if (slots.isEmpty()) activeBoosters.remove(owner);
+        SpleefX.getActiveBoosterLoader().getActiveBoostersMap().remove(owner, slot);
+    }
+
+    /**
+     * Returns whether the specified player has boosters being consumed. The statistics of such
+     * players are read every second, so they should be kept in memory even if they are offline.
+     *
+     * @param owner UUID of the player
+     * @return {@code true} if the player has active boosters
+     */
+    public boolean isConsuming(UUID owner) {
+        return activeBoosters.containsKey(owner);
     }
 
     /**
      * Consumes from all the active boosters
      */
     public void consume() {
-        for (Iterator<Entry<BoosterInstance, Long>> iterator = activeBoosters.entrySet().iterator(); iterator.hasNext(); ) {
-            Entry<BoosterInstance, Long> boosterInstanceLongEntry = iterator.next();
-            boosterInstanceLongEntry.getKey().reduce();
-            if (boosterInstanceLongEntry.setValue(boosterInstanceLongEntry.getValue() - 1) <= 0) {
-                iterator.remove();
-                OfflinePlayer player = Bukkit.getOfflinePlayer(boosterInstanceLongEntry.getKey().getOwner());
-                GameStats stats = SpleefX.getPlugin().getDataProvider().getStatistics(player);
-                int boosterId = 0;
-                for (Iterator<Entry<Integer, BoosterInstance>> iter = stats.getBoosters().entrySet().iterator(); iter.hasNext(); ) {
-                    Entry<Integer, BoosterInstance> entry = iter.next();
-                    Integer id = entry.getKey();
-                    BoosterInstance booster = entry.getValue();
-                    if (booster.equals(boosterInstanceLongEntry.getKey())) {
-                        boosterId = id;
-                        iter.remove();
-                    }
+        for (Iterator<Entry<UUID, Set<Integer>>> iterator = activeBoosters.entrySet().iterator(); iterator.hasNext(); ) {
+            Entry<UUID, Set<Integer>> entry = iterator.next();
+            OfflinePlayer player = Bukkit.getOfflinePlayer(entry.getKey());
+            GameStats stats = SpleefX.getPlugin().getDataProvider().getStatistics(player);
+            for (Iterator<Integer> slots = entry.getValue().iterator(); slots.hasNext(); ) {
+                Integer slot = slots.next();
+                BoosterInstance booster = stats.getBoosters().get(slot);
+                if (booster == null || !booster.isActive()) { // removed or paused since
+                    slots.remove();
+                    continue;
+                }
+                booster.reduce();
+                if (booster.getDuration() <= 0) {
+                    slots.remove();
+                    stats.getBoosters().remove(slot);
+                    SpleefX.getActiveBoosterLoader().getActiveBoostersMap().remove(player.getUniqueId(), slot);
                 }
-                SpleefX.getActiveBoosterLoader().getActiveBoostersMap().remove(player.getUniqueId(), boosterId);
+            }
+            stats.markDirty(); // the remaining duration is saved with the statistics
+            if (entry.getValue().isEmpty()) {
+                iterator.remove();
+                if (!player.isOnline()) // no longer kept in memory for the boosters
+                    SpleefX.getPlugin().getDataProvider().release(player);
             }
         }
     }
 
+    /**
+     * Returns the slot of the specified booster in the player's statistics
+     *
+     * @param stats   Statistics of the booster owner
+     * @param booster Booster to look for
+     * @return The slot, or -1 if the statistics do not have the booster
+     */
+    private static int slotOf(GameStats stats, BoosterInstance booster) {
+        for (Entry<Integer, BoosterInstance> entry : stats.getBoosters().entrySet())
+            if (entry.getValue() == booster) return entry.getKey();
+        return -1;
+    }
     /**
      * Starts the consuming task
      *
@@ -18,6 +18,7 @@ package io.github.spleefx.economy.booster;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.JsonAdapter;
 import io.github.spleefx.SpleefX;
+import io.github.spleefx.data.GameStats;
 import io.github.spleefx.economy.booster.BoosterFactory.FactoryStringAdapter;
 import io.github.spleefx.util.message.message.Message;
 import io.github.spleefx.util.plugin.Duration;
@@ -102,10 +103,12 @@ public class BoosterInstance {
     }
 
     public void pause() {
-        SpleefX.getPlugin().getBoosterConsumer().pauseBooster(this);
+        SpleefX.getPlugin().getBoosterConsumer().pauseBooster(owner, this);
         state = BoosterState.PAUSED;
         OfflinePlayer pl = Bukkit.getOfflinePlayer(owner);
-        SpleefX.getPlugin().getDataProvider().getStatistics(pl).getActiveBoosters().remove(this);
+        GameStats stats = SpleefX.getPlugin().getDataProvider().getStatistics(pl);
+        stats.getActiveBoosters().remove(this);
+        stats.markDirty();
         SpleefX.getActiveBoosterLoader().getActiveBoosters().remove(pl, this);
     }
 
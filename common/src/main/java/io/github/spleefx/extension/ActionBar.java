@@ -49,7 +49,7 @@ public class ActionBar {
 
     public void display(Player player, Player spec) {
         if (!enabled) return;
-        CompatibilityHandler.getProtocol().displayActionBar(player, PlaceholderUtil.all(text, spec));
+        CompatibilityHandler.getProtocol().displayActionBar(player, PlaceholderUtil.cached(text, spec));
     }
 
 }
@@ -59,7 +59,7 @@ public class ExtensionTitle {
     public void display(Player player, Player target) {
         try {
             if (enabled)
-                CompatibilityHandler.getProtocol().displayTitle(player, PlaceholderUtil.all(title, target), PlaceholderUtil.all(subtitle, target), fadeInTicks, displayTicks, fadeOutTicks);
+                CompatibilityHandler.getProtocol().displayTitle(player, PlaceholderUtil.cached(title, target), PlaceholderUtil.cached(subtitle, target), fadeInTicks, displayTicks, fadeOutTicks);
         } catch (Throwable ignored) {
         }
     }
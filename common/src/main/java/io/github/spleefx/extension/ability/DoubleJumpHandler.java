@@ -107,6 +107,7 @@ public class DoubleJumpHandler implements Listener {
             PlayerDoubleJumpEvent event = new PlayerDoubleJumpEvent(player, v, arena);
             Bukkit.getPluginManager().callEvent(event);
             if (event.isCancelled()) return;
+            SpleefX.getPlugin().getScoreboardTicker().markDirty(player.getUniqueId());
             player.setVelocity(arena.getExtension().getDoubleJumpSettings().getLaunchVelocity().getVector(player));
             if (!ap.isSpectating())
                 player.setAllowFlight(false);
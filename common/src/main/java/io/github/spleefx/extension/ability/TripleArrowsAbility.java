@@ -87,6 +87,7 @@ public class TripleArrowsAbility implements Listener {
         }
         delayExecutor.setDelay(player, GameAbility.TRIPLE_ARROWS, new DelayData(EXTENSION.getTripleArrows().getCooldown()));
         GameAbility.TRIPLE_ARROWS.reduceAbility(arena.getEngine().getAbilityCount().get(player.getUniqueId()));
+        SpleefX.getPlugin().getScoreboardTicker().markDirty(player.getUniqueId());
     }
 
     public static class Settings {
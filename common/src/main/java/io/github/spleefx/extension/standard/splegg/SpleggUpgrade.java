@@ -94,6 +94,7 @@ public class SpleggUpgrade {
 
     public boolean purchase(ArenaPlayer player) {
         GameStats stats = player.getStats();
+        stats.markDirty();
         List<String> purchased = (List<String>) stats.getCustomDataMap().computeIfAbsent("purchasedSpleggUpgrades", (k) -> new ArrayList<String>());
         purchased.addAll(SpleggExtension.EXTENSION.getUpgrades().values().stream().filter(upgrade -> upgrade.isDefault() && !purchased.contains(upgrade.getKey())).map(SpleggUpgrade::getKey).collect(Collectors.toList()));
         if (isDefault || purchased.contains(getKey())) {
@@ -36,6 +36,7 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
@@ -128,6 +129,13 @@ public class ArenaListener implements Listener {
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        ArenaPlayer player = ArenaPlayer.adapt(event.getPlayer());
+        if (player.getState() == ArenaPlayerState.IN_GAME)
+            player.getCurrentArena().getEngine().getBlockJournal().record(event.getBlockReplacedState());
+    }
+
     private static void handleTeamDamage(ArenaPlayer p, EntityDamageByEntityEvent event) {
         if (p.getCurrentArena().getArenaType() == ArenaType.FREE_FOR_ALL) return;
         if (!(event.getDamager() instanceof Player)) return;
@@ -160,13 +168,14 @@ public class ArenaListener implements Listener {
                         ItemStack mainHand = CompatibilityHandler.either(() -> player.getInventory().getItemInMainHand(), () -> player.getItemInHand());
                         if (event.getResult() != Result.DENY) {
                             GameArena arena = p.getCurrentArena();
+                            arena.getEngine().getBlockJournal().record(block);
                             if (!arena.isDropMinedBlocks()) {
                                 Collection<ItemStack> oldDrops = block.getDrops(mainHand);
                                 block.setType(Material.AIR);
                                 if (arena.getExtension().isGiveDroppedItems())
                                     p.getPlayer().getInventory().addItem(oldDrops.toArray(new ItemStack[0]));
                             }
-                            plugin.getDataProvider().add(PlayerStatistic.BLOCKS_MINED, p.getPlayer(), arena.getExtension(), 1);
+                            plugin.getStatAccumulator().add(PlayerStatistic.BLOCKS_MINED, p.getPlayer(), arena.getExtension(), 1);
                         }
                     }
                 }
@@ -187,6 +196,7 @@ public class ArenaListener implements Listener {
             ArenaPlayer p = ArenaPlayer.adapt(event.getPlayer());
             if (p.getState() == ArenaPlayerState.IN_GAME) {
                 GameArena arena = p.getCurrentArena();
+                arena.getEngine().getBlockJournal().record(event.getBlock());
                 if (!arena.isDropMinedBlocks()) {
                     ItemStack mainHand = CompatibilityHandler.either(() -> p.getPlayer().getInventory().getItemInMainHand(), () -> p.getPlayer().getItemInHand());
                     Collection<ItemStack> oldDrops = event.getBlock().getDrops(mainHand);
@@ -194,7 +204,7 @@ public class ArenaListener implements Listener {
                     if (arena.getExtension().isGiveDroppedItems())
                         p.getPlayer().getInventory().addItem(oldDrops.toArray(new ItemStack[0]));
                 }
-                plugin.getDataProvider().add(PlayerStatistic.BLOCKS_MINED, p.getPlayer(), arena.getExtension(), 1);
+                plugin.getStatAccumulator().add(PlayerStatistic.BLOCKS_MINED, p.getPlayer(), arena.getExtension(), 1);
             }
         }
     }
@@ -68,7 +68,9 @@ public class GamePerk {
 
     public boolean consumeFrom(ArenaPlayer player) {
         if (purchaseSettings.getGamesUsableFor() > 0) return true; // No consuming
-        return player.getStats().getPerks().merge(this, purchaseSettings.getGamesUsableFor() - 1, (i, a) -> i - 1) < 0;
+        GameStats stats = player.getStats();
+        stats.markDirty();
+        return stats.getPerks().merge(this, purchaseSettings.getGamesUsableFor() - 1, (i, a) -> i - 1) < 0;
     }
 
     public boolean canUse(GameExtension extension) {
@@ -84,6 +86,7 @@ public class GamePerk {
             else {
                 Message.ITEM_PURCHASED.reply(player.getPlayer(), this);
                 stats.getPerks().merge(this, getPurchaseSettings().getGamesUsableFor(), Integer::sum);
+                stats.markDirty();
                 stats.takeCoins(player.getPlayer(), price);
             }
             return true;
@@ -15,6 +15,7 @@
  */
 package io.github.spleefx.scoreboard;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.gson.annotations.Expose;
 import io.github.spleefx.arena.ArenaPlayer;
 import io.github.spleefx.arena.api.ArenaType;
@@ -23,16 +24,21 @@ import io.github.spleefx.arena.api.GameArena;
 import io.github.spleefx.scoreboard.sidebar.SidebarBoard;
 import io.github.spleefx.team.GameTeam;
 import io.github.spleefx.util.PlaceholderUtil;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.bukkit.Location;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static io.github.spleefx.SpleefX.getPlugin;
 
@@ -48,9 +54,85 @@ public class ScoreboardHolder {
     @Expose
     private Map<Integer, String> text = new LinkedHashMap<>();
 
+    /**
+     * The placeholders which have the same value for all players in an arena
+     */
+    private static final Set<String> ARENA_PLACEHOLDERS = ImmutableSet.of(
+            "{arena}", "{arena_key}", "{arena_displayname}", "{arena_playercount}", "{countdown}", "{countdown_chat}",
+            "{arena_time_left}", "{arena_minimum}", "{arena_maximum}", "{arena_players_per_team}", "{arena_stage}",
+            "{arena_alive}", "{extension}", "{extension_key}", "{extension_chat_prefix}", "{extension_displayname}",
+            "{extension_name}", "{extension_without_colors}"
+    );
+
+    /**
+     * Matches a placeholder in a line
+     */
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{[^{}\\s]+}");
+
+    /**
+     * The lines of the text, computed lazily
+     */
+    @Getter(AccessLevel.NONE)
+    private transient volatile String[] lines;
+
+    /**
+     * Whether each line contains player-specific placeholders, computed lazily
+     */
+    @Getter(AccessLevel.NONE)
+    private transient volatile boolean[] playerScoped;
+
     public void createScoreboard(ArenaPlayer p) {
         if (!isEnabled()) return;
+        getPlugin().getScoreboardTicker().remove(p.getPlayer()); // clear the previous sidebar, if any
         getPlugin().getScoreboardTicker().getBoards().put(p.getPlayer().getUniqueId(), new SidebarBoard(p.getPlayer(), getPlugin().getScoreboardTicker()));
+        getPlugin().getScoreboardTicker().markDirty(p.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Returns the lines of the text, from top to bottom
+     *
+     * @return The lines
+     */
+    public String[] getLines() {
+        String[] lines = this.lines;
+        if (lines == null) {
+            boolean[] playerScoped = new boolean[text.size()];
+            lines = text.values().toArray(new String[0]);
+            for (int i = 0; i < lines.length; i++)
+                playerScoped[i] = isPlayerScoped(lines[i]);
+            this.playerScoped = playerScoped;
+            this.lines = lines;
+        }
+        return lines;
+    }
+
+    /**
+     * Renders all lines which are the same for every player in the arena. Lines which contain
+     * player-specific placeholders are left as null, and must be rendered for each player.
+     *
+     * @param arena Arena to render for
+     * @return The shared lines
+     */
+    public String[] renderShared(GameArena arena) {
+        String[] lines = getLines();
+        String[] shared = new String[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            if (playerScoped[i]) continue;
+            shared[i] = lines[i].trim().isEmpty() ? "" : replacePlaceholders(null, lines[i], arena, Collections.emptyMap());
+        }
+        return shared;
+    }
+
+    /**
+     * Returns whether the specified line may render differently for each player. Unknown placeholders
+     * (such as engine placeholders or PlaceholderAPI ones) are assumed to be player-specific.
+     */
+    private static boolean isPlayerScoped(String line) {
+        if (line.indexOf('%') != -1) return true;
+        Matcher matcher = PLACEHOLDER.matcher(line);
+        while (matcher.find())
+            if (!ARENA_PLACEHOLDERS.contains(matcher.group())) return true;
+        return false;
     }
 
     public static String replacePlaceholders(@Nullable ArenaPlayer player, String message, GameArena arena, Map<String, Supplier<String>> placeholders) {
@@ -58,8 +140,6 @@ public class ScoreboardHolder {
 
         @Nullable Location location = null;
         if (player != null) location = player.getPlayer().getLocation();
-        for (Entry<String, Supplier<String>> placeholder : placeholders.entrySet())
-            message = message.replace(placeholder.getKey(), placeholder.getValue().get());
         List<Object> formats = new ArrayList<>();
         if (player != null)
             formats.add(player.getPlayer());
@@ -72,7 +152,11 @@ public class ScoreboardHolder {
             if (team != null)
                 formats.add(team);
         }
-        return PlaceholderUtil.all(message, formats.toArray());
+        // the configured line is formatted before the engine placeholders, which are left as they are, so its parsed form can be reused
+        String text = PlaceholderUtil.cached(message, formats.toArray());
+        for (Entry<String, Supplier<String>> placeholder : placeholders.entrySet())
+            text = text.replace(placeholder.getKey(), placeholder.getValue().get());
+        return text;
     }
 
 }
\ No newline at end of file
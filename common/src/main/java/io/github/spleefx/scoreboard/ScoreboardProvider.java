@@ -17,43 +17,102 @@ package io.github.spleefx.scoreboard;
 
 import io.github.spleefx.arena.ArenaPlayer;
 import io.github.spleefx.arena.api.BaseArenaEngine;
+import io.github.spleefx.arena.api.GameArena;
 import io.github.spleefx.util.game.Chat;
-import me.lucko.helper.Schedulers;
-import me.lucko.helper.promise.Promise;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class ScoreboardProvider {
 
-    public Promise<String> getTitle(Player player) {
-        return Schedulers.async().supply(() -> {
-            try {
-                return Chat.colorize(getScoreboardHolder(ArenaPlayer.adapt(player)).getTitle());
-            } catch (NullPointerException e) {
-                return null;
+    /**
+     * The lines shared by all players of each arena, rendered once per refresh
+     */
+    private final Map<GameArena, Frame> frames = new ConcurrentHashMap<>();
+
+    /**
+     * The current refresh, which invalidates all frames of the previous one when advanced
+     */
+    private volatile long generation;
+
+    /**
+     * Advances to the next refresh. Shared lines are rendered again on their next request.
+     */
+    public void nextFrame() {
+        long current = ++generation;
+        frames.values().removeIf(frame -> frame.generation < current - 1);
+    }
+
+    /**
+     * Returns the sidebar title of the specified player
+     *
+     * @param player Player to get for
+     * @return The title, or null if the player is not in an arena with a scoreboard
+     */
+    public String getTitle(Player player) {
+        try {
+            return Chat.colorize(getScoreboardHolder(ArenaPlayer.adapt(player)).getTitle());
+        } catch (NullPointerException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Renders the sidebar lines of the specified player, from top to bottom
+     *
+     * @param player Player to render for
+     * @return The lines
+     */
+    public List<String> getLines(Player player) {
+        ArenaPlayer p = ArenaPlayer.adapt(player);
+        BaseArenaEngine<?> engine = (BaseArenaEngine<?>) p.getCurrentArena().getEngine();
+        ScoreboardHolder holder = getScoreboardHolder(p);
+        if (holder == null)
+            throw new RuntimeException("Cannot find a scoreboard section for extension " + p.getCurrentArena().getExtension().getKey() + ". Please add a section to remove this error.");
+        GameArena arena = p.getCurrentArena();
+        String[] template = holder.getLines();
+        String[] shared = getShared(arena, holder);
+        List<String> lines = new ArrayList<>(template.length);
+        Map<String, Supplier<String>> placeholders = null;
+        for (int i = 0; i < template.length; i++) {
+            if (shared[i] != null) {
+                lines.add(shared[i]);
+                continue;
             }
-        });
+            if (placeholders == null) placeholders = engine.getScoreboardMap(player);
+            lines.add(template[i].trim().isEmpty() ? "" : ScoreboardHolder.replacePlaceholders(p, template[i], arena, placeholders));
+        }
+        return lines;
     }
 
-    public Promise<List<String>> getLines(Player player) {
-        return Schedulers.async().supply(() -> {
-            ArenaPlayer p = ArenaPlayer.adapt(player);
-            BaseArenaEngine<?> engine = (BaseArenaEngine<?>) p.getCurrentArena().getEngine();
-            ScoreboardHolder holder = getScoreboardHolder(p);
-            if (holder == null)
-                throw new RuntimeException("Cannot find a scoreboard section for extension " + p.getCurrentArena().getExtension().getKey() + ". Please add a section to remove this error.");
-            return holder.getText()
-                    .values()
-                    .stream()
-                    .map(s -> s.trim().isEmpty() ? "" : ScoreboardHolder.replacePlaceholders(p, s, p.getCurrentArena(), engine.getScoreboardMap(player)))
-                    .collect(Collectors.toList());
-        });
+    /**
+     * Returns the shared lines of the arena for the current refresh, rendering them if needed
+     */
+    private String[] getShared(GameArena arena, ScoreboardHolder holder) {
+        long current = generation;
+        return frames.compute(arena, (a, frame) -> frame != null && frame.generation == current && frame.holder == holder ?
+                frame : new Frame(current, holder, holder.renderShared(arena))).lines;
     }
 
     private static ScoreboardHolder getScoreboardHolder(ArenaPlayer p) {
         return p.getCurrentArena().getExtension().getScoreboard().get(p.getCurrentArena().getEngine().getCurrentScoreboard());
     }
 
-}
\ No newline at end of file
+    private static class Frame {
+
+        private final long generation;
+        private final ScoreboardHolder holder;
+        private final String[] lines;
+
+        private Frame(long generation, ScoreboardHolder holder, String[] lines) {
+            this.generation = generation;
+            this.holder = holder;
+            this.lines = lines;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package io.github.spleefx.scoreboard.sidebar;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scoreboard.Objective;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link SidebarRenderer} which uses a Bukkit scoreboard for each player
+ */
+public class BukkitSidebarRenderer implements SidebarRenderer {
+
+    @Override
+    public void create(Player player, SidebarBoard board) {
+        board.setup(player);
+    }
+
+    @Override
+    public void render(Player player, SidebarBoard board, String title, List<String> lines) {
+        Objective objective = board.getObjective();
+        if (!objective.getDisplayName().equals(title)) {
+            objective.setDisplayName(title);
+        }
+        if (lines.isEmpty()) {
+            board.getEntries().forEach(ScoreboardEntry::remove);
+            board.getEntries().clear();
+            return;
+        }
+        List<String> newLines = new ArrayList<>(lines);
+        Collections.reverse(newLines);
+
+        if (board.getEntries().size() > newLines.size()) {
+            for (int i = newLines.size(); i < board.getEntries().size(); i++) {
+                ScoreboardEntry entry = board.getEntryAtPosition(i);
+
+                if (entry != null) {
+                    entry.remove();
+                }
+            }
+        }
+
+        int cache = 1;
+        for (int i = 0; i < newLines.size(); i++) {
+            ScoreboardEntry entry = board.getEntryAtPosition(i);
+
+            String line = newLines.get(i);
+            if (entry == null) {
+                entry = new ScoreboardEntry(board, line);
+            }
+            entry.setText(line);
+            entry.setup();
+            entry.send(cache++);
+        }
+    }
+
+    @Override
+    public void remove(Player player, SidebarBoard board) {
+        player.setScoreboard(Bukkit.getScoreboardManager().getMainScoreboard());
+    }
+
+}
@@ -0,0 +1,240 @@
+package io.github.spleefx.scoreboard.sidebar;
+
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * A {@link SidebarRenderer} which sends the scoreboard packets directly, without registering
+ * any server-side scoreboard.
+ * <p>
+ * The last sent title and lines are remembered for each board, and only lines which have changed
+ * since the previous render are sent. Every line occupies a fixed slot, which is displayed through
+ * the prefix and suffix of the slot's team, so changing the text of a line only costs a single team
+ * update packet, and the scores are only sent when the amount of lines changes.
+ *
+ * @param <O> The objective type of the implementation
+ */
+public abstract class PacketSidebarRenderer<O> implements SidebarRenderer {
+
+    /**
+     * The name of the sidebar objective
+     */
+    protected static final String OBJECTIVE_NAME = "spleefx";
+
+    /**
+     * The maximum amount of lines the sidebar can display
+     */
+    private static final int MAX_LINES = 15;
+
+    /**
+     * The team name and entry of each slot
+     */
+    private static final String[] TEAMS = new String[MAX_LINES], ENTRIES = new String[MAX_LINES];
+
+    static {
+        for (int i = 0; i < MAX_LINES; i++) {
+            TEAMS[i] = OBJECTIVE_NAME + i;
+            ENTRIES[i] = ChatColor.values()[i].toString() + ChatColor.RESET;
+        }
+    }
+
+    @Override
+    public void create(Player player, SidebarBoard board) {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void render(Player player, SidebarBoard board, String title, List<String> lines) {
+        State<O> state = (State<O>) board.getRenderState();
+        title = truncate(title, getMaxTitleLength());
+        if (state == null) {
+            state = new State<>(createObjective(player, title));
+            board.setRenderState(state);
+        } else if (!title.equals(state.title)) {
+            updateTitle(player, state.objective, title);
+        }
+        state.title = title;
+
+        int size = Math.min(lines.size(), MAX_LINES);
+        int maxLength = getMaxAffixLength();
+        for (int slot = 0; slot < size; slot++) {
+            String[] affixes = split(lines.get(slot), maxLength);
+            if (slot >= state.created) {
+                createTeam(player, state.objective, TEAMS[slot], ENTRIES[slot], affixes[0], affixes[1]);
+                state.created = slot + 1;
+            } else if (!affixes[0].equals(state.prefixes[slot]) || !affixes[1].equals(state.suffixes[slot])) {
+                updateTeam(player, state.objective, TEAMS[slot], affixes[0], affixes[1]);
+            }
+            state.prefixes[slot] = affixes[0];
+            state.suffixes[slot] = affixes[1];
+        }
+
+        if (size != state.size) {
+            for (int slot = size; slot < state.size; slot++)
+                removeScore(player, state.objective, ENTRIES[slot]);
+            // scores are counted from the bottom, so all of them move when the size changes
+            for (int slot = 0; slot < size; slot++)
+                setScore(player, state.objective, ENTRIES[slot], size - slot);
+            state.size = size;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void remove(Player player, SidebarBoard board) {
+        State<O> state = (State<O>) board.getRenderState();
+        if (state == null) return;
+        board.setRenderState(null);
+        if (!player.isOnline()) return;
+        for (int slot = 0; slot < state.created; slot++)
+            removeTeam(player, state.objective, TEAMS[slot]);
+        removeObjective(player, state.objective);
+    }
+
+    /**
+     * Splits the specified text into a team prefix and suffix
+     *
+     * @param text      Text to split
+     * @param maxLength The maximum length of the prefix and suffix
+     * @return The prefix and the suffix
+     */
+    static String[] split(String text, int maxLength) {
+        if (text.length() <= maxLength) return new String[]{text, ""};
+        String prefix = truncate(text, maxLength);
+        String suffix = ChatColor.getLastColors(prefix) + text.substring(prefix.length());
+        if (suffix.length() > maxLength)
+            suffix = suffix.substring(0, maxLength);
+        return new String[]{prefix, suffix};
+    }
+
+    /**
+     * Cuts the specified text to the maximum length, without leaving a dangling color character
+     *
+     * @param text      Text to cut
+     * @param maxLength The maximum length of the text
+     * @return The cut text
+     */
+    static String truncate(String text, int maxLength) {
+        if (text.length() <= maxLength) return text;
+        String cut = text.substring(0, maxLength);
+        return cut.charAt(maxLength - 1) == ChatColor.COLOR_CHAR ? cut.substring(0, maxLength - 1) : cut;
+    }
+
+    /**
+     * Returns the maximum length of a team prefix or suffix
+     *
+     * @return The maximum length
+     */
+    protected abstract int getMaxAffixLength();
+
+    /**
+     * Returns the maximum length of the sidebar title
+     *
+     * @return The maximum length
+     */
+    protected abstract int getMaxTitleLength();
+
+    /**
+     * Creates the sidebar objective and displays it to the player
+     *
+     * @param player Player to send to
+     * @param title  The objective title
+     * @return The created objective
+     */
+    protected abstract O createObjective(Player player, String title);
+
+    /**
+     * Changes the title of the sidebar objective
+     *
+     * @param player    Player to send to
+     * @param objective The sidebar objective
+     * @param title     The new title
+     */
+    protected abstract void updateTitle(Player player, O objective, String title);
+
+    /**
+     * Creates the team of a slot, along with its entry
+     *
+     * @param player    Player to send to
+     * @param objective The sidebar objective
+     * @param team      Name of the team
+     * @param entry     The slot entry
+     * @param prefix    The team prefix
+     * @param suffix    The team suffix
+     */
+    protected abstract void createTeam(Player player, O objective, String team, String entry, String prefix, String suffix);
+
+    /**
+     * Changes the prefix and suffix of the team of a slot
+     *
+     * @param player    Player to send to
+     * @param objective The sidebar objective
+     * @param team      Name of the team
+     * @param prefix    The new prefix
+     * @param suffix    The new suffix
+     */
+    protected abstract void updateTeam(Player player, O objective, String team, String prefix, String suffix);
+
+    /**
+     * Removes the team of a slot
+     *
+     * @param player    Player to send to
+     * @param objective The sidebar objective
+     * @param team      Name of the team
+     */
+    protected abstract void removeTeam(Player player, O objective, String team);
+
+    /**
+     * Sets the score of a slot entry
+     *
+     * @param player    Player to send to
+     * @param objective The sidebar objective
+     * @param entry     The slot entry
+     * @param score     The new score
+     */
+    protected abstract void setScore(Player player, O objective, String entry, int score);
+
+    /**
+     * Removes the score of a slot entry, hiding it from the sidebar
+     *
+     * @param player    Player to send to
+     * @param objective The sidebar objective
+     * @param entry     The slot entry
+     */
+    protected abstract void removeScore(Player player, O objective, String entry);
+
+    /**
+     * Removes the sidebar objective
+     *
+     * @param player    Player to send to
+     * @param objective The sidebar objective
+     */
+    protected abstract void removeObjective(Player player, O objective);
+
+    /**
+     * The state last sent to a player
+     */
+    private static class State<O> {
+
+        private final O objective;
+        private final String[] prefixes = new String[MAX_LINES], suffixes = new String[MAX_LINES];
+        private String title;
+
+        /**
+         * The amount of displayed lines
+         */
+        private int size;
+
+        /**
+         * The amount of slots whose teams were created
+         */
+        private int created;
+
+        private State(O objective) {
+            this.objective = objective;
+        }
+    }
+
+}
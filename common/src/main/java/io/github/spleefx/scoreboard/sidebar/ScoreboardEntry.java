@@ -14,6 +14,12 @@ public class ScoreboardEntry {
     private String text, identifier;
     private Team team;
 
+    /**
+     * The last text and position sent to the team, to skip unchanged lines
+     */
+    private String sentText;
+    private int sentPosition = -1;
+
     public ScoreboardEntry(SidebarBoard board, String text) {
         this.board = board;
         this.text = text;
@@ -54,6 +60,9 @@ public class ScoreboardEntry {
     }
 
     public void send(int position) {
+        if (position == sentPosition && text.equals(sentText)) return;
+        sentText = text;
+        sentPosition = position;
         if (text.length() > 16) {
             String prefix = text.substring(0, 16);
             String suffix;
@@ -88,6 +97,8 @@ public class ScoreboardEntry {
     }
 
     public void remove() {
+        sentText = null;
+        sentPosition = -1;
         board.getIdentifiers().remove(identifier);
         board.getScoreboard().resetScores(identifier);
     }
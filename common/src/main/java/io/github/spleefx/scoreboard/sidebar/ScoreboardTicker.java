@@ -1,12 +1,16 @@
 package io.github.spleefx.scoreboard.sidebar;
 
+import io.github.spleefx.arena.ArenaPlayer;
+import io.github.spleefx.compatibility.CompatibilityHandler;
 import io.github.spleefx.scoreboard.ScoreboardProvider;
 import lombok.Getter;
 import lombok.Setter;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -15,22 +19,31 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ScoreboardTicker {
 
     private ScoreboardProvider provider;
+    private SidebarRenderer renderer;
     private Map<UUID, SidebarBoard> boards;
-    private ScoreboardThread thread;
+    private ScoreboardUpdater updater;
     private long ticks = 2;
 
+    /**
+     * The interval (in ticks) in which all boards are redrawn, even if they are not dirty
+     */
+    private long fallbackTicks = 100;
+
+    /**
+     * The players whose boards have to be redrawn
+     */
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
     public ScoreboardTicker() {
         provider = new ScoreboardProvider();
+        renderer = CompatibilityHandler.getSidebarRenderer();
         boards = new ConcurrentHashMap<>();
 
         setup();
     }
 
     public void setup() {
-        if (thread != null) {
-            thread.stop();
-            thread = null;
-        }
+        shutdown();
         for (Player player : Bukkit.getOnlinePlayers()) {
             SidebarCreateEvent createEvent = new SidebarCreateEvent(player);
 
@@ -38,8 +51,51 @@ public class ScoreboardTicker {
             if (createEvent.isCancelled()) return;
 
             getBoards().put(player.getUniqueId(), new SidebarBoard(player, this));
+            markDirty(player.getUniqueId());
+        }
+        updater = new ScoreboardUpdater(this);
+    }
+
+    /**
+     * Stops updating the boards
+     */
+    public void shutdown() {
+        if (updater != null) {
+            updater.shutdown();
+            updater = null;
         }
-        thread = new ScoreboardThread(this);
+    }
+
+    /**
+     * Marks the board of the specified player to be redrawn on the next update
+     *
+     * @param player Player to mark
+     */
+    public void markDirty(UUID player) {
+        if (boards.containsKey(player))
+            dirty.add(player);
+    }
+
+    /**
+     * Marks the boards of the specified players to be redrawn on the next update
+     *
+     * @param players Players to mark
+     */
+    public void markDirty(Collection<ArenaPlayer> players) {
+        for (ArenaPlayer player : players)
+            markDirty(player.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Removes the sidebar of the specified player, if any
+     *
+     * @param player Player to remove for
+     */
+    public void remove(Player player) {
+        SidebarBoard board = boards.remove(player.getUniqueId());
+        dirty.remove(player.getUniqueId());
+        if (board != null)
+            renderer.remove(player, board);
     }
 
 }
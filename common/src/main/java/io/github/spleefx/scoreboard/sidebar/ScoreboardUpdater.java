@@ -0,0 +1,167 @@
+package io.github.spleefx.scoreboard.sidebar;
+
+import io.github.spleefx.SpleefX;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Updates the sidebar boards in batches.
+ * <p>
+ * Every update interval, the content of all dirty boards is rendered on a dedicated thread, and the
+ * whole batch is then applied to the players in a single task on the main thread. If the main thread
+ * has not applied the previous batch yet, the update is skipped, and its boards remain dirty until
+ * the next one.
+ */
+public class ScoreboardUpdater {
+
+    /**
+     * The thread which renders the boards
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "SpleefX Scoreboard Updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Whether a batch is waiting to be applied on the main thread
+     */
+    private final AtomicBoolean applying = new AtomicBoolean();
+
+    private final ScoreboardTicker ticker;
+
+    /**
+     * The amount of ticks since all boards were redrawn
+     */
+    private long sinceFullUpdate;
+
+    ScoreboardUpdater(ScoreboardTicker ticker) {
+        this.ticker = ticker;
+        schedule();
+    }
+
+    private void schedule() {
+        try {
+            executor.schedule(this::tick, ticker.getTicks() * 50, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) { // shut down
+        }
+    }
+
+    private void tick() {
+        try {
+            sinceFullUpdate += ticker.getTicks();
+            if (applying.get()) return; // the main thread is behind, so the dirty boards wait for the next update
+            List<Update> batch = render();
+            if (batch.isEmpty()) return;
+            applying.set(true);
+            try {
+                Bukkit.getScheduler().runTask(SpleefX.getPlugin(), () -> {
+                    try {
+                        batch.forEach(this::apply);
+                    } finally {
+                        applying.set(false);
+                    }
+                });
+            } catch (RuntimeException e) { // plugin is disabling
+                applying.set(false);
+            }
+        } catch (Throwable t) {
+            t.printStackTrace();
+        } finally {
+            schedule();
+        }
+    }
+
+    /**
+     * Renders the content of all boards which have to be updated
+     */
+    private List<Update> render() {
+        ticker.getProvider().nextFrame();
+        Map<UUID, SidebarBoard> boards = ticker.getBoards();
+        List<Update> batch = new ArrayList<>();
+        if (sinceFullUpdate >= ticker.getFallbackTicks()) {
+            // values from outside the engine (such as PlaceholderAPI ones) do not mark boards dirty
+            sinceFullUpdate = 0;
+            ticker.getDirty().clear();
+            boards.forEach((uuid, board) -> render(uuid, board, batch));
+            return batch;
+        }
+        for (Iterator<UUID> iterator = ticker.getDirty().iterator(); iterator.hasNext(); ) {
+            UUID uuid = iterator.next();
+            iterator.remove();
+            SidebarBoard board = boards.get(uuid);
+            if (board != null) render(uuid, board, batch);
+        }
+        return batch;
+    }
+
+    private void render(UUID uuid, SidebarBoard board, List<Update> batch) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null) return;
+        try {
+            String title = ticker.getProvider().getTitle(player);
+            if (title == null) {
+                batch.add(new Update(player, board, null, null));
+                return;
+            }
+            List<String> newLines = ticker.getProvider().getLines(player);
+            List<String> lines = new ArrayList<>(newLines.size());
+            for (String line : newLines)
+                lines.add(ChatColor.translateAlternateColorCodes('&', line));
+            batch.add(new Update(player, board, ChatColor.translateAlternateColorCodes('&', title), lines));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void apply(Update update) {
+        if (ticker.getBoards().get(update.player.getUniqueId()) != update.board) return; // removed in the meantime
+        if (update.title == null)
+            ticker.remove(update.player);
+        else
+            ticker.getRenderer().render(update.player, update.board, update.title, update.lines);
+    }
+
+    /**
+     * Stops updating boards. Batches which are already rendered may still be applied.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The rendered content of a board
+     */
+    private static class Update {
+
+        private final Player player;
+        private final SidebarBoard board;
+        private final String title;
+        private final List<String> lines;
+
+        private Update(Player player, SidebarBoard board, String title, List<String> lines) {
+            this.player = player;
+            this.board = board;
+            this.title = title;
+            this.lines = lines;
+        }
+    }
+
+}
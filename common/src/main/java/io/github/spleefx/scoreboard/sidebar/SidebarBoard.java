@@ -1,6 +1,7 @@
 package io.github.spleefx.scoreboard.sidebar;
 
 import lombok.Getter;
+import lombok.Setter;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
@@ -24,13 +25,19 @@ public class SidebarBoard {
 
     private ScoreboardTicker scoreboardTicker;
 
+    /**
+     * The state last sent by the renderer
+     */
+    @Setter
+    private Object renderState;
+
     public SidebarBoard(Player player, ScoreboardTicker scoreboardTicker) {
         this.scoreboardTicker = scoreboardTicker;
-        setup(player);
         uuid = player.getUniqueId();
+        scoreboardTicker.getRenderer().create(player, this);
     }
 
-    private void setup(Player player) {
+    void setup(Player player) {
         // Register new scoreboard if needed
         if (player.getScoreboard() == Bukkit.getScoreboardManager().getMainScoreboard()) {
             scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
@@ -41,10 +48,10 @@ public class SidebarBoard {
         // Setup sidebar objective
         objective = scoreboard.registerNewObjective("Default", "dummy");
         objective.setDisplaySlot(DisplaySlot.SIDEBAR);
-        getScoreboardTicker().getProvider().getTitle(player).thenAcceptSync((name) -> {
-            objective.setDisplayName(name);
-            player.setScoreboard(scoreboard);
-        });
+        String title = getScoreboardTicker().getProvider().getTitle(player);
+        if (title != null)
+            objective.setDisplayName(title);
+        player.setScoreboard(scoreboard);
         // Update scoreboard
 
     }
@@ -0,0 +1,45 @@
+package io.github.spleefx.scoreboard.sidebar;
+
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Renders sidebar boards to players.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+public interface SidebarRenderer {
+
+    /**
+     * The fallback renderer, which uses the Bukkit scoreboard API
+     */
+    SidebarRenderer FALLBACK = new BukkitSidebarRenderer();
+
+    /**
+     * Prepares the specified board for the player. Invoked once when the board is created.
+     *
+     * @param player Player the board belongs to
+     * @param board  Board to prepare
+     */
+    void create(Player player, SidebarBoard board);
+
+    /**
+     * Displays the specified title and lines to the player
+     *
+     * @param player Player to render for
+     * @param board  Board of the player
+     * @param title  The sidebar title, already colorized
+     * @param lines  The sidebar lines, from top to bottom, already colorized
+     */
+    void render(Player player, SidebarBoard board, String title, List<String> lines);
+
+    /**
+     * Removes the sidebar of the specified board from the player
+     *
+     * @param player Player to remove from
+     * @param board  Board to remove
+     */
+    void remove(Player player, SidebarBoard board);
+
+}
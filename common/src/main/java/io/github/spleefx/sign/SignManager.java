@@ -56,7 +56,7 @@ public class SignManager {
      * @return The formatted text
      */
     private String format(String text) {
-        return PlaceholderUtil.all(text, arena);
+        return PlaceholderUtil.cached(text, arena);
     }
 
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package io.github.spleefx.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
 import io.github.spleefx.arena.api.BaseArenaEngine;
 import io.github.spleefx.arena.api.GameArena;
 import io.github.spleefx.economy.booster.BoosterFactory;
@@ -12,7 +15,6 @@ import io.github.spleefx.util.game.Chat;
 import io.github.spleefx.util.plugin.PluginSettings;
 import lombok.AllArgsConstructor;
 import me.clip.placeholderapi.PlaceholderAPI;
-import org.apache.commons.lang.text.StrBuilder;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
@@ -21,10 +23,8 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.NumberFormat;
-import java.util.Map;
-import java.util.Objects;
-
-import static io.github.spleefx.util.PlaceholderUtil.PlaceholderFiller.p;
+import java.util.*;
+import java.util.function.Function;
 
 public class PlaceholderUtil {
 
@@ -34,174 +34,265 @@ public class PlaceholderUtil {
     /**
      * Placeholder filler for offline players
      */
-    private static final PlaceholderFiller<OfflinePlayer> OFFLINE_PLAYER = (player, b) -> {
-        p(b, "player", player.getName() == null ? "NoName" : player.getName());
-        p(b, "player_name", player.getName() == null ? "NoName" : player.getName());
-        if (PAPI) {
-            String created = PlaceholderAPI.setPlaceholders(player, b.toString());
-            b.clear().append(created);
-        }
-    };
+    private static final PlaceholderFiller<OfflinePlayer> OFFLINE_PLAYER = PlaceholderFiller.<OfflinePlayer>builder()
+            .p("player", player -> player.getName() == null ? "NoName" : player.getName())
+            .p("player_name", player -> player.getName() == null ? "NoName" : player.getName())
+            .build();
 
     /**
      * Placeholder filler for players
      */
-    private static final PlaceholderFiller<Player> PLAYER = (player, b) -> {
-        p(b, "player_displayname", player.getDisplayName());
-        p(b, "player_health", (int) player.getHealth());
-        if (PAPI) {
-            String built = b.toString();
-            String created = PlaceholderAPI.setPlaceholders(player, built);
-            b.clear().append(created);
-        }
-    };
+    private static final PlaceholderFiller<Player> PLAYER = PlaceholderFiller.<Player>builder()
+            .p("player_displayname", Player::getDisplayName)
+            .p("player_health", player -> (int) player.getHealth())
+            .build();
 
     /**
      * Placeholder filler for teams
      */
-    private static final PlaceholderFiller<GameTeam> TEAM = (team, b) -> {
-        p(b, "team", team.getColor().chat());
-        p(b, "team_color", team.getColor().getChatColor());
-    };
+    private static final PlaceholderFiller<GameTeam> TEAM = PlaceholderFiller.<GameTeam>builder()
+            .p("team", team -> team.getColor().chat())
+            .p("team_color", team -> team.getColor().getChatColor())
+            .build();
 
     /**
      * Placeholder filler for locations
      */
-    private static final PlaceholderFiller<Location> LOCATION = (loc, b) -> {
-        p(b, "x", loc.getX());
-        p(b, "y", loc.getY());
-        p(b, "z", loc.getZ());
-        p(b, "world", Objects.requireNonNull(loc.getWorld(), "location#getWorld() is null!").getName());
-    };
+    private static final PlaceholderFiller<Location> LOCATION = PlaceholderFiller.<Location>builder()
+            .p("x", Location::getX)
+            .p("y", Location::getY)
+            .p("z", Location::getZ)
+            .p("world", loc -> Objects.requireNonNull(loc.getWorld(), "location#getWorld() is null!").getName())
+            .build();
 
     /**
      * Placeholder filler for command parameters
      */
-    private static final PlaceholderFiller<String[]> COMMAND_ARGS = (args, b) -> {
-        for (int i = 0; i < args.length; i++) {
-            p(b, "args-" + (i + 1), args[i]);
+    private static final PlaceholderFiller<String[]> COMMAND_ARGS = (args, placeholder) -> {
+        if (!placeholder.startsWith("args-")) return null;
+        try {
+            int index = Integer.parseInt(placeholder.substring(5)) - 1;
+            return index >= 0 && index < args.length ? args[index] : null;
+        } catch (NumberFormatException e) {
+            return null;
         }
     };
 
-    private static final PlaceholderFiller<CommandEntry> COMMAND_ENTRY = (e, b) -> {
-        if (e.command != null)
-            p(b, "command", e.command);
-        if (e.arena != null)
-            p(b, "arena", e.arena);
-        if (e.player != null)
-            p(b, "player", e.player);
-    };
-
-    public static final PlaceholderFiller<BetEntry> BET_ENTRY = (bet, b) -> {
-        p(b, "arena_bet", bet.bet);
-        if (bet.portion != null)
-            p(b, "portion", bet.portion);
-    };
-
-    private static final PlaceholderFiller<GamePerk> PERK = (perk, b) -> {
-        p(b, "perk_key", perk.getKey());
-        p(b, "perk_displayname", perk.getDisplayName());
-        p(b, "perk_usable_amount", perk.getPurchaseSettings().getGamesUsableFor());
-        p(b, "perk_ingame_amount", perk.getPurchaseSettings().getIngameAmount());
-        p(b, "perk_price", NUMBER_FORMAT.format(perk.getPurchaseSettings().getPrice()));
-    };
+    private static final PlaceholderFiller<CommandEntry> COMMAND_ENTRY = PlaceholderFiller.<CommandEntry>builder()
+            .p("command", e -> e.command)
+            .p("arena", e -> e.arena)
+            .p("player", e -> e.player)
+            .build();
+
+    public static final PlaceholderFiller<BetEntry> BET_ENTRY = PlaceholderFiller.<BetEntry>builder()
+            .p("arena_bet", bet -> bet.bet)
+            .p("portion", bet -> bet.portion)
+            .build();
+
+    private static final PlaceholderFiller<GamePerk> PERK = PlaceholderFiller.<GamePerk>builder()
+            .p("perk_key", GamePerk::getKey)
+            .p("perk_displayname", GamePerk::getDisplayName)
+            .p("perk_usable_amount", perk -> perk.getPurchaseSettings().getGamesUsableFor())
+            .p("perk_ingame_amount", perk -> perk.getPurchaseSettings().getIngameAmount())
+            .p("perk_price", perk -> NUMBER_FORMAT.format(perk.getPurchaseSettings().getPrice()))
+            .build();
 
     /**
      * Placeholder filler for game extensions
      */
-    private static final PlaceholderFiller<GameExtension> EXTENSION = (extension, b) -> {
-        p(b, "extension", extension.getDisplayName());
-        p(b, "extension_key", extension.getKey());
-        p(b, "extension_chat_prefix", extension.getChatPrefix());
-        p(b, "extension_displayname", extension.getDisplayName());
-        p(b, "extension_name", extension.getDisplayName());
-        p(b, "extension_without_colors", ChatColor.stripColor(Chat.colorize(extension.getDisplayName())));
-        p(b, "extension_key", extension.getKey());
-    };
+    private static final PlaceholderFiller<GameExtension> EXTENSION = PlaceholderFiller.<GameExtension>builder()
+            .p("extension", GameExtension::getDisplayName)
+            .p("extension_key", GameExtension::getKey)
+            .p("extension_chat_prefix", GameExtension::getChatPrefix)
+            .p("extension_displayname", GameExtension::getDisplayName)
+            .p("extension_name", GameExtension::getDisplayName)
+            .p("extension_without_colors", extension -> ChatColor.stripColor(Chat.colorize(extension.getDisplayName())))
+            .build();
 
     /**
-     * Placeholder filler for arenas
+     * Placeholder filler for arenas. Extension placeholders are filled from the arena's extension.
      */
-    private static final PlaceholderFiller<GameArena> ARENA = (arena, b) -> {
-        p(b, "arena", arena.getDisplayName());
-        p(b, "arena_key", arena.getKey());
-        p(b, "arena_displayname", Chat.colorize(arena.getDisplayName()));
-        p(b, "arena_playercount", arena.getEngine().getPlayerTeams().size());
-        p(b, "countdown", formatTime(((BaseArenaEngine<?>) arena.getEngine()).countdown));
-        String c = ((BaseArenaEngine<?>) arena.getEngine()).countdown + "";
-        p(b, "countdown_chat", ((Map<String, String>) PluginSettings.TITLE_ON_COUNTDOWN_NUMBERS.get()).getOrDefault(c, c));
-        p(b, "arena_time_left", formatTime(((BaseArenaEngine<?>) arena.getEngine()).timeLeft));
-        p(b, "arena_minimum", arena.getMinimum());
-        p(b, "arena_maximum", arena.getMaximum());
-        p(b, "arena_players_per_team", arena.getMembersPerTeam());
-        p(b, "arena_stage", arena.getEngine().getArenaStage().getState());
-        p(b, "arena_alive", arena.getEngine().getAlive().size());
-        EXTENSION.apply(arena.getExtension(), b);
-    };
+    private static final PlaceholderFiller<GameArena> ARENA = PlaceholderFiller.<GameArena>builder()
+            .p("arena", GameArena::getDisplayName)
+            .p("arena_key", GameArena::getKey)
+            .p("arena_displayname", arena -> Chat.colorize(arena.getDisplayName()))
+            .p("arena_playercount", arena -> arena.getEngine().getPlayerTeams().size())
+            .p("countdown", arena -> formatTime(((BaseArenaEngine<?>) arena.getEngine()).countdown))
+            .p("countdown_chat", arena -> {
+                String c = ((BaseArenaEngine<?>) arena.getEngine()).countdown + "";
+                return ((Map<String, String>) PluginSettings.TITLE_ON_COUNTDOWN_NUMBERS.get()).getOrDefault(c, c);
+            })
+            .p("arena_time_left", arena -> formatTime(((BaseArenaEngine<?>) arena.getEngine()).timeLeft))
+            .p("arena_minimum", GameArena::getMinimum)
+            .p("arena_maximum", GameArena::getMaximum)
+            .p("arena_players_per_team", GameArena::getMembersPerTeam)
+            .p("arena_stage", arena -> arena.getEngine().getArenaStage().getState())
+            .p("arena_alive", arena -> arena.getEngine().getAlive().size())
+            .fallback(GameArena::getExtension, EXTENSION);
+
+    private static final PlaceholderFiller<SpleggUpgrade> SPLEGG_UPGRADE = PlaceholderFiller.<SpleggUpgrade>builder()
+            .p("upgrade_key", SpleggUpgrade::getKey)
+            .p("upgrade_displayname", SpleggUpgrade::getDisplayName)
+            .p("upgrade_price", upgrade -> NUMBER_FORMAT.format(upgrade.getPrice()))
+            .build();
+
+    private static final PlaceholderFiller<Integer> INTEGER = PlaceholderFiller.<Integer>builder()
+            .p("value", value -> value)
+            .p("value_formatted", NUMBER_FORMAT::format)
+            .p("plural", value -> value != 1 ? "s" : "")
+            .build();
+
+    public static final PlaceholderFiller<BoosterInstance> BOOSTER = PlaceholderFiller.<BoosterInstance>builder()
+            .p("booster_limit", booster -> Integer.toString(BoosterFactory.ALLOW_MULTIPLE.get()))
+            .p("booster_type_displayname", booster -> booster.getType().getDisplayName())
+            .p("booster_type", booster -> booster.getType().getDisplayName()) // fallback lol
+            .p("booster_type_key", booster -> booster.getType().getKey())
+            .p("duration", booster -> booster.getType().getDuration().toString())
+            .p("booster_multiplier", booster -> Double.toString(booster.getMultiplier()))
+            .p("booster_time_left", booster -> Long.toString(booster.getDuration()))
+            .p("booster_type_duration", booster -> booster.getType().getDuration().toString())
+            .p("booster_is_active", booster -> booster.isActive() ? "&cActive" : "&aAvailable")
+            .build();
+
+    public static final PlaceholderFiller<ColoredNumberEntry> COLORED_NUMBER = PlaceholderFiller.<ColoredNumberEntry>builder()
+            .p("colored_number", number -> number.value)
+            .build();
 
-    private static final PlaceholderFiller<SpleggUpgrade> SPLEGG_UPGRADE = (upgrade, b) -> {
-        p(b, "upgrade_key", upgrade.getKey());
-        p(b, "upgrade_displayname", upgrade.getDisplayName());
-        p(b, "upgrade_price", NUMBER_FORMAT.format(upgrade.getPrice()));
-        p(b, "upgrade_key", Double.toString(upgrade.getDelay()));
-    };
-
-    private static final PlaceholderFiller<Integer> INTEGER = (value, b) -> {
-        p(b, "value", value);
-        p(b, "value_formatted", NUMBER_FORMAT.format(value));
-        p(b, "plural", value != 1 ? "s" : "");
-    };
+    /**
+     * All fillers, by the type they fill for. When several fillers provide the same placeholder,
+     * the first one wins.
+     */
+    private static final Map<Class<?>, PlaceholderFiller<?>> FILLERS = ImmutableMap.<Class<?>, PlaceholderFiller<?>>builder()
+            .put(Player.class, PLAYER)
+            .put(OfflinePlayer.class, OFFLINE_PLAYER)
+            .put(GameExtension.class, EXTENSION)
+            .put(GameArena.class, ARENA)
+            .put(GameTeam.class, TEAM)
+            .put(String[].class, COMMAND_ARGS)
+            .put(SpleggUpgrade.class, SPLEGG_UPGRADE)
+            .put(Integer.class, INTEGER)
+            .put(CommandEntry.class, COMMAND_ENTRY)
+            .put(BetEntry.class, BET_ENTRY)
+            .put(ColoredNumberEntry.class, COLORED_NUMBER)
+            .put(Location.class, LOCATION)
+            .put(GamePerk.class, PERK)
+            .put(BoosterInstance.class, BOOSTER)
+            .build();
 
-    public static final PlaceholderFiller<BoosterInstance> BOOSTER = (booster, b) -> {
-        BoosterFactory type = booster.getType();
-        p(b, "booster_limit", Integer.toString(BoosterFactory.ALLOW_MULTIPLE.get()));
-        p(b, "booster_type_displayname", type.getDisplayName());
-        p(b, "booster_type", type.getDisplayName()); // fallback lol
-        p(b, "booster_type_key", type.getKey());
-        p(b, "duration", type.getDuration().toString());
-        p(b, "booster_multiplier", Double.toString(booster.getMultiplier()));
-        p(b, "booster_time_left", Long.toString(booster.getDuration()));
-        p(b, "booster_type_duration", type.getDuration().toString());
-        p(b, "booster_is_active", booster.isActive() ? "&cActive" : "&aAvailable");
+    /**
+     * The fillers which apply to each class, in order
+     */
+    private static final ClassValue<PlaceholderFiller<Object>[]> FILLERS_BY_CLASS = new ClassValue<PlaceholderFiller<Object>[]>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected PlaceholderFiller<Object>[] computeValue(Class<?> type) {
+            return FILLERS.entrySet().stream()
+                    .filter(filler -> filler.getKey().isAssignableFrom(type))
+                    .map(Map.Entry::getValue)
+                    .toArray(PlaceholderFiller[]::new);
+        }
     };
 
-    public static final PlaceholderFiller<ColoredNumberEntry> COLORED_NUMBER = (number, b) -> {
-        p(b, "colored_number", number.value);
-    };
+    /**
+     * Parsed templates of texts formatted with {@link #cached(String, Object...)}, by their text
+     */
+    private static final Cache<String, Template> TEMPLATES = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .build();
 
     @FunctionalInterface
     public interface PlaceholderFiller<T> {
 
-        void apply(T value, StrBuilder builder);
+        /**
+         * Returns the value of the specified placeholder
+         *
+         * @param value       Object to get the value from
+         * @param placeholder Name of the placeholder, without the braces
+         * @return The value, or null if this filler does not provide the placeholder
+         */
+        Object get(T value, String placeholder);
+
+        static <T> Builder<T> builder() {
+            return new Builder<>();
+        }
 
-        static void p(StrBuilder builder, String placeholder, Object value) {
-            builder.replaceAll("{" + placeholder + "}", value.toString());
+        class Builder<T> {
+
+            private final Map<String, Function<T, Object>> placeholders = new HashMap<>();
+
+            public Builder<T> p(String placeholder, Function<T, Object> value) {
+                placeholders.putIfAbsent(placeholder, value);
+                return this;
+            }
+
+            public PlaceholderFiller<T> build() {
+                Map<String, Function<T, Object>> placeholders = ImmutableMap.copyOf(this.placeholders);
+                return (value, placeholder) -> {
+                    Function<T, Object> function = placeholders.get(placeholder);
+                    return function == null ? null : function.apply(value);
+                };
+            }
+
+            public <R> PlaceholderFiller<T> fallback(Function<T, R> mapper, PlaceholderFiller<R> fallback) {
+                PlaceholderFiller<T> filler = build();
+                return (value, placeholder) -> {
+                    Object result = filler.get(value, placeholder);
+                    return result == null ? fallback.get(mapper.apply(value), placeholder) : result;
+                };
+            }
         }
     }
 
+    /**
+     * Replaces all placeholders in the specified text, along with PlaceholderAPI ones, and colorizes it
+     *
+     * @param original Text to format
+     * @param formats  Objects to fill placeholders from. Earlier objects take precedence.
+     * @return The formatted text
+     */
     public static String all(String original, Object... formats) {
-        StrBuilder builder = new StrBuilder(original);
-        for (Object o : formats) {
-            if (o instanceof Player) PLAYER.apply((Player) o, builder);
-            if (o instanceof OfflinePlayer) OFFLINE_PLAYER.apply((OfflinePlayer) o, builder);
-            if (o instanceof GameExtension) EXTENSION.apply((GameExtension) o, builder);
-            if (o instanceof GameArena) ARENA.apply((GameArena) o, builder);
-            if (o instanceof GameTeam) TEAM.apply((GameTeam) o, builder);
-            if (o instanceof String[]) COMMAND_ARGS.apply((String[]) o, builder);
-            if (o instanceof SpleggUpgrade) SPLEGG_UPGRADE.apply((SpleggUpgrade) o, builder);
-            if (o instanceof Integer) INTEGER.apply((Integer) o, builder);
-            if (o instanceof CommandEntry) COMMAND_ENTRY.apply((CommandEntry) o, builder);
-            if (o instanceof BetEntry) BET_ENTRY.apply((BetEntry) o, builder);
-            if (o instanceof ColoredNumberEntry) COLORED_NUMBER.apply((ColoredNumberEntry) o, builder);
-            if (o instanceof Location) LOCATION.apply((Location) o, builder);
-            if (o instanceof GamePerk) PERK.apply((GamePerk) o, builder);
-            if (o instanceof BoosterInstance) BOOSTER.apply((BoosterInstance) o, builder);
+        return format(Template.parse(original), formats);
+    }
+
+    /**
+     * Replaces all placeholders in the specified text like {@link #all(String, Object...)}, but keeps the
+     * parsed text for the next time it is formatted. This should only be used for texts that do not change
+     * between calls, such as configured lines, otherwise one-off texts would fill the cache.
+     *
+     * @param original Text to format
+     * @param formats  Objects to fill placeholders from. Earlier objects take precedence.
+     * @return The formatted text
+     */
+    public static String cached(String original, Object... formats) {
+        return format(Template.of(original), formats);
+    }
+
+    private static String format(Template template, Object[] formats) {
+        String text = template.render(placeholder -> resolve(placeholder, formats));
+        if (PAPI && text.indexOf('%') != -1) {
+            OfflinePlayer player = null;
+            for (Object o : formats)
+                if (o instanceof OfflinePlayer) {
+                    player = (OfflinePlayer) o;
+                    break;
+                }
+            text = PlaceholderAPI.setPlaceholders(player, text);
         }
-        if (PAPI) {
-            String created = PlaceholderAPI.setPlaceholders(null, builder.toString());
-            builder.clear().append(created);
+        return Chat.colorize(text);
+    }
+
+    /**
+     * Returns the value of the specified placeholder from the first object that provides it
+     */
+    private static Object resolve(String placeholder, Object[] formats) {
+        for (Object o : formats) {
+            if (o == null) continue;
+            for (PlaceholderFiller<Object> filler : FILLERS_BY_CLASS.get(o.getClass())) {
+                Object value = filler.get(o, placeholder);
+                if (value != null) return value;
+            }
         }
-        return Chat.colorize(builder.toString());
+        return null;
     }
 
     public static String formatTime(int seconds) {
@@ -252,4 +343,66 @@ public class PlaceholderUtil {
         private String value;
     }
 
+    /**
+     * A text parsed into literals and the placeholders between them
+     */
+    static class Template {
+
+        private final String[] literals;
+        private final String[] placeholders;
+
+        private Template(String[] literals, String[] placeholders) {
+            this.literals = literals;
+            this.placeholders = placeholders;
+        }
+
+        private static Template of(String text) {
+            if (text.indexOf('{') == -1) return new Template(new String[]{text}, new String[0]);
+            Template template = TEMPLATES.getIfPresent(text);
+            if (template == null) {
+                template = parse(text);
+                TEMPLATES.put(text, template);
+            }
+            return template;
+        }
+
+        static Template parse(String text) {
+            List<String> literals = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+            int start = 0, from = 0;
+            int open;
+            while ((open = text.indexOf('{', from)) != -1) {
+                int close = text.indexOf('}', open + 1);
+                if (close == -1) break;
+                int nested = text.indexOf('{', open + 1);
+                if (nested != -1 && nested < close) { // not a placeholder, try the inner brace
+                    from = nested;
+                    continue;
+                }
+                if (close > open + 1) {
+                    literals.add(text.substring(start, open));
+                    placeholders.add(text.substring(open + 1, close));
+                    start = close + 1;
+                }
+                from = close + 1;
+            }
+            literals.add(text.substring(start));
+            return new Template(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+        }
+
+        String render(Function<String, Object> resolver) {
+            if (placeholders.length == 0) return literals[0];
+            StringBuilder builder = new StringBuilder(literals[0]);
+            for (int i = 0; i < placeholders.length; i++) {
+                Object value = resolver.apply(placeholders[i]);
+                if (value == null)
+                    builder.append('{').append(placeholders[i]).append('}');
+                else
+                    builder.append(value);
+                builder.append(literals[i + 1]);
+            }
+            return builder.toString();
+        }
+    }
+
 }
@@ -0,0 +1,38 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.util.game;
+
+import io.github.spleefx.SpleefX;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Executor}s backed by the Bukkit scheduler, for use with {@link java.util.concurrent.CompletableFuture}s
+ */
+public class BukkitExecutors {
+
+    /**
+     * Runs tasks on the main thread, in the next tick
+     */
+    public static final Executor MAIN = task -> Bukkit.getScheduler().runTask(SpleefX.getPlugin(), task);
+
+    /**
+     * Runs tasks on the asynchronous scheduler threads
+     */
+    public static final Executor ASYNC = task -> Bukkit.getScheduler().runTaskAsynchronously(SpleefX.getPlugin(), task);
+
+}
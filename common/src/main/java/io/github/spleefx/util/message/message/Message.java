@@ -455,7 +455,7 @@ public class Message implements Iterable<Message> {
                 }
             }
         }
-        return PlaceholderUtil.all(value, flatten ? flatten(formats).toArray() : formats);
+        return PlaceholderUtil.cached(value, flatten ? flatten(formats).toArray() : formats);
     }
 
     public String create(Object... formats) {
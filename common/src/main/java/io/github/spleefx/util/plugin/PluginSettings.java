@@ -28,8 +28,21 @@ public enum PluginSettings {
     ARENA_MELTING_IGNORE_Z("Arena.Melting.IgnoreZ", false),
     ARENA_MELTING_BLOCKS("Arena.Melting.MeltableBlocks", Collections.singletonList("SNOW_BLOCK")),
     ARENA_REGENERATE_BEFORE_COUNTDOWN("Arena.RegenerateBeforeGameStarts", true),
+    ARENA_SCHEMATIC_CACHE_SIZE("Arena.SchematicCacheSize", 5000000),
+    ARENA_JOURNAL_ENABLED("Arena.JournalRegeneration.Enabled", true),
+    ARENA_JOURNAL_MAXIMUM_CHANGES("Arena.JournalRegeneration.MaximumChanges", 100000),
+    ARENA_SLICED_REGENERATION_ENABLED("Arena.SlicedRegeneration.Enabled", true),
+    ARENA_SLICED_REGENERATION_BLOCKS_PER_TICK("Arena.SlicedRegeneration.BlocksPerTick", 16384),
+    ARENA_REGENERATION_MAXIMUM_CONCURRENT("Arena.RegenerationQueue.MaximumConcurrent", 2),
+    ARENA_REGENERATION_TIMEOUT("Arena.RegenerationQueue.Timeout", 60),
+    ARENA_SNAPSHOTS_ENABLED("Arena.Snapshots.Enabled", true),
+    ARENA_SNAPSHOTS_COMPRESS("Arena.Snapshots.Compress", true),
+    ARENA_CHUNK_RESIDENCY_ENABLED("Arena.ChunkResidency.Enabled", true),
+    ARENA_CHUNK_RESIDENCY_IDLE_RELEASE("Arena.ChunkResidency.IdleRelease", 300),
+    ARENA_CHUNK_RESIDENCY_CHUNKS_PER_TICK("Arena.ChunkResidency.ChunksPerTick", 4),
     SIGN_UPDATE_INTERVAL("Arena.SignUpdateInterval", 40),
     SCOREBOARD_UPDATE_INTERVAL("Arena.ScoreboardUpdateInterval", 10),
+    SCOREBOARD_FALLBACK_INTERVAL("Arena.ScoreboardFallbackInterval", 100),
 
     DISPLAY_COUNTDOWN_ON_EXP_BAR("Countdown.DisplayOnExpBar", true),
     COUNTDOWN_ON_ENOUGH_PLAYERS("Countdown.OnEnoughPlayers", 20),
@@ -51,8 +64,15 @@ public enum PluginSettings {
     STATISTICS_STORAGE_TYPE("PlayerGameStatistics.StorageType", StorageType.FLAT_FILE),
     STATISTICS_DIRECTORY("PlayerGameStatistics.Directory", "player-data"),
     STATISTICS_STORE_PLAYERS_BY("PlayerGameStatistics.StorePlayersBy", PlayerStoringStrategy.UUID),
+    STATISTICS_CACHE_SIZE("PlayerGameStatistics.CacheSize", 1000),
+    STATISTICS_JOURNAL_INTERVAL("PlayerGameStatistics.JournalInterval", 20),
     UNITED_FILE_NAME("PlayerGameStatistics.UnitedFile.FileName", "player-data.json"),
     SQLITE_FILE_NAME("PlayerGameStatistics.SQLite.FileName", "player-data.db"),
+    MYSQL_URL("PlayerGameStatistics.MySQL.URL", "jdbc:mysql://localhost:3306/spleefx"),
+    MYSQL_USERNAME("PlayerGameStatistics.MySQL.Username", "root"),
+    MYSQL_PASSWORD("PlayerGameStatistics.MySQL.Password", ""),
+    MYSQL_POOL_SIZE("PlayerGameStatistics.MySQL.PoolSize", 4),
+    MYSQL_SYNC_INTERVAL("PlayerGameStatistics.MySQL.SyncInterval", 10),
     ECO_HOOK_INTO_VAULT("Economy.HookIntoVault", true),
     ECO_USE_VAULT("Economy.GetFromVault", false),
 
@@ -17,7 +17,9 @@ package org.moltenjson.configuration.tree;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
+import io.github.spleefx.SpleefX;
 import io.github.spleefx.extension.ExtensionsManager;
 import io.github.spleefx.extension.GameExtension.ExtensionType;
 import org.moltenjson.configuration.direct.DirectConfiguration;
@@ -29,11 +31,15 @@ import org.moltenjson.json.JsonWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 
 /**
  * A tree configuration is a special type of configuration, designed specifically for handling data.
@@ -70,6 +76,22 @@ import java.util.*;
 @SuppressWarnings("all") // From library, stupid intellij smh
 public class TreeConfiguration<N, E> {
 
+    /**
+     * The suffix of temporary files, which are written first and then moved over the actual files
+     */
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The thread which writes queued content to the files
+     */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "TreeConfiguration Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Map which contains all file data. The name key is the name derived from the
      * naming strategy, and the value is the file template specified in the
@@ -118,6 +140,17 @@ public class TreeConfiguration<N, E> {
      */
     private final boolean lazy;
 
+    /**
+     * Whether files are stored in two levels of hashed sub-directories
+     */
+    private final boolean sharded;
+
+    /**
+     * The base names of the existing files in each sub-directory, mapped by the sub-directory path.
+     * Sub-directories are listed the first time they are needed. Only used when {@link #sharded}.
+     */
+    private final Map<String, Set<String>> shardIndex = new ConcurrentHashMap<>();
+
     /**
      * The file filter for getting all the files that meet the criteria
      */
@@ -129,7 +162,7 @@ public class TreeConfiguration<N, E> {
     private boolean dataLoaded = false;
 
     /**
-     * All data files
+     * All data files. If the configuration is {@link #sharded}, this only contains the files that were used.
      */
     private Map<String, File> files;
 
@@ -138,6 +171,29 @@ public class TreeConfiguration<N, E> {
      */
     private JsonWriter writer = null;
 
+    /**
+     * All entries that were modified since they were last saved
+     */
+    private final Set<N> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Serialized content waiting to be written, mapped by the file it should be written to. Only the latest
+     * content of each file is kept, so that multiple saves of the same entry are coalesced into one write.
+     * Content is only removed once it is written, so reads can use it in the meantime.
+     */
+    private final Map<File, String> pendingWrites = new LinkedHashMap<>();
+
+    /**
+     * Whether is a write of the pending content scheduled. Guarded by {@link #pendingWrites}.
+     */
+    private boolean flushScheduled = false;
+
+    /**
+     * A lock held while writing files, to prevent the writer thread and {@link #flushWrites()}
+     * from writing at the same time.
+     */
+    private final Object writeLock = new Object();
+
     /**
      * Used locally. To construct, use {@link TreeConfigurationBuilder}.
      *
@@ -151,8 +207,9 @@ public class TreeConfiguration<N, E> {
      * @param ignoreInvalidFiles   Whether or not to ignore files whom names cannot be fetched from the naming strategy,
      *                             or cannot be parsed (malformed JSON)
      * @param lazy                 Whether to load and save data only when requested
+     * @param sharded              Whether files are stored in hashed sub-directories
      */
-    TreeConfiguration(Map<N, E> data, File directory, Gson gson, boolean searchSubdirectories, ImmutableList<String> exclusionPrefixes, ImmutableList<String> restrictedExtensions, TreeNamingStrategy<N> namingStrategy, boolean ignoreInvalidFiles, boolean lazy) {
+    TreeConfiguration(Map<N, E> data, File directory, Gson gson, boolean searchSubdirectories, ImmutableList<String> exclusionPrefixes, ImmutableList<String> restrictedExtensions, TreeNamingStrategy<N> namingStrategy, boolean ignoreInvalidFiles, boolean lazy, boolean sharded) {
         this.data = data;
         this.directory = directory;
         this.gson = gson;
@@ -162,8 +219,13 @@ public class TreeConfiguration<N, E> {
         this.namingStrategy = namingStrategy;
         this.ignoreInvalidFiles = ignoreInvalidFiles;
         this.lazy = lazy;
+        this.sharded = sharded;
         fileFilter = new TreeFileFilter<>(this);
-        files = getIncludedFiles();
+        if (sharded) {
+            moveToShards();
+            files = new HashMap<>();
+        } else
+            files = getIncludedFiles();
     }
 
     /**
@@ -213,12 +275,13 @@ public class TreeConfiguration<N, E> {
         Preconditions.checkState(!lazy, "Cannot invoke #load(Type) on a lazy TreeConfiguration! Use #lazyLoad(N, Type) instead");
         dataLoaded = true;
         data.clear();
-        for (File file : files.values()) {
+        for (File file : getAllFiles()) {
             try {
                 if (setFile(file, false) == null) continue;
                 N name;
                 name = namingStrategy.fromName(getBaseName(file));
-                data.put(name, gson.fromJson(writer.getCachedContentAsElement(), templateType));
+                E value = gson.fromJson(writer.getCachedContentAsElement(), templateType);
+                if (value != null) data.put(name, value);
             } catch (InvalidFileException e) {
                 if (ignoreInvalidFiles) continue;
                 throw e;
@@ -242,13 +305,80 @@ public class TreeConfiguration<N, E> {
     public E lazyLoad(final N name, final Type template, String extension) {
         E value = data.get(name);
         if (value != null) return value; // In case there was an entry, use that entry
-        File file = files.computeIfAbsent(namingStrategy.toName(name), (k) -> new File(directory, k + "." + extension)); // Get the file associated with the name
-        if (file == null || !file.exists()) return null;
-        value = gson.fromJson(setFile(file, false).getCachedContentAsElement(), template);
+        File file = files.computeIfAbsent(namingStrategy.toName(name), (k) -> getFile(k, extension)); // Get the file associated with the name
+        String pending = getPendingWrite(file);
+        if (pending != null)
+            value = gson.fromJson(pending, template);
+        else {
+            if (file == null || !fileExists(file)) return null;
+            value = gson.fromJson(setFile(file, false).getCachedContentAsElement(), template);
+        }
         data.put(name, value);
         return value;
     }
 
+    /**
+     * Reads the data associated with the specified name from its file, without caching it. Unlike
+     * {@link #lazyLoad(Object, Type, String)}, this method does not modify this configuration, and
+     * can be invoked from any thread. The result can later be cached with {@link #cacheIfAbsent(Object, Object, String)}.
+     *
+     * @param name      Name to read
+     * @param template  The type of data to serialize
+     * @param extension The file extension
+     * @return The value associated with the name, or {@code null} if the name has no file
+     * @throws IOException If the file cannot be read
+     */
+    public E read(final N name, final Type template, String extension) throws IOException {
+        File file = getFile(namingStrategy.toName(name), extension);
+        String pending = getPendingWrite(file);
+        if (pending != null) return gson.fromJson(pending, template);
+        if (!fileExists(file)) return null;
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, template);
+        }
+    }
+
+    /**
+     * Reads all the files of this configuration one by one and passes their data to the specified action,
+     * without caching it. Entries which are already cached are passed from the cache instead. Unlike
+     * {@link #load(Type)}, this keeps only one entry in memory at a time.
+     *
+     * @param template The type of data to serialize
+     * @param action   Action to invoke for every entry
+     */
+    public void readAll(final Type template, BiConsumer<N, E> action) {
+        for (File file : getAllFiles()) {
+            try {
+                N name = namingStrategy.fromName(getBaseName(file));
+                if (name == null) continue;
+                E value = data.get(name);
+                if (value == null)
+                    try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                        value = gson.fromJson(reader, template);
+                    }
+                if (value != null) action.accept(name, value);
+            } catch (IOException | RuntimeException e) {
+                if (ignoreInvalidFiles) continue;
+                throw new InvalidFileException(e, "Failed to parse file " + file.getName() + " in directory " + directory.getPath(), file);
+            }
+        }
+    }
+
+    /**
+     * Caches the specified value, unless a value is already cached for the name.
+     *
+     * @param name      Name to cache for
+     * @param value     Value to cache
+     * @param extension The file extension
+     * @return The cached value of the name
+     * @see #read(Object, Type, String)
+     */
+    public E cacheIfAbsent(N name, E value, String extension) {
+        files.computeIfAbsent(namingStrategy.toName(name), (k) -> getFile(k, extension));
+        E existing = data.putIfAbsent(name, value);
+        return existing == null ? value : existing;
+    }
+
     /**
      * Lazily loads the required data into memory and caches it into the {@link #data} map. Unlike {@link #load(Type)},
      * this method only loads and caches the required data when requested, hence it is useful in cases where the data to
@@ -303,6 +433,19 @@ public class TreeConfiguration<N, E> {
         return data.containsKey(name);
     }
 
+    /**
+     * Returns whether the specified name has a file, or a file waiting to be written. If the configuration
+     * is {@link #sharded}, this only lists the sub-directory of the name once and caches it.
+     *
+     * @param name Name to look up
+     * @return {@code true} if the name has a file
+     */
+    public boolean exists(N name) {
+        String baseName = namingStrategy.toName(name);
+        if (!sharded) return files.containsKey(baseName);
+        return getShardIndex(baseName).contains(baseName);
+    }
+
     /**
      * Returns the associated data with the specified name.
      * <p>
@@ -376,9 +519,11 @@ public class TreeConfiguration<N, E> {
         Preconditions.checkNotNull(name, "Key mapping");
         Preconditions.checkNotNull(value, "Value");
         Preconditions.checkArgument(restrictedExtensions.isEmpty() || restrictedExtensions.contains(fileExtension), "The specified file extension (\"" + fileExtension + "\") is not one of the allowed extensions (" + restrictedExtensions + ")");
-        File file = new File(directory, namingStrategy.toName(name) + "." + fileExtension);
+        File file = getFile(namingStrategy.toName(name), fileExtension);
         files.put(namingStrategy.toName(name), file);
-        setFile(file, true).writeAndOverride(get(name), gson);
+        if (sharded) getShardIndex(getBaseName(file)).add(getBaseName(file));
+        dirty.remove(name);
+        queueWrite(file, gson.toJson(value));
         return value;
     }
 
@@ -429,10 +574,33 @@ public class TreeConfiguration<N, E> {
      * @see #exclude(Object)
      */
     public E delete(N name) {
+        dirty.remove(name);
         E value = data.remove(name);
         if (value == null) return null;
         //noinspection ResultOfMethodCallIgnored
-        exclude(name).ifPresent(File::delete);
+        exclude(name).ifPresent(file -> {
+            if (sharded) getShardIndex(getBaseName(file)).remove(getBaseName(file));
+            file.delete();
+        });
+        return value;
+    }
+
+    /**
+     * Removes the specified name from the data cache map only. If the entry was marked with
+     * {@link #markDirty(Object)}, it is written to its file first, so no changes are lost. The entry can be
+     * loaded again later.
+     *
+     * @param name Name of the entry to unload
+     * @return The unloaded value of the entry, or {@code null} if it was not cached.
+     */
+    public E unload(N name) {
+        E value = data.get(name);
+        if (value == null) return null;
+        if (dirty.remove(name)) {
+            File file = files.get(namingStrategy.toName(name));
+            if (file != null) queueWrite(file, gson.toJson(value));
+        }
+        data.remove(name, value);
         return value;
     }
 
@@ -497,6 +665,110 @@ public class TreeConfiguration<N, E> {
         return data;
     }
 
+    /**
+     * Marks the specified entry as modified, so that it gets written by the next {@link #saveDirty()}
+     *
+     * @param name Name of the entry
+     */
+    public void markDirty(N name) {
+        dirty.add(name);
+    }
+
+    /**
+     * Returns the amount of entries that were modified since they were last saved
+     *
+     * @return The amount of dirty entries
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Saves all entries marked with {@link #markDirty(Object)}. Entries are serialized on the calling thread,
+     * and their files are written in the background.
+     * <p>
+     * Each file is written to a temporary file first, which then atomically replaces it.
+     *
+     * @return The amount of saved entries
+     * @see #flushWrites()
+     */
+    public int saveDirty() {
+        int saved = 0;
+        for (Iterator<N> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            N name = iterator.next();
+            iterator.remove();
+            E value = data.get(name);
+            if (value == null) continue;
+            File file = files.get(namingStrategy.toName(name));
+            if (file == null) continue;
+            queueWrite(file, gson.toJson(value));
+            saved++;
+        }
+        return saved;
+    }
+
+    /**
+     * Writes all queued content on the calling thread, and waits for any write in progress
+     * to finish. This should be invoked when the application is shutting down.
+     */
+    public void flushWrites() {
+        Map<File, String> writes;
+        synchronized (writeLock) {
+            synchronized (pendingWrites) {
+                writes = new LinkedHashMap<>(pendingWrites);
+                flushScheduled = false;
+            }
+            writes.forEach(this::writeAtomically);
+            synchronized (pendingWrites) {
+                writes.forEach((file, content) -> pendingWrites.remove(file, content)); // keep content that was queued while writing
+            }
+        }
+    }
+
+    /**
+     * Returns the content waiting to be written to the specified file
+     *
+     * @param file File to look up
+     * @return The content, or {@code null} if there is no pending write to the file
+     */
+    private String getPendingWrite(File file) {
+        synchronized (pendingWrites) {
+            return pendingWrites.get(file);
+        }
+    }
+
+    /**
+     * Queues the specified content to be written to the specified file in the background
+     *
+     * @param file    File to write to
+     * @param content Content to write
+     */
+    private void queueWrite(File file, String content) {
+        synchronized (pendingWrites) {
+            pendingWrites.put(file, content);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                WRITER.execute(this::flushWrites);
+            }
+        }
+    }
+
+    private void writeAtomically(File file, String content) {
+        File temp = new File(file.getParentFile(), file.getName() + TEMP_SUFFIX);
+        try {
+            if (!file.getParentFile().exists())
+                Files.createDirectories(file.getParentFile().toPath());
+            Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            new InvalidFileException(e, "Failed to write file " + file.getName() + " in directory " + directory.getPath(), file).printStackTrace();
+        }
+    }
+
     /**
      * Saves the specified data map, and updates the cached one. This method will write the map content
      * to each file according to the naming strategy, and overwrite its old content with the new one specified in the map.
@@ -553,6 +825,114 @@ public class TreeConfiguration<N, E> {
         return this.files = includedFiles;
     }
 
+    /**
+     * Returns the file of the specified name
+     *
+     * @param baseName  The file name, without the extension
+     * @param extension The file extension
+     * @return The file
+     */
+    private File getFile(String baseName, String extension) {
+        String fileName = baseName + "." + extension;
+        return sharded ? new File(getShardDirectory(baseName), fileName) : new File(directory, fileName);
+    }
+
+    /**
+     * Returns whether the specified file exists. If the configuration is {@link #sharded}, the cached
+     * index of its sub-directory is used.
+     */
+    private boolean fileExists(File file) {
+        if (!sharded) return file.exists();
+        String baseName = getBaseName(file);
+        return getShardIndex(baseName).contains(baseName);
+    }
+
+    /**
+     * Returns the sub-directory which the file of the specified name is stored in. The directory is
+     * derived from the hash of the name, so names are spread evenly over 65536 sub-directories.
+     *
+     * @param baseName The file name, without the extension
+     * @return The sub-directory
+     */
+    private File getShardDirectory(String baseName) {
+        int hash = Hashing.murmur3_32().hashString(baseName, StandardCharsets.UTF_8).asInt();
+        return new File(new File(directory, toHex(hash >>> 24)), toHex(hash >>> 16));
+    }
+
+    private static String toHex(int b) {
+        return new String(new char[]{HEX[(b >>> 4) & 0xF], HEX[b & 0xF]});
+    }
+
+    /**
+     * Returns the base names of the existing files in the sub-directory of the specified name. The
+     * sub-directory is listed the first time, and the result is kept up to date afterwards.
+     */
+    private Set<String> getShardIndex(String baseName) {
+        File shard = getShardDirectory(baseName);
+        return shardIndex.computeIfAbsent(shard.getPath(), k -> {
+            Set<String> names = ConcurrentHashMap.newKeySet();
+            File[] shardFiles = shard.listFiles(file -> file.isFile() && fileFilter.accept(file));
+            if (shardFiles != null)
+                for (File file : shardFiles)
+                    names.add(getBaseName(file));
+            return names;
+        });
+    }
+
+    /**
+     * Returns all data files. If the configuration is {@link #sharded}, all sub-directories are listed,
+     * and the results are cached for later existence checks.
+     *
+     * @return All data files
+     */
+    private List<File> getAllFiles() {
+        if (!sharded) return new ArrayList<>(files.values());
+        List<File> allFiles = new ArrayList<>();
+        File[] first = directory.listFiles(File::isDirectory);
+        if (first == null) return allFiles;
+        for (File level : first) {
+            File[] second = level.listFiles(File::isDirectory);
+            if (second == null) continue;
+            for (File shard : second) {
+                Set<String> names = ConcurrentHashMap.newKeySet();
+                File[] shardFiles = shard.listFiles(file -> file.isFile() && fileFilter.accept(file));
+                if (shardFiles == null) continue;
+                for (File file : shardFiles) {
+                    allFiles.add(file);
+                    names.add(getBaseName(file));
+                }
+                shardIndex.putIfAbsent(shard.getPath(), names);
+            }
+        }
+        return allFiles;
+    }
+
+    /**
+     * Moves the files which are directly in the directory into their sub-directories. This is a one-time
+     * migration from the flat layout, and has no effect once all files are moved.
+     */
+    private void moveToShards() {
+        File[] loose = directory.listFiles(file -> file.isFile() && fileFilter.accept(file));
+        if (loose == null || loose.length == 0) return;
+        SpleefX.logger().info("Moving " + loose.length + " file(s) in " + directory.getName() + " into sub-directories. This only happens once.");
+        int moved = 0;
+        for (File file : loose) {
+            File target = new File(getShardDirectory(getBaseName(file)), file.getName());
+            try {
+                if (target.exists()) { // already moved before, the moved file is newer
+                    SpleefX.logger().warning("Skipping " + file.getName() + " as it already exists in " + target.getParent() + ".");
+                    continue;
+                }
+                Files.createDirectories(target.getParentFile().toPath());
+                Files.move(file.toPath(), target.toPath());
+                moved++;
+            } catch (IOException e) {
+                new InvalidFileException(e, "Failed to move file " + file.getName() + " in directory " + directory.getPath(), file).printStackTrace();
+            }
+        }
+        SpleefX.logger().info("Moved " + moved + " file(s) into sub-directories.");
+    }
+
     /**
      * A simple method to update the embedded {@link JsonFile} inside a {@link JsonWriter}.
      *
@@ -584,7 +964,8 @@ public class TreeConfiguration<N, E> {
                 .searchSubdirectories(searchSubdirectories)
                 .setExclusionPrefixes(exclusionPrefixes)
                 .setRestrictedExtensions(restrictedExtensions)
-                .ignoreInvalidFiles(ignoreInvalidFiles);
+                .ignoreInvalidFiles(ignoreInvalidFiles)
+                .setSharded(sharded);
     }
 
     /**
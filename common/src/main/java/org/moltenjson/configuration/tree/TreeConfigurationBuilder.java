@@ -93,6 +93,11 @@ public class TreeConfigurationBuilder<N, E> {
      */
     private boolean ignoreInvalidFiles;
 
+    /**
+     * Whether files are stored in hashed sub-directories
+     */
+    private boolean sharded = false;
+
     /**
      * Initiates a new {@link TreeConfigurationBuilder} which controls data
      * in the specified directory.
@@ -230,13 +235,27 @@ public class TreeConfigurationBuilder<N, E> {
         return this;
     }
 
+    /**
+     * Sets whether files should be stored in two levels of hashed sub-directories (for example
+     * {@code 3f/a2/name.json}) rather than directly in the directory. This keeps directories small
+     * when there are many files. Files which are directly in the directory are moved into their
+     * sub-directories when the configuration is constructed.
+     *
+     * @param sharded New value to set
+     * @return A reference to this builder
+     */
+    public TreeConfigurationBuilder<N, E> setSharded(boolean sharded) {
+        this.sharded = sharded;
+        return this;
+    }
+
     /**
      * Constructs a {@link TreeConfiguration} from this builder
      *
      * @return The constructed configuration
      */
     public TreeConfiguration<N, E> build() {
-        return new TreeConfiguration<>(dataMap, directory, gson, searchSubdirectories, exclusionPrefixes, restrictedExtensions, namingStrategy, ignoreInvalidFiles, lazy);
+        return new TreeConfiguration<>(dataMap, directory, gson, searchSubdirectories, exclusionPrefixes, restrictedExtensions, namingStrategy, ignoreInvalidFiles, lazy, sharded);
     }
 
 }
@@ -66,6 +66,7 @@ public class TreeFileFilter<N, E> implements FileFilter {
     @Override
     public boolean accept(File pathname) {
         if (pathname.isDirectory() && searchSubdirectories) return true;
+        if (pathname.getName().endsWith(TreeConfiguration.TEMP_SUFFIX)) return false;
         if (exclusionPrefixes.stream().anyMatch(pathname.getName()::startsWith))
             return false;
         else if (restrictedExtensions.isEmpty()) return true;
@@ -0,0 +1,156 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.arena.snapshot;
+
+import org.bukkit.Location;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ArenaSnapshotTest {
+
+    private static final int MAGIC = 0x53584153;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void uncompressedSnapshotsRoundTrip() throws IOException {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void compressedSnapshotsRoundTrip() throws IOException {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void runExceedingItsSectionIsRejected() throws IOException {
+        assertInvalid(file(2, 1, 1, 1, 3, 0));
+    }
+
+    @Test
+    public void paletteIndexOutOfBoundsIsRejected() throws IOException {
+        assertInvalid(file(2, 1, 1, 1, 2, 1));
+    }
+
+    @Test
+    public void emptyRunIsRejected() throws IOException {
+        assertInvalid(file(2, 1, 1, 1, 0, 0, 2, 0));
+    }
+
+    @Test
+    public void oversizedRegionIsRejected() throws IOException {
+        assertInvalid(file(1 << 20, 1 << 20, 1 << 20, 1, 1, 0));
+    }
+
+    @Test
+    public void oversizedPaletteIsRejected() throws IOException {
+        assertInvalid(file(2, 1, 1, 3));
+    }
+
+    @Test
+    public void truncatedSnapshotIsRejected() throws IOException {
+        assertInvalid(file(2, 1, 1, 1));
+    }
+
+    @Test
+    public void unsupportedVersionIsRejected() throws IOException {
+        File file = folder.newFile();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeByte(1);
+            out.writeByte(0);
+        }
+        assertInvalid(file);
+    }
+
+    /**
+     * Writes a snapshot spanning several partial chunk sections, with negative offsets and a palette
+     * large enough for multi-byte indices, then checks that reading it and writing it again gives the
+     * same file
+     */
+    private void assertRoundTrip(boolean compress) throws IOException {
+        int sizeX = 37, sizeY = 20, sizeZ = 33;
+        String[] palette = new String[300];
+        for (int i = 0; i < palette.length; i++)
+            palette[i] = "minecraft:block_" + i;
+        int[] blocks = new int[sizeX * sizeY * sizeZ];
+        Random random = new Random(7);
+        for (int i = 0; i < blocks.length; ) {
+            int id = random.nextInt(palette.length), run = 1 + random.nextInt(200);
+            for (; run > 0 && i < blocks.length; run--)
+                blocks[i++] = id;
+        }
+        ArenaSnapshot snapshot = new ArenaSnapshot(-5, 3, -200, sizeX, sizeY, sizeZ, palette, blocks);
+        File file = new File(folder.getRoot(), "arena.snapshot");
+        snapshot.write(file, compress);
+
+        ArenaSnapshot read = ArenaSnapshot.read(file);
+        Location point = new Location(null, 100, 64, -100);
+        assertArrayEquals(snapshot.getRegion(point), read.getRegion(point));
+        File copy = new File(folder.getRoot(), "copy.snapshot");
+        read.write(copy, compress);
+        assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(copy.toPath()));
+    }
+
+    /**
+     * Writes an uncompressed snapshot at offset 0 with the specified sizes and palette size, followed by
+     * the specified runs (pairs of a length and a palette index)
+     */
+    private File file(int sizeX, int sizeY, int sizeZ, int paletteSize, int... runs) throws IOException {
+        File file = folder.newFile();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeByte(2);
+            out.writeByte(0);
+            for (int i = 0; i < 3; i++)
+                writeVarInt(out, 0);
+            writeVarInt(out, sizeX);
+            writeVarInt(out, sizeY);
+            writeVarInt(out, sizeZ);
+            writeVarInt(out, paletteSize);
+            for (int i = 0; i < Math.min(paletteSize, 2); i++)
+                out.writeUTF("minecraft:stone");
+            for (int value : runs)
+                writeVarInt(out, value);
+        }
+        return file;
+    }
+
+    private static void assertInvalid(File file) {
+        try {
+            ArenaSnapshot.read(file);
+            fail("Invalid snapshot was read");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+}
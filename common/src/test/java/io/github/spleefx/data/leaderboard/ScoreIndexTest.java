@@ -0,0 +1,143 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.leaderboard;
+
+import io.github.spleefx.data.LeaderboardTopper;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ScoreIndexTest {
+
+    /**
+     * Orders players the same way as the index: highest score first, then by UUID
+     */
+    private static final Comparator<Map.Entry<UUID, Integer>> ORDER = Comparator.<Map.Entry<UUID, Integer>>comparingInt(Map.Entry::getValue)
+            .reversed()
+            .thenComparing(Map.Entry::getKey);
+
+    @Test
+    public void emptyIndex() {
+        ScoreIndex index = new ScoreIndex();
+        assertEquals(0, index.size());
+        assertNull(index.get(1));
+        assertEquals(-1, index.rank(UUID.randomUUID()));
+        assertTrue(index.top(10).isEmpty());
+    }
+
+    @Test
+    public void ranksFollowScores() {
+        ScoreIndex index = new ScoreIndex();
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID(), third = UUID.randomUUID();
+        index.update(second, 5);
+        index.update(first, 10);
+        index.update(third, 1);
+        assertEquals(1, index.rank(first));
+        assertEquals(2, index.rank(second));
+        assertEquals(3, index.rank(third));
+
+        index.update(third, 20);
+        assertEquals(1, index.rank(third));
+        assertEquals(2, index.rank(first));
+        assertEquals(3, index.rank(second));
+
+        index.remove(first);
+        assertEquals(-1, index.rank(first));
+        assertEquals(2, index.rank(second));
+        assertEquals(2, index.size());
+        assertNull(index.get(3));
+    }
+
+    @Test
+    public void topViewIsRebuiltWhenChanged() {
+        ScoreIndex index = new ScoreIndex();
+        UUID a = UUID.randomUUID(), b = UUID.randomUUID(), c = UUID.randomUUID();
+        index.update(a, 3);
+        index.update(b, 2);
+        index.update(c, 1);
+        List<LeaderboardTopper> top = index.top(2);
+        assertEquals(Arrays.asList(a, b), uuids(top));
+        assertSame(top, index.top(2));
+
+        index.update(c, 0); // below the view
+        assertEquals(Arrays.asList(a, b), uuids(index.top(2)));
+
+        index.update(c, 5);
+        assertEquals(Arrays.asList(c, a), uuids(index.top(2)));
+        assertEquals(Arrays.asList(a, b), uuids(top)); // returned lists are not updated
+    }
+
+    @Test
+    public void randomOperationsMatchSortedList() {
+        Random random = new Random(42);
+        ScoreIndex index = new ScoreIndex();
+        Map<UUID, Integer> scores = new HashMap<>();
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            players.add(new UUID(random.nextLong(), random.nextLong()));
+        for (int operation = 0; operation < 5000; operation++) {
+            UUID player = players.get(random.nextInt(players.size()));
+            if (random.nextInt(5) == 0) {
+                index.remove(player);
+                scores.remove(player);
+            } else {
+                int score = random.nextInt(50); // plenty of ties
+                index.update(player, score);
+                scores.put(player, score);
+            }
+            if (operation % 100 == 0) {
+                assertTop(index, scores, random.nextInt(30) + 1);
+                assertConsistent(index, scores);
+            }
+        }
+        assertConsistent(index, scores);
+    }
+
+    private static void assertConsistent(ScoreIndex index, Map<UUID, Integer> scores) {
+        List<Map.Entry<UUID, Integer>> expected = new ArrayList<>(scores.entrySet());
+        expected.sort(ORDER);
+        assertEquals(expected.size(), index.size());
+        for (int rank = 1; rank <= expected.size(); rank++) {
+            Map.Entry<UUID, Integer> entry = expected.get(rank - 1);
+            LeaderboardTopper topper = index.get(rank);
+            assertEquals(entry.getKey(), topper.getUUID());
+            assertEquals((int) entry.getValue(), topper.getCount());
+            assertEquals(rank, index.rank(entry.getKey()));
+        }
+        assertNull(index.get(expected.size() + 1));
+    }
+
+    private static void assertTop(ScoreIndex index, Map<UUID, Integer> scores, int limit) {
+        List<Map.Entry<UUID, Integer>> expected = new ArrayList<>(scores.entrySet());
+        expected.sort(ORDER);
+        List<LeaderboardTopper> top = index.top(limit);
+        assertEquals(Math.min(limit, expected.size()), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(expected.get(i).getKey(), top.get(i).getUUID());
+            assertEquals((int) expected.get(i).getValue(), top.get(i).getCount());
+        }
+    }
+
+    private static List<UUID> uuids(List<LeaderboardTopper> toppers) {
+        List<UUID> uuids = new ArrayList<>();
+        for (LeaderboardTopper topper : toppers)
+            uuids.add(topper.getUUID());
+        return uuids;
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.leaderboard;
+
+import io.github.spleefx.data.GameStats;
+import io.github.spleefx.data.PlayerStatistic;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginManager;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+public class StatisticsSnapshotTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * {@link GameStats} looks up Vault when it is initialized, so a server which has no plugins is required
+     */
+    @BeforeClass
+    public static void setUpServer() {
+        if (Bukkit.getServer() == null)
+            Bukkit.setServer(stub(Server.class));
+    }
+
+    @Test
+    public void updatesArePopulated() {
+        StatisticsSnapshot snapshot = new StatisticsSnapshot();
+        UUID player = UUID.randomUUID();
+        snapshot.update(player, PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, 3));
+        snapshot.update(player, PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, 4));
+        assertEquals(1, snapshot.size());
+        assertTrue(snapshot.pollModified());
+        assertFalse(snapshot.pollModified());
+        assertEquals(4, score(snapshot, player, PlayerStatistic.WINS));
+        assertEquals(0, score(snapshot, player, PlayerStatistic.LOSSES));
+    }
+
+    @Test
+    public void copiesAreNotChangedByUpdates() {
+        StatisticsSnapshot snapshot = new StatisticsSnapshot();
+        UUID player = UUID.randomUUID();
+        snapshot.update(player, PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, 1));
+        StatisticsSnapshot copy = snapshot.copy();
+
+        snapshot.update(player, PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, 2));
+        for (int i = 0; i < 100; i++) // grows the columns past their capacity
+            snapshot.update(UUID.randomUUID(), PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, i));
+
+        assertEquals(1, copy.size());
+        assertEquals(1, score(copy, player, PlayerStatistic.WINS));
+        assertEquals(101, snapshot.size());
+        assertEquals(2, score(snapshot, player, PlayerStatistic.WINS));
+
+        StatisticsSnapshot second = snapshot.copy();
+        snapshot.update(player, PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, 3));
+        assertEquals(2, score(second, player, PlayerStatistic.WINS));
+        assertEquals(1, score(copy, player, PlayerStatistic.WINS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void copiesCannotBeUpdated() {
+        StatisticsSnapshot copy = new StatisticsSnapshot().copy();
+        copy.update(UUID.randomUUID(), PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, 1));
+    }
+
+    @Test
+    public void writtenSnapshotsAreRead() throws IOException {
+        StatisticsSnapshot snapshot = new StatisticsSnapshot();
+        UUID[] players = new UUID[40];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = UUID.randomUUID();
+            snapshot.update(players[i], PlayerStatistic.WINS, null, stats(PlayerStatistic.WINS, i));
+            snapshot.update(players[i], PlayerStatistic.BLOCKS_MINED, null, stats(PlayerStatistic.BLOCKS_MINED, i * 100));
+        }
+        File file = new File(folder.getRoot(), "statistics.snapshot");
+        snapshot.copy().write(file);
+
+        StatisticsSnapshot read = StatisticsSnapshot.read(file);
+        assertNotNull(read);
+        assertEquals(players.length, read.size());
+        for (int i = 0; i < players.length; i++) {
+            assertEquals(i, score(read, players[i], PlayerStatistic.WINS));
+            assertEquals(i * 100, score(read, players[i], PlayerStatistic.BLOCKS_MINED));
+        }
+        assertNull(StatisticsSnapshot.read(new File(folder.getRoot(), "missing.snapshot")));
+    }
+
+    private static GameStats stats(PlayerStatistic statistic, int value) {
+        return new GameStats().add(statistic, null, value);
+    }
+
+    private static int score(StatisticsSnapshot snapshot, UUID player, PlayerStatistic statistic) {
+        LeaderboardIndex leaderboards = new LeaderboardIndex();
+        snapshot.populate(leaderboards);
+        ScoreIndex index = leaderboards.get(statistic, null);
+        return index.get(index.rank(player)).getCount();
+    }
+
+    /**
+     * Creates an implementation of the specified interface whose methods return default values. The
+     * plugin manager of stubbed servers is stubbed as well, so that it reports no plugins.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            Class<?> returnType = method.getReturnType();
+            if (returnType == PluginManager.class) return stub(PluginManager.class);
+            if (returnType == Logger.class) return Logger.getLogger("SpleefX");
+            if (returnType == String.class) return method.getName();
+            if (returnType.isPrimitive() && returnType != void.class) return Array.get(Array.newInstance(returnType, 1), 0);
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.provider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class StatisticsJournalTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsAreReplayedInOrder() throws IOException {
+        File directory = folder.newFolder();
+        UUID player = UUID.randomUUID();
+        try (StatisticsJournal journal = new StatisticsJournal(directory)) {
+            journal.append(player, bytes("first"));
+            journal.append(player, bytes("second"));
+            assertEquals(Long.valueOf(1), journal.roll().join());
+            journal.append(player, bytes("third"));
+            journal.sync();
+        }
+        assertEquals(Arrays.asList("first", "second", "third"), replay(directory));
+    }
+
+    @Test
+    public void currentSegmentIsNotReplayed() throws IOException {
+        File directory = folder.newFolder();
+        try (StatisticsJournal journal = new StatisticsJournal(directory)) {
+            journal.append(UUID.randomUUID(), bytes("pending"));
+            journal.sync();
+            List<String> payloads = new ArrayList<>();
+            journal.replay((player, payload) -> payloads.add(new String(payload, StandardCharsets.UTF_8)));
+            assertEquals(Collections.emptyList(), payloads);
+        }
+    }
+
+    @Test
+    public void truncatedRecordIsSkipped() throws IOException {
+        File directory = folder.newFolder();
+        writeRecords(directory, "first", "second", "third");
+        File segment = new File(directory, "journal-1.bin");
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3); // cut into the CRC of the last record
+        }
+        assertEquals(Arrays.asList("first", "second"), replay(directory));
+
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // the rest of the third record (26 bytes), and all but the first 10 bytes of the second one
+            file.setLength(file.length() - 26 - 20);
+        }
+        assertEquals(Collections.singletonList("first"), replay(directory));
+    }
+
+    @Test
+    public void corruptedRecordEndsTheSegment() throws IOException {
+        File directory = folder.newFolder();
+        writeRecords(directory, "first", "second", "third");
+        File segment = new File(directory, "journal-1.bin");
+        // magic (4), then the first record: UUID (16), length (4), "first" (5), CRC (4)
+        // followed by the second record: UUID (16), length (4) and its payload
+        long payload = 4 + (16 + 4 + 5 + 4) + 16 + 4;
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(payload);
+            file.write('S');
+        }
+        assertEquals(Collections.singletonList("first"), replay(directory));
+    }
+
+    @Test
+    public void deletedSegmentsAreNotReplayed() throws IOException {
+        File directory = folder.newFolder();
+        writeRecords(directory, "first");
+        try (StatisticsJournal journal = new StatisticsJournal(directory)) {
+            journal.append(UUID.randomUUID(), bytes("second"));
+            journal.sync();
+            journal.delete(journal.roll().join() - 1);
+        }
+        assertEquals(Collections.singletonList("second"), replay(directory));
+    }
+
+    private static void writeRecords(File directory, String... payloads) throws IOException {
+        try (StatisticsJournal journal = new StatisticsJournal(directory)) {
+            for (String payload : payloads)
+                journal.append(UUID.randomUUID(), bytes(payload));
+            journal.sync();
+        }
+    }
+
+    /**
+     * Replays the journal in the specified directory, as it is replayed when the plugin is enabled
+     */
+    private static List<String> replay(File directory) throws IOException {
+        List<String> payloads = new ArrayList<>();
+        try (StatisticsJournal journal = new StatisticsJournal(directory)) {
+            journal.replay((player, payload) -> payloads.add(new String(payload, StandardCharsets.UTF_8)));
+        }
+        return payloads;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
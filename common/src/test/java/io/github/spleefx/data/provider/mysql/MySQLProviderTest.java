@@ -0,0 +1,144 @@
+/*
+ * * Copyright 2020 github.com/ReflxctionDev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.spleefx.data.provider.mysql;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the statements of {@link MySQLProvider} against H2 in MySQL mode
+ */
+public class MySQLProviderTest {
+
+    private Connection connection;
+
+    @Before
+    public void createSchema() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:spleefx;MODE=MySQL");
+        try (Statement statement = connection.createStatement()) {
+            for (String table : MySQLProvider.SCHEMA)
+                statement.execute(table);
+        }
+    }
+
+    @After
+    public void dropSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void schemaCanBeCreatedAgain() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : MySQLProvider.SCHEMA)
+                statement.execute(table);
+        }
+    }
+
+    @Test
+    public void insertPlayerIgnoresExistingPlayers() throws SQLException {
+        assertEquals(1, insertPlayer("Steve", "00000000-0000-0000-0000-000000000001"));
+        assertEquals(0, insertPlayer("Steve", "00000000-0000-0000-0000-000000000002"));
+        assertEquals("00000000-0000-0000-0000-000000000001", queryString("SELECT uuid FROM spleefx_players WHERE player = 'Steve'"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM spleefx_players"));
+    }
+
+    @Test
+    public void incrementAddsToExistingStatistics() throws SQLException {
+        writeStatistic(MySQLProvider.INCREMENT_STATISTIC, "WINS", 3);
+        writeStatistic(MySQLProvider.INCREMENT_STATISTIC, "WINS", 4);
+        writeStatistic(MySQLProvider.INCREMENT_STATISTIC, "LOSSES", 1);
+        assertEquals(7, statistic("WINS"));
+        assertEquals(1, statistic("LOSSES"));
+    }
+
+    @Test
+    public void setOverwritesExistingStatistics() throws SQLException {
+        writeStatistic(MySQLProvider.INCREMENT_STATISTIC, "WINS", 5);
+        writeStatistic(MySQLProvider.SET_STATISTIC, "WINS", 2);
+        assertEquals(2, statistic("WINS"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM spleefx_statistics"));
+    }
+
+    @Test
+    public void updateFailsOnVersionConflict() throws SQLException {
+        insertPlayer("Steve", "00000000-0000-0000-0000-000000000001");
+        assertEquals(1, updatePlayer("Steve", 10, 0));
+        assertEquals(1, queryLong("SELECT version FROM spleefx_players WHERE player = 'Steve'"));
+
+        // another server saved version 0 as well
+        assertEquals(0, updatePlayer("Steve", 20, 0));
+        assertEquals(10, queryLong("SELECT coins FROM spleefx_players WHERE player = 'Steve'"));
+
+        assertEquals(1, updatePlayer("Steve", 30, 1));
+        assertEquals(30, queryLong("SELECT coins FROM spleefx_players WHERE player = 'Steve'"));
+        assertEquals(2, queryLong("SELECT version FROM spleefx_players WHERE player = 'Steve'"));
+    }
+
+    private int insertPlayer(String player, String uuid) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(MySQLProvider.INSERT_PLAYER)) {
+            statement.setString(1, player);
+            statement.setString(2, uuid);
+            return statement.executeUpdate();
+        }
+    }
+
+    private int updatePlayer(String player, int coins, long version) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(MySQLProvider.UPDATE_PLAYER)) {
+            statement.setInt(1, coins);
+            statement.setString(2, null);
+            statement.setString(3, player);
+            statement.setLong(4, version);
+            return statement.executeUpdate();
+        }
+    }
+
+    private void writeStatistic(String sql, String statistic, int value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, "Steve");
+            statement.setString(2, "");
+            statement.setString(3, statistic);
+            statement.setInt(4, value);
+            statement.executeUpdate();
+        }
+    }
+
+    private long statistic(String statistic) throws SQLException {
+        return queryLong("SELECT value FROM spleefx_statistics WHERE player = 'Steve' AND extension = '' AND statistic = '" + statistic + "'");
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            assertTrue(result.next());
+            return result.getLong(1);
+        }
+    }
+
+    private String queryString(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            assertTrue(result.next());
+            return result.getString(1);
+        }
+    }
+
+}
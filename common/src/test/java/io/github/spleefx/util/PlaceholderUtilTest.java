@@ -0,0 +1,59 @@
+package io.github.spleefx.util;
+
+import io.github.spleefx.util.PlaceholderUtil.Template;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class PlaceholderUtilTest {
+
+    private static final Map<String, Object> VALUES = new HashMap<>();
+
+    static {
+        VALUES.put("player", "Steve");
+        VALUES.put("arena", "Lava");
+        VALUES.put("coins", 150);
+    }
+
+    @Test
+    public void textWithoutPlaceholders() {
+        assertEquals("No placeholders here", render("No placeholders here"));
+        assertEquals("", render(""));
+    }
+
+    @Test
+    public void placeholdersAreReplaced() {
+        assertEquals("Steve joined Lava", render("{player} joined {arena}"));
+        assertEquals("Steve has 150 coins.", render("{player} has {coins} coins."));
+        assertEquals("SteveLava", render("{player}{arena}"));
+    }
+
+    @Test
+    public void unknownPlaceholdersAreKept() {
+        assertEquals("Steve {unknown}", render("{player} {unknown}"));
+    }
+
+    @Test
+    public void bracesWhichAreNotPlaceholdersAreKept() {
+        assertEquals("{}", render("{}"));
+        assertEquals("Steve {", render("{player} {"));
+        assertEquals("} Steve", render("} {player}"));
+        assertEquals("{Steve}", render("{{player}}"));
+        assertEquals("{a Steve", render("{a {player}"));
+    }
+
+    @Test
+    public void templatesCanBeRenderedAgain() {
+        Template template = Template.parse("{player}: {coins}");
+        assertEquals("Steve: 150", template.render(VALUES::get));
+        assertEquals("Alex: 150", template.render(placeholder -> placeholder.equals("player") ? "Alex" : VALUES.get(placeholder)));
+    }
+
+    private static String render(String text) {
+        return Template.parse(text).render(VALUES::get);
+    }
+
+}
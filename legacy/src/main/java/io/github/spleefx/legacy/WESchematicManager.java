@@ -29,12 +29,15 @@ import com.sk89q.worldedit.function.mask.ExistingBlockMask;
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.session.ClipboardHolder;
 import com.sk89q.worldedit.util.io.Closer;
 import com.sk89q.worldedit.world.World;
-import com.sk89q.worldedit.world.registry.WorldData;
+import com.sk89q.worldedit.world.registry.LegacyWorldData;
 import io.github.spleefx.compatibility.worldedit.NoSchematicException;
 import io.github.spleefx.compatibility.worldedit.SchematicManager;
+import io.github.spleefx.compatibility.worldedit.SlicedPaste;
+import io.github.spleefx.util.plugin.PluginSettings;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 
@@ -66,15 +69,42 @@ public class WESchematicManager extends SchematicManager {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        invalidate();
     }
 
     @Override
     public CompletableFuture<Void> paste(Location loc) throws NoSchematicException {
+        if (!(boolean) PluginSettings.ARENA_SLICED_REGENERATION_ENABLED.get())
+            return pasteAll(loc);
+        Clipboard clipboard = getClipboard();
+        if (clipboard == null) throw new NoSchematicException(schematic.getName());
+        World weWorld = new BukkitWorld(loc.getWorld());
+        Vector to = BukkitUtil.toVector(loc);
+        Vector origin = clipboard.getOrigin();
+        Vector min = clipboard.getRegion().getMinimumPoint();
+        Vector max = clipboard.getRegion().getMaximumPoint();
+        SlicedPaste paste = new SlicedPaste();
+        paste.addSections(new int[]{min.getBlockX(), min.getBlockY(), min.getBlockZ()},
+                new int[]{max.getBlockX(), max.getBlockY(), max.getBlockZ()},
+                new int[]{loc.getBlockX() - origin.getBlockX(), loc.getBlockY() - origin.getBlockY(), loc.getBlockZ() - origin.getBlockZ()},
+                (minX, minY, minZ, maxX, maxY, maxZ) -> {
+                    EditSession extent = WorldEdit.getInstance().getEditSessionFactory().getEditSession(weWorld, -1);
+                    CuboidRegion section = new CuboidRegion(new Vector(minX, minY, minZ), new Vector(maxX, maxY, maxZ));
+                    ForwardExtentCopy copy = new ForwardExtentCopy(clipboard, section, origin, extent, to);
+                    copy.setSourceMask(new ExistingBlockMask(clipboard));
+                    Operations.completeLegacy(copy);
+                    extent.flushQueue();
+                });
+        return paste.start(plugin);
+    }
+
+    @Override
+    public CompletableFuture<Void> pasteAll(Location loc) throws NoSchematicException {
         CompletableFuture<Void> future = new CompletableFuture<>();
         try {
             World weWorld = new BukkitWorld(loc.getWorld());
-            WorldData worldData = weWorld.getWorldData();
-            Clipboard clipboard = ClipboardFormat.SCHEMATIC.getReader(new FileInputStream(schematic)).read(worldData);
+            Clipboard clipboard = getClipboard();
+            if (clipboard == null) throw new NoSchematicException(schematic.getName());
             EditSession extent = WorldEdit.getInstance().getEditSessionFactory().getEditSession(weWorld, -1);
             AffineTransform transform = new AffineTransform();
             ForwardExtentCopy copy = new ForwardExtentCopy(clipboard, clipboard.getRegion(), clipboard.getOrigin(),
@@ -86,14 +116,36 @@ public class WESchematicManager extends SchematicManager {
             Operations.completeLegacy(copy);
             extent.flushQueue();
             future.complete(null);
-        } catch (IOException e) {
-            throw new NoSchematicException(schematic.getName());
         } catch (MaxChangedBlocksException e) {
             e.printStackTrace();
+            future.completeExceptionally(e);
         }
         return future;
     }
 
+    @Override
+    protected Clipboard load() {
+        try (FileInputStream stream = new FileInputStream(schematic)) {
+            return ClipboardFormat.SCHEMATIC.getReader(stream).read(LegacyWorldData.getInstance());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected int getVolume(Clipboard clipboard) {
+        return clipboard.getRegion().getArea();
+    }
+
+    @Override
+    protected int[] getRegion(Clipboard clipboard, Location location) {
+        Vector origin = clipboard.getOrigin();
+        Vector min = clipboard.getRegion().getMinimumPoint();
+        Vector max = clipboard.getRegion().getMaximumPoint();
+        int dx = location.getBlockX() - origin.getBlockX(), dy = location.getBlockY() - origin.getBlockY(), dz = location.getBlockZ() - origin.getBlockZ();
+        return new int[]{min.getBlockX() + dx, min.getBlockY() + dy, min.getBlockZ() + dz, max.getBlockX() + dx, max.getBlockY() + dy, max.getBlockZ() + dz};
+    }
+
     @Override
     public SchematicManager newInstance(WorldEditPlugin plugin, String name, File directory) {
         return new WESchematicManager(plugin, name, directory);
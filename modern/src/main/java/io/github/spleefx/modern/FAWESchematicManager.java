@@ -17,7 +17,6 @@ package io.github.spleefx.modern;
 
 import com.sk89q.worldedit.bukkit.WorldEditPlugin;
 import com.sk89q.worldedit.session.ClipboardHolder;
-import io.github.spleefx.compatibility.worldedit.NoSchematicException;
 import io.github.spleefx.compatibility.worldedit.SchematicManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -25,9 +24,6 @@ import org.bukkit.Location;
 import java.io.File;
 import java.util.concurrent.CompletableFuture;
 
-import static io.github.spleefx.SpleefX.sneakyThrow;
-
-
 /**
  * Schematic processor for FastAsyncWorldEdit
  */
@@ -55,10 +51,14 @@ public class FAWESchematicManager extends WESchematicManager {
         CompletableFuture<Void> future = new CompletableFuture<>();
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
             try {
-                super.paste(location);
-                future.complete(null);
-            } catch (NoSchematicException e) {
-                throw sneakyThrow(e);
+                super.pasteAll(location).whenComplete((v, error) -> {
+                    if (error == null)
+                        future.complete(null);
+                    else
+                        future.completeExceptionally(error);
+                });
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
             }
         });
         return future;
@@ -22,12 +22,16 @@ import com.sk89q.worldedit.bukkit.BukkitWorld;
 import com.sk89q.worldedit.bukkit.WorldEditPlugin;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.clipboard.io.*;
+import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.session.ClipboardHolder;
 import io.github.spleefx.compatibility.worldedit.NoSchematicException;
 import io.github.spleefx.compatibility.worldedit.SchematicManager;
+import io.github.spleefx.compatibility.worldedit.SlicedPaste;
+import io.github.spleefx.util.plugin.PluginSettings;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 
@@ -53,13 +57,39 @@ public class WESchematicManager extends SchematicManager {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        invalidate();
     }
 
     @Override
     public CompletableFuture<Void> paste(Location location) throws NoSchematicException {
+        if (!(boolean) PluginSettings.ARENA_SLICED_REGENERATION_ENABLED.get())
+            return pasteAll(location);
+        Clipboard clipboard = getClipboard();
+        if (clipboard == null) throw new NoSchematicException(SchematicManager.getBaseName(schematic));
+        BukkitWorld world = new BukkitWorld(location.getWorld());
+        BlockVector3 to = BlockVector3.at(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        BlockVector3 origin = clipboard.getOrigin();
+        BlockVector3 min = clipboard.getRegion().getMinimumPoint();
+        BlockVector3 max = clipboard.getRegion().getMaximumPoint();
+        SlicedPaste paste = new SlicedPaste();
+        paste.addSections(new int[]{min.getBlockX(), min.getBlockY(), min.getBlockZ()},
+                new int[]{max.getBlockX(), max.getBlockY(), max.getBlockZ()},
+                new int[]{to.getBlockX() - origin.getBlockX(), to.getBlockY() - origin.getBlockY(), to.getBlockZ() - origin.getBlockZ()},
+                (minX, minY, minZ, maxX, maxY, maxZ) -> {
+                    try (EditSession session = WorldEdit.getInstance().getEditSessionFactory().getEditSession(world, -1)) {
+                        CuboidRegion section = new CuboidRegion(BlockVector3.at(minX, minY, minZ), BlockVector3.at(maxX, maxY, maxZ));
+                        Operations.complete(new ForwardExtentCopy(clipboard, section, origin, session, to));
+                        session.flushSession();
+                    }
+                });
+        return paste.start(plugin);
+    }
+
+    @Override
+    public CompletableFuture<Void> pasteAll(Location location) throws NoSchematicException {
         CompletableFuture<Void> future = new CompletableFuture<>();
         try (EditSession session = WorldEdit.getInstance().getEditSessionFactory().getEditSession(new BukkitWorld(location.getWorld()), -1)) {
-            Operation operation = new ClipboardHolder(load())
+            Operation operation = new ClipboardHolder(getClipboard())
                     .createPaste(session)
                     .to(BlockVector3.at(location.getBlockX(), location.getBlockY(), location.getBlockZ()))
                     .ignoreAirBlocks(false)
@@ -69,19 +99,17 @@ public class WESchematicManager extends SchematicManager {
             future.complete(null);
         } catch (WorldEditException e) {
             e.printStackTrace();
+            future.completeExceptionally(e);
         } catch (NullPointerException e) {
             throw new NoSchematicException(SchematicManager.getBaseName(schematic));
         }
         return future;
     }
 
-    /**
-     * Loads the schematic as a clipboard
-     *
-     * @return The clipboard of the schematic
-     */
-    Clipboard load() {
+    @Override
+    protected Clipboard load() {
         ClipboardFormat format = ClipboardFormats.findByFile(schematic);
+        if (format == null) return null;
         try (ClipboardReader reader = format.getReader(new FileInputStream(schematic))) {
             return reader.read();
         } catch (IOException e) {
@@ -90,6 +118,20 @@ public class WESchematicManager extends SchematicManager {
         }
     }
 
+    @Override
+    protected int getVolume(Clipboard clipboard) {
+        return clipboard.getRegion().getArea();
+    }
+
+    @Override
+    protected int[] getRegion(Clipboard clipboard, Location location) {
+        BlockVector3 origin = clipboard.getOrigin();
+        BlockVector3 min = clipboard.getRegion().getMinimumPoint();
+        BlockVector3 max = clipboard.getRegion().getMaximumPoint();
+        int dx = location.getBlockX() - origin.getBlockX(), dy = location.getBlockY() - origin.getBlockY(), dz = location.getBlockZ() - origin.getBlockZ();
+        return new int[]{min.getBlockX() + dx, min.getBlockY() + dy, min.getBlockZ() + dz, max.getBlockX() + dx, max.getBlockY() + dy, max.getBlockZ() + dz};
+    }
+
     @Override
     protected SchematicManager newInstance(WorldEditPlugin plugin, String name, File directory) {
         return new WESchematicManager(plugin, name, directory);